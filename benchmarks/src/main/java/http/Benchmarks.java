@@ -0,0 +1,29 @@
+package http;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.Runner;
+
+/**
+ * Entry point of benchmarks.jar: JMH's command line, but with the gc profiler (allocation rate) always enabled.
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar ParsedUrlBenchmark.tryParse -p mix=realistic -p invalidRate=0.01
+ * </pre>
+ */
+public final class Benchmarks {
+
+    private Benchmarks() {
+    }
+
+    public static void main(final String[] args) throws RunnerException, CommandLineOptionException {
+        final CommandLineOptions commandLine = new CommandLineOptions(args);
+        new Runner(new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+}
@@ -0,0 +1,115 @@
+package http;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DomainQueues over many distinct domains.<br>
+ * - offerPoll(): one offer() and one poll() on a standing frontier of perDomain items per domain, shared by all
+ * benchmark threads (-t 4 for contention)<br>
+ * - fillAndDrain(): enqueues perDomain items for every domain into a new instance and polls them all again,
+ * gc.alloc.rate.norm / domains is the allocation per domain (incl. its items)
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar DomainQueuesBenchmark.offerPoll -t 4 -p domains=1000000
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DomainQueuesBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int domains;
+
+    @Param({"4"})
+    public int perDomain;
+
+    private String[] names;
+    private DomainQueues<String> frontier;
+
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.names = new String[this.domains];
+        for (int i = 0; i < this.domains; i++) {
+            this.names[i] = "domain" + i + ".com";
+        }
+        this.frontier = new DomainQueues<>();
+        this.fill(this.frontier);
+    }
+
+    @Benchmark
+    public String offerPoll(final Cursor cursor) {
+        final String domain = this.names[cursor.next(this.domains)];
+        this.frontier.offer(domain, domain);
+        return this.frontier.poll();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 5)
+    public long fillAndDrain() {
+        final DomainQueues<String> queues = new DomainQueues<>();
+        final long total = this.fill(queues);
+        long polled = 0;
+        while (queues.poll() != null) {
+            polled++;
+        }
+        if (polled != total || queues.domainCount() != 0) {
+            throw new IllegalStateException("Lost items: " + (total - polled));
+        }
+        return polled;
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // HELPERS
+    // ------------------------------------------------------------------------------------------ //
+
+    private long fill(final DomainQueues<String> queues) {
+        final long total = (long) this.domains * this.perDomain;
+        for (long item = 0; item < total; item++) {
+            final String domain = this.names[(int) (item % this.domains)];
+            queues.offer(domain, domain);
+        }
+        return total;
+    }
+
+    /**
+     * Per benchmark thread, so threads start on different domains
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private long next;
+
+        @Setup(Level.Trial)
+        public void setUp(final ThreadParams params) {
+            this.next = params.getThreadIndex() * 7919L;
+        }
+
+        int next(final int domains) {
+            return (int) (this.next++ % domains);
+        }
+
+    }
+
+}
@@ -0,0 +1,119 @@
+package http;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing throughput and latency per URL, over a UrlCorpus. Every invocation parses the next URL of the corpus, the
+ * corpus is large enough to not fit the caches of the branch predictor.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ParsedUrlBenchmark {
+
+    private static final int CORPUS_SIZE = 1 << 16;
+
+    @Param({"realistic", "bare_domain", "deep_subdomain", "ip", "long_query"})
+    public String mix;
+
+    @Param({"0.0", "0.01", "0.1", "0.5"})
+    public double invalidRate;
+
+    /**
+     * Records into ParseMetrics, to see its overhead
+     */
+    @Param({"false"})
+    public boolean metrics;
+
+    private String[] urls;
+    private byte[][] utf8;
+    private int next;
+    private final ParsedUrlView view = new ParsedUrlView();
+
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.urls = UrlCorpus.generate(UrlCorpus.DEFAULT_SEED, CORPUS_SIZE, this.mix, this.invalidRate);
+        this.utf8 = new byte[CORPUS_SIZE][];
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            this.utf8[i] = this.urls[i].getBytes(StandardCharsets.UTF_8);
+        }
+        ParseMetrics.setDefault(this.metrics ? new ParseMetrics() : null);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ParseMetrics.setDefault(null);
+    }
+
+    @Benchmark
+    public ParsedUrl.ParseResult tryParse() {
+        return ParsedUrl.tryParse(this.nextUrl());
+    }
+
+    /**
+     * Constructor, i.e. invalid URLs pay for the exception
+     */
+    @Benchmark
+    public Object constructor() {
+        try {
+            return new ParsedUrl(this.nextUrl());
+        } catch (final ParsedUrl.ParsedUrlException e) {
+            return e;
+        }
+    }
+
+    /**
+     * Reusable view, "valid? which domain?" without allocating
+     */
+    @Benchmark
+    public CharSequence view() {
+        return this.view.parse(this.nextUrl()) ? this.view.getDomain() : null;
+    }
+
+    /**
+     * Same as view() on UTF-8 bytes, e.g. straight from a WARC record
+     */
+    @Benchmark
+    public CharSequence viewUtf8() {
+        final byte[] url = this.utf8[this.next];
+        this.next = (this.next + 1) & (CORPUS_SIZE - 1);
+        return this.view.parseUtf8(url, 0, url.length) ? this.view.getDomain() : null;
+    }
+
+    @Benchmark
+    public long fingerprint() {
+        final ParsedUrl.ParseResult result = ParsedUrl.tryParse(this.nextUrl());
+        return result.isValid() ? result.getUrl().getFingerprint() : 0;
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // HELPERS
+    // ------------------------------------------------------------------------------------------ //
+
+    private String nextUrl() {
+        final String url = this.urls[this.next];
+        this.next = (this.next + 1) & (CORPUS_SIZE - 1);
+        return url;
+    }
+
+}
@@ -0,0 +1,191 @@
+package http;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Reproducible URL corpus for benchmarks: same seed, size, mix and invalid rate -> same URLs, on every machine.<br>
+ * Can also be written to a file (one URL per line), e.g. as input for UrlFileProcessor:
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar http.UrlCorpus urls.txt 10000000 realistic 0.05
+ * </pre>
+ */
+public final class UrlCorpus {
+
+    public static final long DEFAULT_SEED = 0x5EEDL;
+
+    private static final String[] TLDS = {"com", "com", "com", "org", "net", "de", "co.uk", "com.au", "io", "fr", "jp", "github.io"};
+    private static final String[] WORDS = {"news", "shop", "blog", "api", "static", "media", "cdn", "mail", "app", "docs",
+            "search", "video", "images", "login", "account", "cart", "product", "category", "article", "en", "de"};
+    private static final String[] PARAMS = {"utm_source", "utm_medium", "utm_campaign", "id", "q", "page", "sort", "ref",
+            "session", "lang", "filter", "gclid", "fbclid", "offset", "limit"};
+
+    /**
+     * Kinds of URLs. Besides the single kinds, the mix "realistic" draws from all of them.
+     */
+    public enum Kind {
+        BARE_DOMAIN, DEEP_SUBDOMAIN, IP, LONG_QUERY
+    }
+
+
+    private UrlCorpus() {
+    }
+
+    /**
+     * @param mix         "realistic" or the lower-case name of a Kind, e.g. "long_query"
+     * @param invalidRate share of invalid URLs, 0.0 - 1.0
+     */
+    public static String[] generate(final long seed, final int size, final String mix, final double invalidRate) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Size must be > 0, provided: " + size);
+        }
+        if (invalidRate < 0 || invalidRate > 1) {
+            throw new IllegalArgumentException("Invalid rate must be within 0.0 - 1.0, provided: " + invalidRate);
+        }
+        final Kind fixedKind = mix.equals("realistic") ? null : Kind.valueOf(mix.toUpperCase(Locale.ROOT));
+        final Random random = new Random(seed);
+        final String[] urls = new String[size];
+        for (int i = 0; i < size; i++) {
+            final Kind kind = fixedKind != null ? fixedKind : realisticKind(random);
+            final String url = url(random, kind);
+            urls[i] = random.nextDouble() < invalidRate ? invalidate(random, url) : url;
+        }
+        return urls;
+    }
+
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: UrlCorpus <output file> <size> [mix, default realistic] [invalid rate, default 0.05] [seed]");
+            System.exit(2);
+        }
+        final String[] urls = generate(args.length > 4 ? Long.parseLong(args[4]) : DEFAULT_SEED, Integer.parseInt(args[1]),
+                args.length > 2 ? args[2] : "realistic", args.length > 3 ? Double.parseDouble(args[3]) : 0.05);
+        try (final BufferedWriter out = Files.newBufferedWriter(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+            for (final String url : urls) {
+                out.write(url);
+                out.write('\n');
+            }
+        }
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // HELPERS
+    // ------------------------------------------------------------------------------------------ //
+
+    private static Kind realisticKind(final Random random) {
+        final int roll = random.nextInt(100);
+        if (roll < 35) {
+            return Kind.BARE_DOMAIN;
+        } else if (roll < 65) {
+            return Kind.DEEP_SUBDOMAIN;
+        } else if (roll < 70) {
+            return Kind.IP;
+        }
+        return Kind.LONG_QUERY;
+    }
+
+    private static String url(final Random random, final Kind kind) {
+        final StringBuilder url = new StringBuilder(128);
+        switch (kind) {
+            case BARE_DOMAIN:
+                // Mostly without protocol, like links pasted by users
+                if (random.nextBoolean()) {
+                    url.append(random.nextBoolean() ? "http://" : "https://");
+                }
+                url.append(label(random)).append('.').append(pick(random, TLDS));
+                if (random.nextBoolean()) {
+                    path(random, url, 1);
+                }
+                break;
+            case DEEP_SUBDOMAIN:
+                url.append("https://");
+                for (int i = 2 + random.nextInt(5); i > 0; i--) {
+                    url.append(pick(random, WORDS)).append('.');
+                }
+                url.append(label(random)).append('.').append(pick(random, TLDS));
+                path(random, url, 1 + random.nextInt(4));
+                break;
+            case IP:
+                url.append("http://");
+                final int host = random.nextInt(10);
+                if (host > 1) {
+                    url.append(random.nextInt(256)).append('.').append(random.nextInt(256)).append('.')
+                            .append(random.nextInt(256)).append('.').append(random.nextInt(256));
+                } else if (host == 1) {
+                    url.append("[2001:db8::").append(Integer.toHexString(random.nextInt(0x10000))).append(']');
+                } else {
+                    url.append("localhost");
+                }
+                if (random.nextBoolean()) {
+                    url.append(':').append(1024 + random.nextInt(60000));
+                }
+                path(random, url, 1 + random.nextInt(2));
+                break;
+            case LONG_QUERY:
+                url.append("https://www.").append(label(random)).append('.').append(pick(random, TLDS));
+                path(random, url, 1 + random.nextInt(3));
+                url.append('?');
+                for (int i = 10 + random.nextInt(30); i > 0; i--) {
+                    url.append(pick(random, PARAMS)).append('=').append(Long.toHexString(random.nextLong()));
+                    if (i > 1) {
+                        url.append('&');
+                    }
+                }
+                if (random.nextInt(4) == 0) {
+                    url.append('#').append(pick(random, WORDS));
+                }
+                break;
+        }
+        return url.toString();
+    }
+
+    /**
+     * Breaks the URL in one of the ways seen in crawled data
+     */
+    private static String invalidate(final Random random, final String url) {
+        final int roll = random.nextInt(6);
+        switch (roll) {
+            case 0:
+                return "ftp://" + label(random) + ".com/file";
+            case 1:
+                return label(random) + ".notasuffix/" + pick(random, WORDS);
+            case 2:
+                return "https://" + label(random) + ".com:99999/";
+            case 3:
+                return url + "/with space";
+            case 4:
+                return "http:///" + pick(random, WORDS);
+            default:
+                return "https://" + label(random) + ".com/%zz";
+        }
+    }
+
+    private static void path(final Random random, final StringBuilder url, final int segments) {
+        for (int i = 0; i < segments; i++) {
+            url.append('/').append(pick(random, WORDS));
+        }
+        if (random.nextInt(3) == 0) {
+            url.append('/').append(label(random)).append(".html");
+        }
+    }
+
+    private static String label(final Random random) {
+        final int length = 3 + random.nextInt(10);
+        final char[] label = new char[length];
+        for (int i = 0; i < length; i++) {
+            label[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(label);
+    }
+
+    private static String pick(final Random random, final String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+}
@@ -0,0 +1,214 @@
+package utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation chains of a typical builder (mandatory + optional values, predicates), with a share of invalid inputs.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ButilBenchmark {
+
+    private static final int INPUTS = 1 << 12;
+
+    @Param({"0.0", "0.01", "0.1"})
+    public double invalidRate;
+
+    private String[] hosts;
+    private Integer[] ports;
+    private Integer[] timeouts;
+    private int next;
+
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Random random = new Random(0x5EEDL);
+        this.hosts = new String[INPUTS];
+        this.ports = new Integer[INPUTS];
+        this.timeouts = new Integer[INPUTS];
+        for (int i = 0; i < INPUTS; i++) {
+            final boolean invalid = random.nextDouble() < this.invalidRate;
+            final int broken = invalid ? random.nextInt(3) : -1;
+            this.hosts[i] = broken == 0 ? (random.nextBoolean() ? null : " ") : "host" + i + ".example.com";
+            // Half of the optional values are missing, i.e. use the default
+            this.ports[i] = broken == 1 ? Integer.valueOf(-1) : random.nextBoolean() ? null : Integer.valueOf(1024 + random.nextInt(60000));
+            this.timeouts[i] = broken == 2 ? Integer.valueOf(0) : random.nextBoolean() ? null : Integer.valueOf(1 + random.nextInt(60_000));
+        }
+    }
+
+    @Benchmark
+    public Object validateBuilder() {
+        final int i = this.next;
+        this.next = (i + 1) & (INPUTS - 1);
+        try {
+            return new Config(this.hosts[i], this.ports[i], this.timeouts[i]);
+        } catch (final IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    /**
+     * Same as validateBuilder() with stackless() chains, invalid inputs skip filling in the stack trace
+     */
+    @Benchmark
+    public Object validateBuilderStackless() {
+        final int i = this.next;
+        this.next = (i + 1) & (INPUTS - 1);
+        try {
+            return new StacklessConfig(this.hosts[i], this.ports[i], this.timeouts[i]);
+        } catch (final IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    /**
+     * Same as validateBuilder() with IntButil for the numbers. Valid inputs only allocate the config itself (24 B/op).
+     */
+    @Benchmark
+    public Object validateBuilderPrimitive() {
+        final int i = this.next;
+        this.next = (i + 1) & (INPUTS - 1);
+        try {
+            return new PrimitiveConfig(this.hosts[i], this.ports[i], this.timeouts[i]);
+        } catch (final IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    /**
+     * Same as validateBuilder() with the chains defined once as ButilSchema constants
+     */
+    @Benchmark
+    public Object validateBuilderSchema() {
+        final int i = this.next;
+        this.next = (i + 1) & (INPUTS - 1);
+        try {
+            return new SchemaConfig(this.hosts[i], this.ports[i], this.timeouts[i]);
+        } catch (final IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public String singleCheck() {
+        final int i = this.next;
+        this.next = (i + 1) & (INPUTS - 1);
+        return Butil.optionalValue(this.hosts[i], "localhost").get();
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // INNER OBJECTS
+    // ------------------------------------------------------------------------------------------ //
+
+    private static final class Config {
+
+        private final String host;
+        private final int port;
+        private final int timeoutMillis;
+
+        private Config(final String host, final Integer port, final Integer timeoutMillis) {
+            this.host = Butil.mandatoryValue(host)
+                    .isNotNull("Host must not be null")
+                    .isFalse(String::isBlank, "Host must not be blank")
+                    .get();
+            this.port = Butil.optionalValue(port, 80)
+                    .isTrue(p -> p > 0 && p < 65536, "Port must be within 1 - 65535")
+                    .get();
+            this.timeoutMillis = Butil.optionalValue(timeoutMillis, 10_000)
+                    .isTrue(t -> t > 0, "Timeout must be > 0")
+                    .get();
+        }
+    }
+
+    /**
+     * Same as Config, failures without stack trace
+     */
+    private static final class StacklessConfig {
+
+        private final String host;
+        private final int port;
+        private final int timeoutMillis;
+
+        private StacklessConfig(final String host, final Integer port, final Integer timeoutMillis) {
+            this.host = Butil.mandatoryValue(host).stackless()
+                    .isNotNull("Host must not be null")
+                    .isFalse(String::isBlank, "Host must not be blank")
+                    .get();
+            this.port = Butil.optionalValue(port, 80).stackless()
+                    .isTrue(p -> p > 0 && p < 65536, "Port must be within 1 - 65535")
+                    .get();
+            this.timeoutMillis = Butil.optionalValue(timeoutMillis, 10_000).stackless()
+                    .isTrue(t -> t > 0, "Timeout must be > 0")
+                    .get();
+        }
+    }
+
+    private static final class SchemaConfig {
+
+        private static final ButilSchema<String> HOST = Butil.<String>schema()
+                .isNotNull("Host must not be null")
+                .isFalse(String::isBlank, "Host must not be blank")
+                .build();
+        private static final ButilSchema<Integer> PORT = Butil.<Integer>schema()
+                .defaultValue(80)
+                .isTrue(p -> p > 0 && p < 65536, "Port must be within 1 - 65535")
+                .build();
+        private static final ButilSchema<Integer> TIMEOUT = Butil.<Integer>schema()
+                .defaultValue(10_000)
+                .isTrue(t -> t > 0, "Timeout must be > 0")
+                .build();
+
+        private final String host;
+        private final int port;
+        private final int timeoutMillis;
+
+        private SchemaConfig(final String host, final Integer port, final Integer timeoutMillis) {
+            this.host = HOST.apply(host);
+            this.port = PORT.apply(port);
+            this.timeoutMillis = TIMEOUT.apply(timeoutMillis);
+        }
+    }
+
+    /**
+     * Same as Config, the numbers are validated by IntButil
+     */
+    private static final class PrimitiveConfig {
+
+        private final String host;
+        private final int port;
+        private final int timeoutMillis;
+
+        private PrimitiveConfig(final String host, final Integer port, final Integer timeoutMillis) {
+            this.host = Butil.mandatoryValue(host)
+                    .isNotNull("Host must not be null")
+                    .isFalse(String::isBlank, "Host must not be blank")
+                    .get();
+            this.port = IntButil.optionalValue(port, 80)
+                    .inRange(1, 65535, "Port must be within 1 - 65535")
+                    .get();
+            this.timeoutMillis = IntButil.optionalValue(timeoutMillis, 10_000)
+                    .positive("Timeout must be > 0")
+                    .get();
+        }
+    }
+
+}
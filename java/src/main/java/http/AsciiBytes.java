@@ -0,0 +1,151 @@
+package http;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Read-only CharSequence view over ASCII bytes, either a byte[] range or a ByteBuffer (heap or direct).<br>
+ * Lets UrlScanner work on raw bytes without decoding them first, Strings are only created by toString().<br>
+ * Only holds pure ASCII input, see of() and wrap(). Doesn't copy, so the bytes must not change while in use.
+ */
+final class AsciiBytes implements CharSequence {
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private byte[] array;
+    private ByteBuffer buffer;
+    private int offset;
+    private int length;
+
+
+    /**
+     * Empty, reusable view, see wrap()
+     */
+    AsciiBytes() {
+    }
+
+    private AsciiBytes(final byte[] array, final ByteBuffer buffer, final int offset, final int length) {
+        this.array = array;
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * View of the bytes if they are ASCII, otherwise the UTF-8 decoded String (invalid sequences become U+FFFD).
+     */
+    static CharSequence of(final byte[] bytes, final int offset, final int length) {
+        final AsciiBytes view = new AsciiBytes();
+        return view.wrap(bytes, offset, length) ? view : new String(bytes, offset, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * View of the remaining bytes if they are ASCII, otherwise the UTF-8 decoded String. The buffer's position isn't
+     * changed.
+     */
+    static CharSequence of(final ByteBuffer buffer) {
+        final AsciiBytes view = new AsciiBytes();
+        return view.wrap(buffer) ? view : StandardCharsets.UTF_8.decode(buffer.duplicate()).toString();
+    }
+
+    /**
+     * Points this view at the bytes. Returns false (and stays unchanged) if they aren't all ASCII.
+     */
+    boolean wrap(final byte[] bytes, final int offset, final int length) {
+        if (offset < 0 || length < 0 || offset > bytes.length - length) {
+            throw new IndexOutOfBoundsException("Range [" + offset + ", " + offset + " + " + length + ") out of bounds for length " + bytes.length);
+        }
+        // 8 bytes at a time, ASCII has no high bit set
+        int i = offset;
+        for (; i + 8 <= offset + length; i += 8) {
+            if (((long) LONGS.get(bytes, i) & 0x8080808080808080L) != 0) {
+                return false;
+            }
+        }
+        for (; i < offset + length; i++) {
+            if (bytes[i] < 0) {
+                return false;
+            }
+        }
+        this.array = bytes;
+        this.buffer = null;
+        this.offset = offset;
+        this.length = length;
+        return true;
+    }
+
+    /**
+     * Points this view at the remaining bytes of the buffer. Returns false (and stays unchanged) if they aren't all
+     * ASCII. The buffer's position isn't changed.
+     */
+    boolean wrap(final ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            return this.wrap(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        }
+        for (int i = buffer.position(); i < buffer.limit(); i++) {
+            if (buffer.get(i) < 0) {
+                return false;
+            }
+        }
+        this.array = null;
+        this.buffer = buffer;
+        this.offset = buffer.position();
+        this.length = buffer.remaining();
+        return true;
+    }
+
+
+    /**
+     * Backing array, null if the view is over a direct ByteBuffer
+     */
+    byte[] array() {
+        return this.array;
+    }
+
+    /**
+     * Index of char 0 in array()
+     */
+    int arrayOffset() {
+        return this.offset;
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // CHAR SEQUENCE
+    // ------------------------------------------------------------------------------------------ //
+
+    @Override
+    public int length() {
+        return this.length;
+    }
+
+    @Override
+    public char charAt(final int index) {
+        if (index < 0 || index >= this.length) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + this.length);
+        }
+        return (char) (this.array != null ? this.array[this.offset + index] : this.buffer.get(this.offset + index));
+    }
+
+    @Override
+    public CharSequence subSequence(final int start, final int end) {
+        if (start < 0 || start > end || end > this.length) {
+            throw new IndexOutOfBoundsException("Range [" + start + ", " + end + ") out of bounds for length " + this.length);
+        }
+        return new AsciiBytes(this.array, this.buffer, this.offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        if (this.array != null) {
+            return new String(this.array, this.offset, this.length, StandardCharsets.ISO_8859_1);
+        }
+        final byte[] bytes = new byte[this.length];
+        this.buffer.get(this.offset, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+}
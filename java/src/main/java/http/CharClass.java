@@ -0,0 +1,141 @@
+package http;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Set of ASCII chars that UrlScanner can skip without looking at them one by one, e.g. the chars of a path that are
+ * legal and neither '%' nor the start of the query.<br>
+ * - Membership is a 128-bit mask in two longs, no table load<br>
+ * - skip() finds the first char outside the set. On Strings it's a plain loop, on ASCII bytes (AsciiBytes over a
+ * byte[]) it tests 8 bytes at a time (SWAR): every boundary of the set is one subtraction per word, the first byte
+ * outside is the lowest set high bit<br>
+ * Immutable and thread-safe.
+ */
+final class CharClass {
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    private final long low; // Chars 0 - 63
+    private final long high; // Chars 64 - 127
+    // Every char where membership flips, as k * ONES. Char 0 is never a member, so x is one if an odd number of these are <= x
+    private final long[] boundaries;
+
+
+    private CharClass(final long low, final long high) {
+        this.low = low;
+        this.high = high;
+        int count = 0;
+        final long[] boundaries = new long[128];
+        boolean member = false;
+        for (char c = 0; c < 128; c++) {
+            if (this.contains(c) != member) {
+                member = !member;
+                boundaries[count++] = c * ONES;
+            }
+        }
+        this.boundaries = Arrays.copyOf(boundaries, count);
+    }
+
+    /**
+     * @param classes  class bits per ASCII char
+     * @param cls      class the chars must have
+     * @param excluded chars that aren't part of the set anyway
+     */
+    static CharClass of(final byte[] classes, final int cls, final String excluded) {
+        long low = 0;
+        long high = 0;
+        for (char c = 1; c < 128; c++) {
+            if ((classes[c] & cls) != 0 && excluded.indexOf(c) < 0) {
+                if (c < 64) {
+                    low |= 1L << c;
+                } else {
+                    high |= 1L << (c - 64);
+                }
+            }
+        }
+        return new CharClass(low, high);
+    }
+
+    boolean contains(final char c) {
+        return contains(this.low, this.high, c);
+    }
+
+    /**
+     * @return index of the first char in [from, to) that isn't part of the set, to if all of them are
+     */
+    int skip(final CharSequence s, final int from, final int to) {
+        if (s instanceof String) {
+            return this.skip((String) s, from, to);
+        }
+        if (s instanceof AsciiBytes && ((AsciiBytes) s).array() != null) {
+            final AsciiBytes bytes = (AsciiBytes) s;
+            final int offset = bytes.arrayOffset();
+            return this.skip(bytes.array(), offset + from, offset + to) - offset;
+        }
+        final long low = this.low;
+        final long high = this.high;
+        int i = from;
+        while (i < to && contains(low, high, s.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // HELPERS
+    // ------------------------------------------------------------------------------------------ //
+
+    private int skip(final String s, final int from, final int to) {
+        final long low = this.low;
+        final long high = this.high;
+        int i = from;
+        while (i < to && contains(low, high, s.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Bytes must be ASCII, which AsciiBytes guarantees
+     */
+    private int skip(final byte[] bytes, final int from, final int to) {
+        int i = from;
+        for (; i + 8 <= to; i += 8) {
+            final long outside = this.outside((long) LONGS.get(bytes, i));
+            if (outside != 0) {
+                return i + (Long.numberOfTrailingZeros(outside) >>> 3);
+            }
+        }
+        while (i < to && contains(this.low, this.high, (char) bytes[i])) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Kept small so it inlines into every loop. Shifts only use the low 6 bits, so high >>> c is bit c - 64.
+     */
+    private static boolean contains(final long low, final long high, final char c) {
+        return c < 128 && ((c < 64 ? low : high) >>> c & 1) != 0;
+    }
+
+    /**
+     * @return high bit set in every byte of the (little endian) word that isn't part of the set
+     */
+    private long outside(final long word) {
+        // (0x80 | x) - k keeps its high bit iff x >= k, and never borrows from the next byte as x, k <= 0x80
+        final long biased = word | HIGH_BITS;
+        long member = 0;
+        for (final long boundary : this.boundaries) {
+            member ^= biased - boundary;
+        }
+        return ~member & HIGH_BITS;
+    }
+
+}
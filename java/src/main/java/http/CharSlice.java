@@ -0,0 +1,52 @@
+package http;
+
+/**
+ * Reusable CharSequence window [start, end) of another CharSequence, lets ParsedUrlView hand out components without
+ * copying them. Only toString() and subSequence() allocate.
+ */
+final class CharSlice implements CharSequence {
+
+    private CharSequence source;
+    private int start;
+    private int end;
+
+
+    CharSlice reset(final CharSequence source, final int start, final int end) {
+        this.source = source;
+        this.start = start;
+        this.end = end;
+        return this;
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // CHAR SEQUENCE
+    // ------------------------------------------------------------------------------------------ //
+
+    @Override
+    public int length() {
+        return this.end - this.start;
+    }
+
+    @Override
+    public char charAt(final int index) {
+        if (index < 0 || index >= this.end - this.start) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + (this.end - this.start));
+        }
+        return this.source.charAt(this.start + index);
+    }
+
+    @Override
+    public CharSequence subSequence(final int start, final int end) {
+        if (start < 0 || start > end || end > this.end - this.start) {
+            throw new IndexOutOfBoundsException("Range [" + start + ", " + end + ") out of bounds for length " + (this.end - this.start));
+        }
+        return this.source.subSequence(this.start + start, this.start + end);
+    }
+
+    @Override
+    public String toString() {
+        return this.source.subSequence(this.start, this.end).toString();
+    }
+
+}
@@ -0,0 +1,151 @@
+package http;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Routes URLs to nodes (e.g. fetchers) by registered domain, via consistent hashing with virtual nodes.<br>
+ * - All URLs of a domain go to the same node, so per-site politeness can be enforced in one place<br>
+ * - Keys are hashed with MurmurHash3 over their UTF-8 bytes, the assignment is the same on every JVM and machine<br>
+ * - Adding or removing a node only moves ~1/n of the domains<br>
+ * - Immutable and thread-safe, withNode() / withoutNode() return a new partitioner
+ * <pre>
+ * DomainPartitioner partitioner = new DomainPartitioner(List.of("fetcher-1", "fetcher-2", "fetcher-3"));
+ * partitioner.nodeFor(new ParsedUrl("sub.google.com/a")); // same node as "google.com/b"
+ * </pre>
+ */
+public final class DomainPartitioner {
+
+    public static final int DEFAULT_VIRTUAL_NODES = 160;
+
+    private final List<String> nodes;
+    private final int virtualNodes;
+
+    // Ring, sorted by point. owners[i] is the index in nodes of the point at points[i]
+    private final long[] points;
+    private final int[] owners;
+
+
+    public DomainPartitioner(final Collection<String> nodes) {
+        this(nodes, DEFAULT_VIRTUAL_NODES);
+    }
+
+    public DomainPartitioner(final Collection<String> nodes, final int virtualNodes) {
+        if (nodes == null || nodes.isEmpty()) {
+            throw new IllegalArgumentException("At least one node is required");
+        }
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("Virtual nodes must be > 0, provided: " + virtualNodes);
+        }
+        final Set<String> unique = new LinkedHashSet<>(nodes);
+        if (unique.contains(null) || unique.size() != nodes.size()) {
+            throw new IllegalArgumentException("Nodes must be unique and not null, provided: " + nodes);
+        }
+        this.nodes = Collections.unmodifiableList(new ArrayList<>(unique));
+        this.virtualNodes = virtualNodes;
+
+        // Sort (point, owner) pairs by point, ties broken by owner so the ring doesn't depend on the input order
+        final int size = this.nodes.size() * virtualNodes;
+        final long[][] ring = new long[size][];
+        int i = 0;
+        for (int node = 0; node < this.nodes.size(); node++) {
+            for (int replica = 0; replica < virtualNodes; replica++) {
+                ring[i++] = new long[]{hash(this.nodes.get(node) + '#' + replica), node};
+            }
+        }
+        Arrays.sort(ring, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : this.nodes.get((int) a[1]).compareTo(this.nodes.get((int) b[1])));
+        this.points = new long[size];
+        this.owners = new int[size];
+        for (i = 0; i < size; i++) {
+            this.points[i] = ring[i][0];
+            this.owners[i] = (int) ring[i][1];
+        }
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // ROUTING
+    // ------------------------------------------------------------------------------------------ //
+
+    /**
+     * Node responsible for the URL's partition key, see keyOf()
+     */
+    public String nodeFor(final ParsedUrl url) {
+        return this.nodeFor(keyOf(url));
+    }
+
+    /**
+     * Node responsible for the key, normally a registered domain
+     */
+    public String nodeFor(final String key) {
+        final long h = hash(key);
+        // First point >= h, wrapping around to the start of the ring
+        int low = 0;
+        int high = this.points.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (this.points[mid] < h) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return this.nodes.get(this.owners[low == this.points.length ? 0 : low]);
+    }
+
+    /**
+     * Partition key of the URL: the registered domain (`sub.google.com` -> `google.com`), the lower-cased host if
+     * there is none (IPs, localhost, unknown suffixes).
+     */
+    public static String keyOf(final ParsedUrl url) {
+        final String domain = url.getDomain();
+        return domain != null ? domain : url.getHost().toLowerCase(Locale.ROOT);
+    }
+
+    public DomainPartitioner withNode(final String node) {
+        final List<String> nodes = new ArrayList<>(this.nodes);
+        nodes.add(node);
+        return new DomainPartitioner(nodes, this.virtualNodes);
+    }
+
+    public DomainPartitioner withoutNode(final String node) {
+        final List<String> nodes = new ArrayList<>(this.nodes);
+        if (!nodes.remove(node)) {
+            throw new IllegalArgumentException("Unknown node: " + node);
+        }
+        return new DomainPartitioner(nodes, this.virtualNodes);
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // GETTER
+    // ------------------------------------------------------------------------------------------ //
+
+    public List<String> getNodes() {
+        return this.nodes;
+    }
+
+    public int getVirtualNodes() {
+        return this.virtualNodes;
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // HELPERS
+    // ------------------------------------------------------------------------------------------ //
+
+    private static long hash(final String s) {
+        final Murmur3Hasher hasher = new Murmur3Hasher();
+        for (int i = 0; i < s.length(); i++) {
+            hasher.put(s.charAt(i));
+        }
+        return hasher.h1();
+    }
+
+}
@@ -0,0 +1,246 @@
+package http;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-domain FIFO queues with fair round-robin dequeue across domains, e.g. the frontier of a fetcher.<br>
+ * - poll() serves one item of the next ready domain, then puts that domain at the back of the line: a domain with
+ * 1M queued URLs gets no more turns than one with a single URL<br>
+ * - Optional politeness delay: a domain is served at most once per delay, regardless of the number of consumers<br>
+ * - Thread-safe, offer() only locks the domain's own queue. Domains without pending items (and without a running
+ * delay) are dropped, idle domains cost no memory<br>
+ * - Unbounded, the caller has to apply back pressure via size()
+ * <pre>
+ * DomainQueues&lt;ParsedUrl&gt; frontier = new DomainQueues&lt;&gt;(1, TimeUnit.SECONDS);
+ * ParsedUrl url = new ParsedUrl("google.com/a");
+ * frontier.offer(DomainPartitioner.keyOf(url), url);
+ * ParsedUrl next = frontier.poll(); // null if no domain is ready
+ * </pre>
+ */
+public final class DomainQueues<T> {
+
+    private final long delayNanos;
+    private final LongSupplier clock;
+
+    private final ConcurrentHashMap<String, DomainQueue> domains = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<DomainQueue> ready = new ConcurrentLinkedQueue<>();
+    // Domains served less than delayNanos ago, ordered by the time they may be served again
+    private final PriorityQueue<DomainQueue> delayed = new PriorityQueue<>((a, b) -> Long.compare(a.readyAt - b.readyAt, 0));
+    private volatile long nextReadyAt = Long.MAX_VALUE;
+
+    private final LongAdder size = new LongAdder();
+
+
+    /**
+     * Without politeness delay, domains are served strictly round-robin
+     */
+    public DomainQueues() {
+        this(0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Every domain is served at most once per delay
+     */
+    public DomainQueues(final long delay, final TimeUnit unit) {
+        this(delay, unit, System::nanoTime);
+    }
+
+    DomainQueues(final long delay, final TimeUnit unit, final LongSupplier clock) {
+        if (delay < 0) {
+            throw new IllegalArgumentException("Delay must be >= 0, provided: " + delay);
+        }
+        this.delayNanos = unit.toNanos(delay);
+        this.clock = clock;
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // QUEUE
+    // ------------------------------------------------------------------------------------------ //
+
+    /**
+     * Enqueues the item for the domain, for URLs usually DomainPartitioner.keyOf(url)
+     */
+    public void offer(final String domain, final T item) {
+        if (domain == null || item == null) {
+            throw new NullPointerException("Domain and item must not be null");
+        }
+        while (true) {
+            final DomainQueue queue = this.domains.computeIfAbsent(domain, DomainQueue::new);
+            synchronized (queue) {
+                if (queue.removed) {
+                    // Dropped by a consumer in the meantime, the map already has (or will get) a new one
+                    continue;
+                }
+                queue.add(item);
+                this.size.increment();
+                if (!queue.scheduled) {
+                    queue.scheduled = true;
+                    this.ready.add(queue);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Next item of the next ready domain, null if there is none (queue empty or all domains within their delay)
+     */
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        final long nextReadyAt = this.nextReadyAt;
+        if (nextReadyAt != Long.MAX_VALUE && nextReadyAt - this.clock.getAsLong() <= 0) {
+            this.promoteDelayed();
+        }
+        DomainQueue queue;
+        while ((queue = this.ready.poll()) != null) {
+            // Only one consumer can hold a domain taken from ready, producers only append
+            synchronized (queue) {
+                final Object item = queue.take();
+                if (item == null) {
+                    this.dropIfIdle(queue);
+                    continue;
+                }
+                this.size.decrement();
+                if (this.delayNanos > 0) {
+                    this.delay(queue);
+                } else if (queue.size > 0) {
+                    this.ready.add(queue);
+                } else {
+                    this.dropIfIdle(queue);
+                }
+                return (T) item;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Pending items over all domains, exact when there are no concurrent updates
+     */
+    public long size() {
+        return this.size.sum();
+    }
+
+    public boolean isEmpty() {
+        return this.size() == 0;
+    }
+
+    /**
+     * Domains with pending items or a running politeness delay
+     */
+    public int domainCount() {
+        return this.domains.size();
+    }
+
+    public long getDelay(final TimeUnit unit) {
+        return unit.convert(this.delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // HELPERS
+    // ------------------------------------------------------------------------------------------ //
+
+    /**
+     * Caller holds the lock of queue
+     */
+    private void dropIfIdle(final DomainQueue queue) {
+        queue.scheduled = false;
+        queue.removed = true;
+        this.domains.remove(queue.domain, queue);
+    }
+
+    /**
+     * Caller holds the lock of queue. Keeps the domain even if empty, a new item must still wait for the delay.
+     */
+    private void delay(final DomainQueue queue) {
+        queue.readyAt = this.clock.getAsLong() + this.delayNanos;
+        synchronized (this.delayed) {
+            this.delayed.add(queue);
+            this.nextReadyAt = this.delayed.peek().readyAt;
+        }
+    }
+
+    private void promoteDelayed() {
+        final long now = this.clock.getAsLong();
+        while (true) {
+            final DomainQueue queue;
+            synchronized (this.delayed) {
+                final DomainQueue head = this.delayed.peek();
+                if (head == null || head.readyAt - now > 0) {
+                    this.nextReadyAt = head == null ? Long.MAX_VALUE : head.readyAt;
+                    return;
+                }
+                queue = this.delayed.poll();
+            }
+            synchronized (queue) {
+                if (queue.size > 0) {
+                    this.ready.add(queue);
+                } else {
+                    this.dropIfIdle(queue);
+                }
+            }
+        }
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // INNER OBJECTS
+    // ------------------------------------------------------------------------------------------ //
+
+    /**
+     * FIFO of one domain, a ring buffer starting at 2 slots. Guarded by its own monitor.
+     */
+    private static final class DomainQueue {
+
+        private final String domain;
+        private Object[] items = new Object[2];
+        private int head;
+        private int size;
+
+        // In ready, in delayed or held by a consumer
+        private boolean scheduled;
+        // No longer in the map, producers must not add to it
+        private boolean removed;
+        private long readyAt;
+
+        private DomainQueue(final String domain) {
+            this.domain = domain;
+        }
+
+        private void add(final Object item) {
+            if (this.size == this.items.length) {
+                final Object[] grown = new Object[this.items.length << 1];
+                final int tail = this.items.length - this.head;
+                System.arraycopy(this.items, this.head, grown, 0, tail);
+                System.arraycopy(this.items, 0, grown, tail, this.head);
+                this.items = grown;
+                this.head = 0;
+            }
+            this.items[(this.head + this.size) & (this.items.length - 1)] = item;
+            this.size++;
+        }
+
+        private Object take() {
+            if (this.size == 0) {
+                return null;
+            }
+            final Object item = this.items[this.head];
+            this.items[this.head] = null;
+            this.head = (this.head + 1) & (this.items.length - 1);
+            if (--this.size == 0 && this.items.length > 16) {
+                // Don't keep a large buffer for a domain that has been drained
+                this.items = new Object[2];
+                this.head = 0;
+            }
+            return item;
+        }
+    }
+
+}
@@ -0,0 +1,369 @@
+package http;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongConsumer;
+
+/**
+ * Off-heap set of 64-bit URL fingerprints (see ParsedUrl.getFingerprint()), persisted in memory-mapped files.<br>
+ * - 256 stripes, each an open-addressing table of longs in its own file and behind its own lock<br>
+ * - A stripe grows on its own (rehash into a new file, then atomic rename), all other stripes stay available<br>
+ * - Optional Bloom filter in front, also memory-mapped, answers most negative contains() without any lock<br>
+ * - Reopening the same directory continues where the last instance stopped, call flush() / close() to persist<br>
+ * <pre>
+ * try (FingerprintSet seen = FingerprintSet.open(dir, 500_000_000L, 0.01)) {
+ *     if (seen.addIfAbsent(url)) { crawl(url); }
+ * }
+ * </pre>
+ * Thread-safe. Only one instance per directory at a time.
+ */
+public final class FingerprintSet implements Closeable {
+
+    private static final int STRIPES = 256;
+    private static final int STRIPE_SHIFT = 56; // Top 8 bits of the mixed fingerprint pick the stripe
+    private static final int MIN_CAPACITY = 1024;
+    private static final int MAX_CAPACITY = 1 << 27; // Slots per stripe, keeps each file below 2 GB
+    private static final double LOAD_FACTOR = 0.6;
+
+    private static final long STRIPE_MAGIC = 0x4650534554303031L; // "FPSET001"
+    private static final long BLOOM_MAGIC = 0x4650424C4F4F4D31L; // "FPBLOOM1"
+    private static final int HEADER = 64;
+
+    // Atomic bit sets on the mapped Bloom filter
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final Path directory;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final MappedByteBuffer bloom; // null if disabled
+    private final long bloomMask;
+    private final int bloomHashes;
+
+
+    private FingerprintSet(final Path directory, final long expectedSize, final double bloomFpp) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+
+        final long perStripe = Math.max(1, expectedSize / STRIPES);
+        final int capacity = capacityFor(perStripe);
+        for (int i = 0; i < STRIPES; i++) {
+            this.stripes[i] = new Stripe(directory.resolve(String.format("stripe-%03d.bin", i)), capacity);
+        }
+
+        final Path bloomFile = directory.resolve("bloom.bin");
+        if (bloomFpp > 0 || Files.exists(bloomFile)) {
+            final boolean existed = Files.exists(bloomFile);
+            this.bloom = openBloom(bloomFile, Math.max(expectedSize, this.size()), bloomFpp);
+            this.bloomMask = (this.bloom.getLong(8) << 6) - 1;
+            this.bloomHashes = (int) this.bloom.getLong(16);
+            if (!existed) {
+                // Set might have been used without Bloom filter so far
+                for (final Stripe stripe : this.stripes) {
+                    stripe.forEach(fingerprint -> this.bloomAdd(mix(fingerprint)));
+                }
+            }
+        } else {
+            this.bloom = null;
+            this.bloomMask = 0;
+            this.bloomHashes = 0;
+        }
+    }
+
+    /**
+     * Opens (or creates) the set in the given directory, without Bloom filter.
+     *
+     * @param expectedSize used to size new stripes, the set grows beyond it if needed
+     */
+    public static FingerprintSet open(final Path directory, final long expectedSize) throws IOException {
+        return new FingerprintSet(directory, expectedSize, 0);
+    }
+
+    /**
+     * Opens (or creates) the set with a Bloom filter of the given false positive probability at expectedSize.
+     * An existing Bloom filter is reused as it is.
+     */
+    public static FingerprintSet open(final Path directory, final long expectedSize, final double bloomFpp) throws IOException {
+        if (bloomFpp <= 0 || bloomFpp >= 1) {
+            throw new IllegalArgumentException("Bloom filter false positive probability must be between 0 - 1, provided: " + bloomFpp);
+        }
+        return new FingerprintSet(directory, expectedSize, bloomFpp);
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // SET
+    // ------------------------------------------------------------------------------------------ //
+
+    /**
+     * @return true if the fingerprint was added, false if it was already present
+     */
+    public boolean addIfAbsent(final long fingerprint) throws IOException {
+        final long mixed = mix(fingerprint);
+        final boolean added = this.stripes[(int) (mixed >>> STRIPE_SHIFT)].add(fingerprint, mixed);
+        if (added && this.bloom != null) {
+            this.bloomAdd(mixed);
+        }
+        return added;
+    }
+
+    public boolean addIfAbsent(final ParsedUrl url) throws IOException {
+        return this.addIfAbsent(url.getFingerprint());
+    }
+
+    public boolean contains(final long fingerprint) {
+        final long mixed = mix(fingerprint);
+        if (this.bloom != null && !this.bloomMightContain(mixed)) {
+            return false;
+        }
+        return this.stripes[(int) (mixed >>> STRIPE_SHIFT)].contains(fingerprint, mixed);
+    }
+
+    public boolean contains(final ParsedUrl url) {
+        return this.contains(url.getFingerprint());
+    }
+
+    public long size() {
+        long size = 0;
+        for (final Stripe stripe : this.stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    /**
+     * Writes all changes to disk.
+     */
+    public void flush() {
+        for (final Stripe stripe : this.stripes) {
+            stripe.flush();
+        }
+        if (this.bloom != null) {
+            this.bloom.force();
+        }
+    }
+
+    @Override
+    public void close() {
+        this.flush();
+    }
+
+    public Path getDirectory() {
+        return this.directory;
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // HELPERS
+    // ------------------------------------------------------------------------------------------ //
+
+    private boolean bloomMightContain(final long mixed) {
+        final long step = Long.rotateLeft(mixed, 32) | 1;
+        long bit = mixed;
+        for (int i = 0; i < this.bloomHashes; i++, bit += step) {
+            final long index = bit & this.bloomMask;
+            final long word = (long) LONGS.getAcquire(this.bloom, HEADER + (int) (index >>> 6 << 3));
+            if ((word & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void bloomAdd(final long mixed) {
+        final long step = Long.rotateLeft(mixed, 32) | 1;
+        long bit = mixed;
+        for (int i = 0; i < this.bloomHashes; i++, bit += step) {
+            final long index = bit & this.bloomMask;
+            LONGS.getAndBitwiseOr(this.bloom, HEADER + (int) (index >>> 6 << 3), 1L << index);
+        }
+    }
+
+    private static MappedByteBuffer openBloom(final Path file, final long expectedSize, final double fpp) throws IOException {
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() >= HEADER) {
+                final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+                if (buffer.getLong(0) != BLOOM_MAGIC) {
+                    throw new IOException("Not a Bloom filter file: " + file);
+                }
+                return buffer;
+            }
+            // Optimal bits: -n ln(p) / ln(2)^2, rounded up to a power of two. Hashes: bits / n * ln(2)
+            final double optimalBits = -Math.max(1, expectedSize) * Math.log(fpp) / (Math.log(2) * Math.log(2));
+            final long words = Math.min(Long.highestOneBit((long) Math.ceil(optimalBits / 64) - 1 | 1) << 1, 1L << 27);
+            final int hashes = (int) Math.max(1, Math.min(16, Math.round(words * 64.0 / Math.max(1, expectedSize) * Math.log(2))));
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + words * 8);
+            buffer.putLong(0, BLOOM_MAGIC);
+            buffer.putLong(8, words);
+            buffer.putLong(16, hashes);
+            return buffer;
+        }
+    }
+
+    private static int capacityFor(final long size) {
+        final long slots = (long) Math.ceil(size / LOAD_FACTOR);
+        return (int) Math.max(MIN_CAPACITY, Math.min(MAX_CAPACITY, Long.highestOneBit(slots - 1 | 1) << 1));
+    }
+
+    /**
+     * Fingerprints are hashes already, but callers might provide weaker ones. Stafford variant 13 of fmix64.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // INNER OBJECTS
+    // ------------------------------------------------------------------------------------------ //
+
+    /**
+     * One open-addressing table (linear probing, 0 = empty slot) in its own file.<br>
+     * HEADER: magic, capacity, size, contains 0
+     */
+    private static final class Stripe {
+
+        private final Path file;
+        private MappedByteBuffer table;
+        private int mask;
+        private int size;
+        private boolean hasZero;
+
+        Stripe(final Path file, final int capacity) throws IOException {
+            this.file = file;
+            if (Files.exists(file)) {
+                this.table = map(file, -1);
+                if (this.table.getLong(0) != STRIPE_MAGIC) {
+                    throw new IOException("Not a fingerprint set file: " + file);
+                }
+                this.mask = (int) this.table.getLong(8) - 1;
+                this.size = (int) this.table.getLong(16);
+                this.hasZero = this.table.getLong(24) != 0;
+            } else {
+                this.table = create(file, capacity);
+                this.mask = capacity - 1;
+            }
+        }
+
+        synchronized boolean add(final long fingerprint, final long mixed) throws IOException {
+            if (fingerprint == 0) {
+                if (this.hasZero) {
+                    return false;
+                }
+                this.hasZero = true;
+                this.table.putLong(24, 1);
+                return true;
+            }
+            int slot = this.probe(fingerprint, mixed);
+            if (slot >= 0 && this.table.getLong(HEADER + (slot << 3)) == fingerprint) {
+                return false;
+            }
+            if (this.size + 1 > (this.mask + 1) * LOAD_FACTOR && this.mask + 1 < MAX_CAPACITY) {
+                this.grow();
+                slot = this.probe(fingerprint, mixed);
+            }
+            // At MAX_CAPACITY it fills beyond the load factor and gets slower, but one slot always stays empty
+            if (slot < 0 || this.size + 1 >= this.mask + 1) {
+                throw new IOException("Fingerprint set stripe is full: " + this.file);
+            }
+            this.table.putLong(HEADER + (slot << 3), fingerprint);
+            this.table.putLong(16, ++this.size);
+            return true;
+        }
+
+        synchronized boolean contains(final long fingerprint, final long mixed) {
+            if (fingerprint == 0) {
+                return this.hasZero;
+            }
+            final int slot = this.probe(fingerprint, mixed);
+            return slot >= 0 && this.table.getLong(HEADER + (slot << 3)) == fingerprint;
+        }
+
+        synchronized void forEach(final LongConsumer action) {
+            if (this.hasZero) {
+                action.accept(0);
+            }
+            for (int slot = 0; slot <= this.mask; slot++) {
+                final long fingerprint = this.table.getLong(HEADER + (slot << 3));
+                if (fingerprint != 0) {
+                    action.accept(fingerprint);
+                }
+            }
+        }
+
+        synchronized int size() {
+            return this.size + (this.hasZero ? 1 : 0);
+        }
+
+        synchronized void flush() {
+            this.table.force();
+        }
+
+        /**
+         * @return the slot of the fingerprint, else the first empty one, -1 if there is neither (full table)
+         */
+        private int probe(final long fingerprint, final long mixed) {
+            int slot = (int) mixed & this.mask;
+            for (int i = 0; i <= this.mask; i++, slot = (slot + 1) & this.mask) {
+                final long current = this.table.getLong(HEADER + (slot << 3));
+                if (current == fingerprint || current == 0) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Rehashes into a new file of twice the size, which then replaces the old one.
+         */
+        private void grow() throws IOException {
+            final int capacity = this.mask + 1;
+            final Path tmp = this.file.resolveSibling(this.file.getFileName() + ".tmp");
+            final MappedByteBuffer grown = create(tmp, capacity << 1);
+            final int grownMask = (capacity << 1) - 1;
+            for (int slot = 0; slot < capacity; slot++) {
+                final long fingerprint = this.table.getLong(HEADER + (slot << 3));
+                if (fingerprint != 0) {
+                    int target = (int) mix(fingerprint) & grownMask;
+                    while (grown.getLong(HEADER + (target << 3)) != 0) {
+                        target = (target + 1) & grownMask;
+                    }
+                    grown.putLong(HEADER + (target << 3), fingerprint);
+                }
+            }
+            grown.putLong(16, this.size);
+            grown.putLong(24, this.hasZero ? 1 : 0);
+            grown.force();
+            Files.move(tmp, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            this.table = grown;
+            this.mask = grownMask;
+        }
+
+        private static MappedByteBuffer create(final Path file, final int capacity) throws IOException {
+            final MappedByteBuffer buffer = map(file, HEADER + ((long) capacity << 3));
+            buffer.putLong(0, STRIPE_MAGIC);
+            buffer.putLong(8, capacity);
+            return buffer;
+        }
+
+        private static MappedByteBuffer map(final Path file, final long size) throws IOException {
+            try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                if (size >= 0) {
+                    channel.truncate(0);
+                }
+                return channel.map(FileChannel.MapMode.READ_WRITE, 0, size >= 0 ? size : channel.size());
+            }
+        }
+
+    }
+
+}
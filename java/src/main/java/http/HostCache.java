@@ -0,0 +1,255 @@
+package http;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, thread-safe cache of host -> domain + TLD, used by ParsedUrl to skip the suffix lookup for known hosts.<br>
+ * - Disabled by default, enable it via HostCache.setDefault(new HostCache(maximumSize)), disable it via setDefault(null)<br>
+ * - Lock-striped, every stripe is a segmented LRU: new hosts start in a probation segment and are only promoted to
+ * the protected segment on their second hit. A burst of one-off hosts can't flush the hot ones.<br>
+ * - Hosts that don't resolve are cached as well, the message is still built from the host on demand<br>
+ * - Entries remember the PublicSuffixTrie they were resolved with, a different default trie counts as a miss<br>
+ * <pre>
+ * HostCache.setDefault(new HostCache(200_000));
+ * ...
+ * HostCache.getDefault().getHitCount();
+ * </pre>
+ */
+public final class HostCache {
+
+    // Share of every stripe reserved for hosts that were hit at least twice
+    private static final int PROTECTED_PERCENT = 80;
+
+    private static volatile HostCache defaultCache;
+
+    private final Stripe[] stripes;
+    private final int mask;
+    private final int maximumSize;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+
+    public HostCache(final int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be > 0, provided: " + maximumSize);
+        }
+        // Power of two stripes, enough to spread the worker threads, but at least 16 entries each
+        int stripeCount = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 4));
+        while (stripeCount > 1 && maximumSize / stripeCount < 16) {
+            stripeCount >>>= 1;
+        }
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            final int capacity = maximumSize / stripeCount + (i < maximumSize % stripeCount ? 1 : 0);
+            this.stripes[i] = new Stripe(capacity);
+        }
+        this.mask = stripeCount - 1;
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * @return the cache used by ParsedUrl, null if disabled
+     */
+    public static HostCache getDefault() {
+        return defaultCache;
+    }
+
+    /**
+     * Cache to be used by ParsedUrl from now on, null disables caching.
+     */
+    public static void setDefault(final HostCache cache) {
+        defaultCache = cache;
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // LOOKUP
+    // ------------------------------------------------------------------------------------------ //
+
+    /**
+     * Resolves the host (no IP, no localhost) against the trie, from cache if possible.
+     */
+    Resolution resolve(final PublicSuffixTrie trie, final String host) {
+        int h = host.hashCode();
+        h ^= h >>> 16;
+        final Stripe stripe = this.stripes[h & this.mask];
+
+        Resolution resolution = stripe.get(host);
+        if (resolution != null && resolution.trie == trie) {
+            this.hits.increment();
+            return resolution;
+        }
+        this.misses.increment();
+        resolution = Resolution.of(trie, host);
+        if (stripe.put(host, resolution)) {
+            this.evictions.increment();
+        }
+        return resolution;
+    }
+
+    public void clear() {
+        for (final Stripe stripe : this.stripes) {
+            stripe.clear();
+        }
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // GETTER
+    // ------------------------------------------------------------------------------------------ //
+
+    public int getMaximumSize() {
+        return this.maximumSize;
+    }
+
+    public int size() {
+        int size = 0;
+        for (final Stripe stripe : this.stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    public long getHitCount() {
+        return this.hits.sum();
+    }
+
+    public long getMissCount() {
+        return this.misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return this.evictions.sum();
+    }
+
+    /**
+     * @return hits / requests, 0 if nothing was requested yet
+     */
+    public double getHitRate() {
+        final long hits = this.hits.sum();
+        final long requests = hits + this.misses.sum();
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    @Override
+    public String toString() {
+        return "HostCache{size=" + this.size() + ", maximumSize=" + this.maximumSize + ", hits=" + this.getHitCount()
+                + ", misses=" + this.getMissCount() + ", evictions=" + this.getEvictionCount() + "}";
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // INNER OBJECTS
+    // ------------------------------------------------------------------------------------------ //
+
+    /**
+     * Domain + TLD of a host, or the PublicSuffixTrie result code (<= 0) if it doesn't resolve. Immutable.
+     */
+    static final class Resolution {
+
+        final PublicSuffixTrie trie;
+        final String domain;
+        final String tld;
+        final int failure;
+
+        private Resolution(final PublicSuffixTrie trie, final String domain, final String tld, final int failure) {
+            this.trie = trie;
+            this.domain = domain;
+            this.tld = tld;
+            this.failure = failure;
+        }
+
+        static Resolution of(final PublicSuffixTrie trie, final String host) {
+            // This extract the actual domain name + tld, without any subdomains (these are included in host)
+            final int tldStart = trie.registrySuffixStart(host);
+            if (tldStart <= 0) {
+                return new Resolution(trie, null, null, tldStart);
+            }
+            final String name = PublicSuffixTrie.normalize(host);
+            return new Resolution(trie, name.substring(PublicSuffixTrie.topDomainStart(name, tldStart)), name.substring(tldStart), 0);
+        }
+
+        boolean isValid() {
+            return this.domain != null;
+        }
+
+    }
+
+    /**
+     * Segmented LRU behind one lock. Both segments are access ordered, eldest first.
+     */
+    private static final class Stripe {
+
+        private final int capacity;
+        private final int protectedCapacity;
+        private final LinkedHashMap<String, Resolution> probation = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<String, Resolution> protect = new LinkedHashMap<>(16, 0.75f, true);
+
+        Stripe(final int capacity) {
+            this.capacity = capacity;
+            this.protectedCapacity = capacity * PROTECTED_PERCENT / 100;
+        }
+
+        synchronized Resolution get(final String host) {
+            Resolution resolution = this.protect.get(host);
+            if (resolution != null) {
+                return resolution;
+            }
+            resolution = this.probation.remove(host);
+            if (resolution != null) {
+                // Second hit, promote. Demote the eldest protected entry if that segment is full
+                if (this.protect.size() >= this.protectedCapacity) {
+                    final Iterator<Map.Entry<String, Resolution>> eldest = this.protect.entrySet().iterator();
+                    if (eldest.hasNext()) {
+                        final Map.Entry<String, Resolution> entry = eldest.next();
+                        eldest.remove();
+                        this.probation.put(entry.getKey(), entry.getValue());
+                    }
+                }
+                if (this.protectedCapacity > 0) {
+                    this.protect.put(host, resolution);
+                } else {
+                    this.probation.put(host, resolution);
+                }
+            }
+            return resolution;
+        }
+
+        /**
+         * @return true if an entry was evicted
+         */
+        synchronized boolean put(final String host, final Resolution resolution) {
+            if (this.protect.containsKey(host)) {
+                this.protect.put(host, resolution);
+                return false;
+            }
+            if (this.probation.put(host, resolution) != null) {
+                return false;
+            }
+            if (this.probation.size() + this.protect.size() <= this.capacity) {
+                return false;
+            }
+            final Map<String, Resolution> victims = this.probation.size() > 1 ? this.probation : this.protect;
+            final Iterator<String> eldest = victims.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+            return true;
+        }
+
+        synchronized int size() {
+            return this.probation.size() + this.protect.size();
+        }
+
+        synchronized void clear() {
+            this.probation.clear();
+            this.protect.clear();
+        }
+
+    }
+
+}
@@ -0,0 +1,175 @@
+package http;
+
+/**
+ * Regex-free recognition of IPv4 and IPv6 addresses, with the address as primitives.<br>
+ * - IPv4: dotted quad of 1-3 decimal digits per octet, each 0 - 255 (leading zeros are decimal). The address is an
+ * unsigned 32-bit value, returned as long so -1 can mean "not IPv4"<br>
+ * - IPv6: RFC 4291 text form incl. `::` compression and a trailing IPv4 part (`::ffff:1.2.3.4`), no zone IDs. The
+ * address is split into two longs, the high and the low 64 bits<br>
+ * - Hosts as they appear in URLs are accepted as well, i.e. IPv6 in brackets<br>
+ * No allocation except for the caller's long[2] of IPv6. See IpRangeSet for CIDR matching.
+ * <pre>
+ * parseIpv4("127.0.0.1")           = 0x7f000001
+ * parseIpv4("999.1.1.1")           = -1
+ * parseIpv6("[2001:db8::1]", hl)   = true, hl = {0x20010db800000000, 0x0000000000000001}
+ * </pre>
+ */
+public final class IpAddress {
+
+    public static final long NOT_IPV4 = -1;
+
+
+    private IpAddress() {
+    }
+
+    /**
+     * @return the address as unsigned 32-bit value, NOT_IPV4 if it isn't one
+     */
+    public static long parseIpv4(final CharSequence address) {
+        return parseIpv4(address, 0, address.length());
+    }
+
+    public static long parseIpv4(final CharSequence chars, final int start, final int end) {
+        long address = 0;
+        int octets = 0;
+        int value = 0;
+        int digits = 0;
+        for (int i = start; i < end; i++) {
+            final char c = chars.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                if (++digits > 3 || value > 255) {
+                    return NOT_IPV4;
+                }
+            } else if (c == '.' && digits > 0 && octets < 3) {
+                address = address << 8 | value;
+                octets++;
+                value = 0;
+                digits = 0;
+            } else {
+                return NOT_IPV4;
+            }
+        }
+        return octets == 3 && digits > 0 ? address << 8 | value : NOT_IPV4;
+    }
+
+    /**
+     * @param address   with or without brackets
+     * @param highLow   receives the high and the low 64 bits if valid, may be null to only check the address
+     * @return true if it's an IPv6 address
+     */
+    public static boolean parseIpv6(final CharSequence address, final long[] highLow) {
+        final int length = address.length();
+        if (length > 1 && address.charAt(0) == '[' && address.charAt(length - 1) == ']') {
+            return parseIpv6(address, 1, length - 1, highLow);
+        }
+        return parseIpv6(address, 0, length, highLow);
+    }
+
+    public static boolean parseIpv6(final CharSequence chars, final int start, final int end, final long[] highLow) {
+        // All groups are shifted in from the right. The ones before "::" are moved up over the gap at the end.
+        long high = 0;
+        long low = 0;
+        int groups = 0;
+        int compressedAt = -1; // Number of groups before "::"
+        int i = start;
+        if (end - start >= 2 && chars.charAt(start) == ':' && chars.charAt(start + 1) == ':') {
+            compressedAt = 0;
+            i += 2;
+        }
+        while (i < end) {
+            final int groupStart = i;
+            int value = 0;
+            for (int digit; i < end && (digit = hexDigit(chars.charAt(i))) >= 0; i++) {
+                if (i - groupStart == 4) {
+                    return false;
+                }
+                value = value << 4 | digit;
+            }
+            if (i < end && chars.charAt(i) == '.') {
+                // Trailing IPv4, counts as two groups
+                final long ipv4 = parseIpv4(chars, groupStart, end);
+                if (ipv4 == NOT_IPV4 || groups > 6) {
+                    return false;
+                }
+                high = high << 32 | low >>> 32;
+                low = low << 32 | ipv4;
+                groups += 2;
+                break;
+            }
+            if (i == groupStart || groups == 8) {
+                return false;
+            }
+            high = high << 16 | low >>> 48;
+            low = low << 16 | value;
+            groups++;
+            if (i == end) {
+                break;
+            }
+            if (chars.charAt(i) != ':' || ++i == end) {
+                return false; // Not a separator or a trailing single ':'
+            }
+            if (chars.charAt(i) == ':') {
+                if (compressedAt >= 0) {
+                    return false;
+                }
+                compressedAt = groups;
+                i++;
+            }
+        }
+        if (compressedAt < 0 ? groups != 8 : groups > 7) {
+            return false;
+        }
+
+        if (compressedAt >= 0) {
+            final int afterBits = 16 * (groups - compressedAt);
+            final int gapBits = 16 * (8 - groups);
+            final long maskHigh = afterBits > 64 ? (1L << (afterBits - 64)) - 1 : 0;
+            final long maskLow = afterBits >= 64 ? -1 : (1L << afterBits) - 1;
+            final long beforeHigh = high & ~maskHigh;
+            final long beforeLow = low & ~maskLow;
+            high = shiftLeftHigh(beforeHigh, beforeLow, gapBits) | (high & maskHigh);
+            low = (gapBits < 64 ? beforeLow << gapBits : 0) | (low & maskLow);
+        }
+        if (highLow != null) {
+            highLow[0] = high;
+            highLow[1] = low;
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the host of a URL is an IPv4 address or an IPv6 address in brackets
+     */
+    public static boolean isIpHost(final CharSequence host) {
+        final int length = host.length();
+        if (length > 1 && host.charAt(0) == '[') {
+            return host.charAt(length - 1) == ']' && parseIpv6(host, 1, length - 1, null);
+        }
+        return parseIpv4(host, 0, length) != NOT_IPV4;
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // HELPERS
+    // ------------------------------------------------------------------------------------------ //
+
+    private static int hexDigit(final char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        final char lower = (char) (c | 0x20);
+        return lower >= 'a' && lower <= 'f' ? lower - 'a' + 10 : -1;
+    }
+
+    /**
+     * High 64 bits of the 128-bit value (high, low) shifted left by 1 - 128 bits
+     */
+    private static long shiftLeftHigh(final long high, final long low, final int bits) {
+        if (bits < 64) {
+            return high << bits | low >>> (64 - bits);
+        }
+        return bits < 128 ? low << (bits - 64) : 0;
+    }
+
+}
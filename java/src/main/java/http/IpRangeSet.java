@@ -0,0 +1,196 @@
+package http;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Set of IPv4 and IPv6 ranges in CIDR notation, e.g. a blocklist of crawl targets.<br>
+ * - Binary prefix tries over the primitive addresses of IpAddress, one per IP version. A lookup walks at most 32 / 128
+ * bits and stops at the first range that covers the address<br>
+ * - Compact: nodes are int pairs in one flat array, ranges covered by a broader one aren't stored<br>
+ * - IPv4-mapped IPv6 addresses (`::ffff:1.2.3.4`) are matched against the IPv4 ranges<br>
+ * <br>
+ * Adding isn't thread-safe. Once all ranges are added (and the set is safely published), lookups are.
+ * <pre>
+ * IpRangeSet blocked = new IpRangeSet().add("10.0.0.0/8").add("192.168.0.0/16").add("fc00::/7");
+ * blocked.contains(new ParsedUrl("http://10.1.2.3/"))        = true
+ * blocked.containsHost("[fd12::1]")                          = true
+ * blocked.contains(new ParsedUrl("http://google.com/"))      = false
+ * </pre>
+ */
+public final class IpRangeSet {
+
+    private final Trie ipv4 = new Trie();
+    private final Trie ipv6 = new Trie();
+
+
+    /**
+     * @param cidr address plus optional prefix length, e.g. `10.0.0.0/8`, `2001:db8::/32` or `1.2.3.4`. Bits after
+     *             the prefix are ignored.
+     * @throws IllegalArgumentException if not an IPv4 or IPv6 range
+     */
+    public IpRangeSet add(final CharSequence cidr) {
+        int slash = cidr.length();
+        for (int i = 0; i < cidr.length(); i++) {
+            if (cidr.charAt(i) == '/') {
+                slash = i;
+                break;
+            }
+        }
+        final int prefixLength = slash == cidr.length() ? -1 : parsePrefixLength(cidr, slash + 1);
+
+        final long ipv4 = IpAddress.parseIpv4(cidr, 0, slash);
+        if (ipv4 != IpAddress.NOT_IPV4) {
+            return this.addIpv4((int) ipv4, prefixLength == -1 ? 32 : prefixLength);
+        }
+        final long[] highLow = new long[2];
+        final boolean brackets = slash > 1 && cidr.charAt(0) == '[' && cidr.charAt(slash - 1) == ']';
+        if (IpAddress.parseIpv6(cidr, brackets ? 1 : 0, brackets ? slash - 1 : slash, highLow)) {
+            return this.addIpv6(highLow[0], highLow[1], prefixLength == -1 ? 128 : prefixLength);
+        }
+        throw new IllegalArgumentException("Not an IP range: " + cidr);
+    }
+
+    public IpRangeSet addIpv4(final int address, final int prefixLength) {
+        if (prefixLength < 0 || prefixLength > 32) {
+            throw new IllegalArgumentException("IPv4 prefix length must be within 0 - 32, provided: " + prefixLength);
+        }
+        this.ipv4.add((long) address << 32, 0, prefixLength);
+        return this;
+    }
+
+    public IpRangeSet addIpv6(final long high, final long low, final int prefixLength) {
+        if (prefixLength < 0 || prefixLength > 128) {
+            throw new IllegalArgumentException("IPv6 prefix length must be within 0 - 128, provided: " + prefixLength);
+        }
+        this.ipv6.add(high, low, prefixLength);
+        return this;
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // LOOKUP
+    // ------------------------------------------------------------------------------------------ //
+
+    public boolean containsIpv4(final int address) {
+        return this.ipv4.contains((long) address << 32, 0, 32);
+    }
+
+    public boolean containsIpv6(final long high, final long low) {
+        if (high == 0 && (low >>> 32) == 0xffff) {
+            return this.ipv4.contains(low << 32, 0, 32);
+        }
+        return this.ipv6.contains(high, low, 128);
+    }
+
+    /**
+     * @param host host of a URL, IPv6 in brackets. False for anything but an IP.
+     */
+    public boolean containsHost(final CharSequence host) {
+        final int length = host.length();
+        if (length > 1 && host.charAt(0) == '[' && host.charAt(length - 1) == ']') {
+            final long[] highLow = new long[2];
+            return IpAddress.parseIpv6(host, 1, length - 1, highLow) && this.containsIpv6(highLow[0], highLow[1]);
+        }
+        final long ipv4 = IpAddress.parseIpv4(host, 0, length);
+        return ipv4 != IpAddress.NOT_IPV4 && this.containsIpv4((int) ipv4);
+    }
+
+    /**
+     * @return true if the URL's host is an IP within one of the ranges. False for domains and localhost.
+     */
+    public boolean contains(final ParsedUrl url) {
+        switch (url.getHostType()) {
+            case IPV4:
+                return this.containsIpv4(url.getIpv4());
+            case IPV6:
+                return this.containsIpv6(url.getIpv6High(), url.getIpv6Low());
+            default:
+                return false;
+        }
+    }
+
+    public boolean isEmpty() {
+        return this.ipv4.isEmpty() && this.ipv6.isEmpty();
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // HELPERS
+    // ------------------------------------------------------------------------------------------ //
+
+    private static int parsePrefixLength(final CharSequence cidr, final int start) {
+        if (start == cidr.length() || cidr.length() - start > 3) {
+            throw new IllegalArgumentException("Invalid prefix length: " + cidr);
+        }
+        int length = 0;
+        for (int i = start; i < cidr.length(); i++) {
+            final char c = cidr.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new IllegalArgumentException("Invalid prefix length: " + cidr);
+            }
+            length = length * 10 + (c - '0');
+        }
+        return length;
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // INNER OBJECTS
+    // ------------------------------------------------------------------------------------------ //
+
+    /**
+     * Binary trie over the bits of a 128-bit key (high, low), most significant first. IPv4 uses the top 32 bits.<br>
+     * Node n has its children at [2n] and [2n + 1], 0 if none (the root is node 0 and never a child). Nodes where a
+     * range ends are set in `ends`.
+     */
+    private static final class Trie {
+
+        private int[] children = new int[64];
+        private int nodes = 1;
+        private final BitSet ends = new BitSet();
+
+        void add(final long high, final long low, final int prefixLength) {
+            int node = 0;
+            for (int depth = 0; depth < prefixLength; depth++) {
+                if (this.ends.get(node)) {
+                    return; // Covered by a broader range
+                }
+                final int slot = 2 * node + bit(high, low, depth);
+                if (this.children[slot] == 0) {
+                    if (2 * this.nodes + 2 > this.children.length) {
+                        this.children = Arrays.copyOf(this.children, this.children.length * 2);
+                    }
+                    this.children[slot] = this.nodes++;
+                }
+                node = this.children[slot];
+            }
+            this.ends.set(node);
+        }
+
+        boolean contains(final long high, final long low, final int bits) {
+            int node = 0;
+            for (int depth = 0; ; depth++) {
+                if (this.ends.get(node)) {
+                    return true;
+                }
+                if (depth == bits) {
+                    return false;
+                }
+                node = this.children[2 * node + bit(high, low, depth)];
+                if (node == 0) {
+                    return false;
+                }
+            }
+        }
+
+        boolean isEmpty() {
+            return this.ends.isEmpty();
+        }
+
+        private static int bit(final long high, final long low, final int depth) {
+            return (int) (depth < 64 ? high >>> (63 - depth) : low >>> (127 - depth)) & 1;
+        }
+    }
+
+}
@@ -0,0 +1,172 @@
+package http;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free, HDR-style histogram of durations in nanoseconds.<br>
+ * - Log-linear buckets: exact below 16ns, above that 16 buckets per power of two, i.e. at most ~6% relative error<br>
+ * - Covers the full long range, no configuration and no overflow<br>
+ * - Striped by thread, so recording threads don't contend on the same counters. record() is one array index
+ * computation and three atomic updates, no allocation<br>
+ * - snapshot() sums the stripes, concurrent records may or may not be included
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    // Per stripe: bucket counts, then the sum and the max of all recorded values
+    private static final int SUM = BUCKETS;
+    private static final int MAX = BUCKETS + 1;
+
+    private final AtomicLongArray[] stripes;
+    private final int mask;
+
+
+    public LatencyHistogram() {
+        final int stripeCount = Integer.highestOneBit(Math.min(16, Runtime.getRuntime().availableProcessors()));
+        this.stripes = new AtomicLongArray[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new AtomicLongArray(BUCKETS + 2);
+        }
+        this.mask = stripeCount - 1;
+    }
+
+    /**
+     * Records a duration, negative values (e.g. from a clock adjustment) count as 0
+     */
+    public void record(final long nanos) {
+        final long value = Math.max(0, nanos);
+        final AtomicLongArray stripe = this.stripes[(int) Thread.currentThread().getId() & this.mask];
+        stripe.getAndIncrement(bucketOf(value));
+        stripe.getAndAdd(SUM, value);
+        long max;
+        while (value > (max = stripe.get(MAX)) && !stripe.compareAndSet(MAX, max, value)) {
+            // Retry, another thread raised the max
+        }
+    }
+
+    public Snapshot snapshot() {
+        final long[] counts = new long[BUCKETS];
+        long sum = 0;
+        long max = 0;
+        for (final AtomicLongArray stripe : this.stripes) {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] += stripe.get(i);
+            }
+            sum += stripe.get(SUM);
+            max = Math.max(max, stripe.get(MAX));
+        }
+        return new Snapshot(counts, sum, max);
+    }
+
+    /**
+     * Not atomic, records during the reset may partially survive
+     */
+    public void reset() {
+        for (final AtomicLongArray stripe : this.stripes) {
+            for (int i = 0; i < BUCKETS + 2; i++) {
+                stripe.set(i, 0);
+            }
+        }
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // HELPERS
+    // ------------------------------------------------------------------------------------------ //
+
+    static int bucketOf(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Highest value that falls into the bucket
+     */
+    static long upperBoundOf(final int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        final int shift = bucket / SUB_BUCKETS - 1;
+        final long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lower + ((1L << shift) - 1);
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // INNER OBJECTS
+    // ------------------------------------------------------------------------------------------ //
+
+    /**
+     * Immutable copy of a histogram. Percentiles are reported as the upper bound of their bucket.
+     */
+    public static final class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(final long[] counts, final long sum, final long max) {
+            long count = 0;
+            for (final long c : counts) {
+                count += c;
+            }
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return this.count;
+        }
+
+        public long getMaxNanos() {
+            return this.max;
+        }
+
+        public double getMeanNanos() {
+            return this.count == 0 ? 0 : (double) this.sum / this.count;
+        }
+
+        /**
+         * @param percentile 0.0 - 100.0, e.g. 99.9
+         * @return duration in ns that percentile of the records didn't exceed, 0 if empty
+         */
+        public long getPercentileNanos(final double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("Percentile must be within 0.0 - 100.0, provided: " + percentile);
+            }
+            if (this.count == 0) {
+                return 0;
+            }
+            final long rank = Math.max(1, (long) Math.ceil(this.count * percentile / 100));
+            long seen = 0;
+            for (int i = 0; i < this.counts.length; i++) {
+                seen += this.counts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBoundOf(i), this.max);
+                }
+            }
+            return this.max;
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + this.count
+                    + ", mean=" + Math.round(this.getMeanNanos()) + "ns"
+                    + ", p50=" + this.getPercentileNanos(50) + "ns"
+                    + ", p99=" + this.getPercentileNanos(99) + "ns"
+                    + ", p99.9=" + this.getPercentileNanos(99.9) + "ns"
+                    + ", max=" + this.max + "ns";
+        }
+    }
+
+}
@@ -0,0 +1,144 @@
+package http;
+
+/**
+ * Streaming MurmurHash3 (x64, 128 bit, seed 0) over the UTF-8 encoding of the chars it's fed.<br>
+ * Same result as Guava's `Hashing.murmur3_128().hashString(chars, UTF_8)`, without encoding or buffering the input.
+ * Unpaired surrogates are hashed as '?', like String.getBytes() does. Single use, not thread-safe.
+ */
+final class Murmur3Hasher implements UrlCanonicalizer.CharSink {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private long h1;
+    private long h2;
+
+    // Current 16 byte block, little endian
+    private long k1;
+    private long k2;
+    private int blockLength;
+    private long length;
+    private char highSurrogate;
+
+
+    @Override
+    public void put(final char c) {
+        if (this.highSurrogate != 0) {
+            final char high = this.highSurrogate;
+            this.highSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                final int codePoint = Character.toCodePoint(high, c);
+                this.putByte(0xF0 | (codePoint >>> 18));
+                this.putByte(0x80 | ((codePoint >>> 12) & 0x3F));
+                this.putByte(0x80 | ((codePoint >>> 6) & 0x3F));
+                this.putByte(0x80 | (codePoint & 0x3F));
+                return;
+            }
+            this.putByte('?');
+        }
+        if (c < 0x80) {
+            this.putByte(c);
+        } else if (c < 0x800) {
+            this.putByte(0xC0 | (c >>> 6));
+            this.putByte(0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c)) {
+            this.highSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            this.putByte('?');
+        } else {
+            this.putByte(0xE0 | (c >>> 12));
+            this.putByte(0x80 | ((c >>> 6) & 0x3F));
+            this.putByte(0x80 | (c & 0x3F));
+        }
+    }
+
+    /**
+     * Finishes the hash, returns the first 64 bits (same as Guava's HashCode.asLong()). See h2() for the other half.
+     */
+    long h1() {
+        this.finish();
+        return this.h1;
+    }
+
+    /**
+     * Second 64 bits, only valid after h1()
+     */
+    long h2() {
+        return this.h2;
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // HELPERS
+    // ------------------------------------------------------------------------------------------ //
+
+    private void putByte(final int b) {
+        final long value = b & 0xFFL;
+        if (this.blockLength < 8) {
+            this.k1 |= value << (this.blockLength << 3);
+        } else {
+            this.k2 |= value << ((this.blockLength - 8) << 3);
+        }
+        this.length++;
+        if (++this.blockLength == 16) {
+            this.mixBlock();
+        }
+    }
+
+    private void mixBlock() {
+        this.h1 ^= mixK1(this.k1);
+        this.h1 = Long.rotateLeft(this.h1, 27);
+        this.h1 += this.h2;
+        this.h1 = this.h1 * 5 + 0x52dce729;
+
+        this.h2 ^= mixK2(this.k2);
+        this.h2 = Long.rotateLeft(this.h2, 31);
+        this.h2 += this.h1;
+        this.h2 = this.h2 * 5 + 0x38495ab5;
+
+        this.k1 = 0;
+        this.k2 = 0;
+        this.blockLength = 0;
+    }
+
+    private void finish() {
+        if (this.highSurrogate != 0) {
+            this.highSurrogate = 0;
+            this.putByte('?');
+        }
+        if (this.blockLength > 0) {
+            this.h1 ^= mixK1(this.k1);
+            this.h2 ^= mixK2(this.k2);
+        }
+        this.h1 ^= this.length;
+        this.h2 ^= this.length;
+        this.h1 += this.h2;
+        this.h2 += this.h1;
+        this.h1 = fmix64(this.h1);
+        this.h2 = fmix64(this.h2);
+        this.h1 += this.h2;
+        this.h2 += this.h1;
+    }
+
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        return k1 * C2;
+    }
+
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        return k2 * C1;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+}
@@ -0,0 +1,173 @@
+package http;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in metrics of the parse path: latency per phase and counters per outcome.<br>
+ * - Disabled by default, enable it via ParseMetrics.setDefault(new ParseMetrics()), disable it via setDefault(null).
+ * When disabled the parser only reads one volatile field per URL<br>
+ * - Phases are timed with System.nanoTime() into LatencyHistograms, failed URLs only record the phases they reached<br>
+ * - Failures are counted per ParsedUrl.ParseError, i.e. per kind of message ParsedUrl throws
+ * <pre>
+ * ParseMetrics.setDefault(new ParseMetrics());
+ * ...
+ * ParseMetrics.Snapshot snapshot = ParseMetrics.getDefault().snapshot();
+ * snapshot.getLatency(ParseMetrics.Phase.SUFFIX).getPercentileNanos(99);
+ * snapshot.getErrorCount(ParsedUrl.ParseError.BAD_PORT);
+ * </pre>
+ */
+public final class ParseMetrics {
+
+    private static volatile ParseMetrics defaultMetrics;
+
+    private final LatencyHistogram[] latencies = new LatencyHistogram[Phase.values().length];
+    private final LongAdder valid = new LongAdder();
+    private final LongAdder[] errors = new LongAdder[ParsedUrl.ParseError.values().length];
+
+
+    public ParseMetrics() {
+        for (int i = 0; i < this.latencies.length; i++) {
+            this.latencies[i] = new LatencyHistogram();
+        }
+        for (int i = 0; i < this.errors.length; i++) {
+            this.errors[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @return the metrics ParsedUrl records into, null if disabled
+     */
+    public static ParseMetrics getDefault() {
+        return defaultMetrics;
+    }
+
+    /**
+     * Metrics to be recorded by ParsedUrl from now on, null disables recording.
+     */
+    public static void setDefault(final ParseMetrics metrics) {
+        defaultMetrics = metrics;
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // RECORDING
+    // ------------------------------------------------------------------------------------------ //
+
+    void recordPhase(final Phase phase, final long nanos) {
+        this.latencies[phase.ordinal()].record(nanos);
+    }
+
+    /**
+     * Records the TOTAL phase plus the outcome, error is null for valid URLs
+     */
+    void recordResult(final ParsedUrl.ParseError error, final long nanos) {
+        this.latencies[Phase.TOTAL.ordinal()].record(nanos);
+        if (error == null) {
+            this.valid.increment();
+        } else {
+            this.errors[error.ordinal()].increment();
+        }
+    }
+
+    public Snapshot snapshot() {
+        final Map<Phase, LatencyHistogram.Snapshot> latencies = new EnumMap<>(Phase.class);
+        for (final Phase phase : Phase.values()) {
+            latencies.put(phase, this.latencies[phase.ordinal()].snapshot());
+        }
+        final Map<ParsedUrl.ParseError, Long> errors = new EnumMap<>(ParsedUrl.ParseError.class);
+        for (final ParsedUrl.ParseError error : ParsedUrl.ParseError.values()) {
+            errors.put(error, this.errors[error.ordinal()].sum());
+        }
+        return new Snapshot(latencies, this.valid.sum(), errors);
+    }
+
+    /**
+     * Not atomic, URLs parsed during the reset may partially survive
+     */
+    public void reset() {
+        for (final LatencyHistogram histogram : this.latencies) {
+            histogram.reset();
+        }
+        this.valid.reset();
+        for (final LongAdder error : this.errors) {
+            error.reset();
+        }
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // INNER OBJECTS
+    // ------------------------------------------------------------------------------------------ //
+
+    public enum Phase {
+        /** Scheme detection and splitting into components, incl. the URL structure checks */
+        SCAN,
+        /** Host extraction and the IP / localhost check */
+        HOST,
+        /** Domain + TLD via PublicSuffixTrie or HostCache, skipped for IPs, localhost and known hosts (see ParsedUrl.resolve()) */
+        SUFFIX,
+        /** URI character classes, protocol and port range */
+        VALIDATION,
+        /** Whole parse, recorded for every URL */
+        TOTAL
+    }
+
+    public static final class Snapshot {
+
+        private final Map<Phase, LatencyHistogram.Snapshot> latencies;
+        private final long validCount;
+        private final Map<ParsedUrl.ParseError, Long> errorCounts;
+
+        private Snapshot(final Map<Phase, LatencyHistogram.Snapshot> latencies, final long validCount,
+                         final Map<ParsedUrl.ParseError, Long> errorCounts) {
+            this.latencies = Collections.unmodifiableMap(latencies);
+            this.validCount = validCount;
+            this.errorCounts = Collections.unmodifiableMap(errorCounts);
+        }
+
+        public LatencyHistogram.Snapshot getLatency(final Phase phase) {
+            return this.latencies.get(phase);
+        }
+
+        public long getValidCount() {
+            return this.validCount;
+        }
+
+        public long getErrorCount(final ParsedUrl.ParseError error) {
+            return this.errorCounts.get(error);
+        }
+
+        public long getErrorCount() {
+            long count = 0;
+            for (final long c : this.errorCounts.values()) {
+                count += c;
+            }
+            return count;
+        }
+
+        /**
+         * All errors, incl. those with count 0
+         */
+        public Map<ParsedUrl.ParseError, Long> getErrorCounts() {
+            return this.errorCounts;
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder("ParseMetrics{valid=").append(this.validCount);
+            for (final Map.Entry<ParsedUrl.ParseError, Long> entry : this.errorCounts.entrySet()) {
+                if (entry.getValue() > 0) {
+                    sb.append(", ").append(entry.getKey()).append('=').append(entry.getValue());
+                }
+            }
+            for (final Map.Entry<Phase, LatencyHistogram.Snapshot> entry : this.latencies.entrySet()) {
+                sb.append(",\n  ").append(entry.getKey()).append(": ").append(entry.getValue());
+            }
+            return sb.append('}').toString();
+        }
+    }
+
+}
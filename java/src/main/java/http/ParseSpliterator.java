@@ -0,0 +1,65 @@
+package http;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Parses the URL candidates of another Spliterator, see ParsedUrl.parseAll().<br>
+ * Splits exactly like its source (arrays and lists in even halves, iterators in growing batches). Each split reuses
+ * one UrlScanner for all valid candidates, a new one is only needed after an invalid candidate kept it.
+ */
+final class ParseSpliterator implements Spliterator<ParsedUrl.ParseResult> {
+
+    private static final int KEPT_CHARACTERISTICS = ORDERED | SIZED | SUBSIZED | IMMUTABLE | CONCURRENT;
+
+    private final Spliterator<? extends CharSequence> source;
+    private UrlScanner scanner;
+
+
+    ParseSpliterator(final Spliterator<? extends CharSequence> source) {
+        this.source = source;
+    }
+
+    @Override
+    public boolean tryAdvance(final Consumer<? super ParsedUrl.ParseResult> action) {
+        return this.source.tryAdvance(url -> action.accept(this.parse(url)));
+    }
+
+    @Override
+    public void forEachRemaining(final Consumer<? super ParsedUrl.ParseResult> action) {
+        this.source.forEachRemaining(url -> action.accept(this.parse(url)));
+    }
+
+    @Override
+    public Spliterator<ParsedUrl.ParseResult> trySplit() {
+        final Spliterator<? extends CharSequence> prefix = this.source.trySplit();
+        return prefix == null ? null : new ParseSpliterator(prefix);
+    }
+
+    @Override
+    public long estimateSize() {
+        return this.source.estimateSize();
+    }
+
+    @Override
+    public int characteristics() {
+        return (this.source.characteristics() & KEPT_CHARACTERISTICS) | NONNULL;
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // HELPERS
+    // ------------------------------------------------------------------------------------------ //
+
+    private ParsedUrl.ParseResult parse(final CharSequence url) {
+        if (this.scanner == null) {
+            this.scanner = new UrlScanner();
+        }
+        final ParsedUrl.ParseResult result = ParsedUrl.tryParse(url, this.scanner);
+        if (!result.isValid()) {
+            this.scanner = null; // Kept by the result for its message
+        }
+        return result;
+    }
+
+}
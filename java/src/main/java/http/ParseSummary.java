@@ -0,0 +1,90 @@
+package http;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collector;
+
+/**
+ * Valid URLs plus error counts per ParseError of a batch of ParseResults.<br>
+ * <pre>
+ * ParseSummary summary = ParsedUrl.parseAll(lines).parallel().collect(ParseSummary.collector());
+ * summary.getUrls();                                   - valid URLs, in input order
+ * summary.getErrorCount(ParseError.BAD_PROTOCOL);      - e.g. 12
+ * </pre>
+ */
+public final class ParseSummary {
+
+    private final List<ParsedUrl> urls = new ArrayList<>();
+    private final long[] errors = new long[ParsedUrl.ParseError.values().length];
+
+
+    /**
+     * Collects into a ParseSummary, also in parallel. Keeps the order of the valid URLs.
+     */
+    public static Collector<ParsedUrl.ParseResult, ?, ParseSummary> collector() {
+        return Collector.of(ParseSummary::new, ParseSummary::add, ParseSummary::merge);
+    }
+
+    private void add(final ParsedUrl.ParseResult result) {
+        if (result.isValid()) {
+            this.urls.add(result.getUrl());
+        } else {
+            this.errors[result.getError().ordinal()]++;
+        }
+    }
+
+    private ParseSummary merge(final ParseSummary other) {
+        this.urls.addAll(other.urls);
+        for (int i = 0; i < this.errors.length; i++) {
+            this.errors[i] += other.errors[i];
+        }
+        return this;
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // GETTER
+    // ------------------------------------------------------------------------------------------ //
+
+    public List<ParsedUrl> getUrls() {
+        return Collections.unmodifiableList(this.urls);
+    }
+
+    public long getValidCount() {
+        return this.urls.size();
+    }
+
+    public long getErrorCount(final ParsedUrl.ParseError error) {
+        return this.errors[error.ordinal()];
+    }
+
+    public long getErrorCount() {
+        long sum = 0;
+        for (final long count : this.errors) {
+            sum += count;
+        }
+        return sum;
+    }
+
+    /**
+     * @return count per ParseError that occurred at least once
+     */
+    public Map<ParsedUrl.ParseError, Long> getErrorCounts() {
+        final Map<ParsedUrl.ParseError, Long> counts = new EnumMap<>(ParsedUrl.ParseError.class);
+        for (final ParsedUrl.ParseError error : ParsedUrl.ParseError.values()) {
+            if (this.errors[error.ordinal()] > 0) {
+                counts.put(error, this.errors[error.ordinal()]);
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public String toString() {
+        return "ParseSummary{valid=" + this.getValidCount() + ", errors=" + this.getErrorCounts() + "}";
+    }
+
+}
@@ -1,26 +1,34 @@
 package http;
 
-import com.google.common.net.InternetDomainName;
-
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.util.regex.Pattern;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Validates and parses a given string into a URL.<br>
  * - Only allows http & https<br>
- * - TLD parsing with https://publicsuffix.org/ via https://github.com/google/guava/wiki/InternetDomainNameExplained<br>
+ * - TLD parsing with https://publicsuffix.org/ via PublicSuffixTrie, same results as https://github.com/google/guava/wiki/InternetDomainNameExplained<br>
  * - `co.uk` is not a TLD, but we call it that anyway.<br>
  * - Domain endings (TLDs) are broken down to "registry suffix", e.g. `blogspot.com` = `com` although it's a public suffix in itself<br>
- * - Warning about InternetDomainName as unstable is because it's in eternal @Beta due to the changing public suffix list<br>
+ * - Suffix data comes from Guava by default, a local public suffix list can be set via PublicSuffixTrie.setDefault()<br>
+ * - Domain + TLD of repeated hosts can be cached, see HostCache (disabled by default)<br>
  * <br>
- * <b>NOTE:</b> This is relatively slow. Only 200k per second on a single core (2018).
+ * <b>NOTE:</b> Parsing is a single pass over the chars (see UrlScanner) plus a single pass over the host (see PublicSuffixTrie).<br>
+ * Instances only keep the normalized url plus offsets, getters create their substrings on demand.
  * <pre>
  * INPUTS:<br>
  * google.com                   - ok. Result: http://google.com
  * http://google.com            - ok
  * http://qwer.google.com       - ok
  * http://asdf.qwer.google.com  - ok
+ * http://127.0.0.1            - ok, IPv4. See getHostType(), getIpv4() and IpRangeSet
+ * http://[2001:db8::1]         - ok, IPv6
+ * http://999.1.1.1             - not an IP, unknown public suffix
  * google.asdf                  - unknown public suffix
  * ftp://google.com             - disallowed protocol
  * http://google.com/\/         - invalid character
@@ -29,93 +37,162 @@ import java.util.regex.Pattern;
  */
 public class ParsedUrl {
 
-    private static final Pattern startsWithProtocolPattern = Pattern.compile("^(jar|file|ftp|http|https)://.*");
-    private static final Pattern ipPattern = Pattern.compile("(localhost|\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3})");
-    private final String protocol;
-    private final String host;
-    private final Integer port;
-    private final String path;
-    private final String query;
-    private final String anchor;
+    // Compact: everything but userInfo is part of the normalized url, components are kept as offsets into it
+    private final String url; // Protocol + host + port + path + query + anchor
+    private final int hostEnd;
+    private final int pathStart;
+    private final int queryStart; // -1 if none, otherwise first char after '?'
+    private final int anchorStart; // -1 if none, otherwise first char after '#'
+    private final int port; // -1 if none
     private final String userInfo;
 
-    private final String domain;
-    private final String tld;
-    private final String url; // Protocol + host + domain
+    // Offsets into the url, or into domainName if normalizing the host changed it (e.g. upper case). -1 if none
+    private final String domainName;
+    private final int domainStart;
+    private final int tldStart;
+
+    private int hash;
 
 
     public ParsedUrl(final String urlCandidate) throws ParsedUrlException {
-        if (urlCandidate == null) {
-            throw new ParsedUrlException("Provided URL must not be null");
-        }
+        this(parseOrThrow(urlCandidate));
+    }
 
-        // If pattern doesn't match we assume it's either a raw domain name or has some disallowed protocol (will fail later)
-        String unvalidatedUrlString = urlCandidate.trim();
-        if (!startsWithProtocolPattern.matcher(unvalidatedUrlString).matches()) {
-            unvalidatedUrlString = "http://" + unvalidatedUrlString;
+    ParsedUrl(final UrlScanner scanner) {
+        final String protocol = scanner.protocol();
+        final String host = scanner.host();
+        final String path = scanner.path();
+        final String query = scanner.query();
+        final String anchor = scanner.anchor();
+
+        final StringBuilder sb = new StringBuilder(protocol.length() + 3 + host.length() + 6 + path.length()
+                + (query == null ? 0 : query.length() + 1) + (anchor == null ? 0 : anchor.length() + 1));
+        sb.append(protocol).append("://").append(host);
+        this.hostEnd = sb.length();
+        if (scanner.port() != -1) {
+            sb.append(':').append(scanner.port());
         }
-
-        // This is used to extract the host. Protocol must be provided, anything else seems to be optional
-        final URL url;
-        try {
-            url = new URL(unvalidatedUrlString);
-            this.host = url.getHost();
-        } catch (final MalformedURLException e) {
-            throw new ParsedUrlException(e.getMessage() + ", provided URL: " + urlCandidate);
+        this.pathStart = sb.length();
+        sb.append(path);
+        if (query != null) {
+            sb.append('?');
+            this.queryStart = sb.length();
+            sb.append(query);
+        } else {
+            this.queryStart = -1;
         }
-
-        // Domain + TLD
-        final String host = url.getHost();
-        if (ipPattern.matcher(host).matches()) {
-            // Host is an IP or localhost
-            this.domain = host.equals("localhost") ? "localhost" : null;
-            this.tld = null;
+        if (anchor != null) {
+            sb.append('#');
+            this.anchorStart = sb.length();
+            sb.append(anchor);
         } else {
-            // This extract the actual domain name + tld, without any subdomains (these are included in host)
-            final InternetDomainName idn = InternetDomainName.from(url.getHost());
-            try {
-                this.domain = idn.topDomainUnderRegistrySuffix().toString();
-            } catch (final Exception e) {
-                throw new ParsedUrlException(e.getMessage() + ", provided URL: " + urlCandidate);
-            }
-
-            // This extracts the public suffix (e.g. tld).
-            if (!idn.hasRegistrySuffix()) {
-                throw new ParsedUrlException("No registry suffix recognized, provided URL: " + urlCandidate);
-            }
-            this.tld = String.valueOf(idn.registrySuffix());
+            this.anchorStart = -1;
         }
-
-        // This checks for invalid characters in the URL
-        try {
-            url.toURI();
-        } catch (final Exception e) {
-            throw new ParsedUrlException(e.getMessage()); // Shows full URL
+        this.url = sb.toString();
+        this.port = scanner.port();
+        this.userInfo = scanner.userInfo();
+
+        // Domain + TLD are suffixes of the normalized host, which mostly is the host itself
+        final String domain = scanner.domain();
+        if (domain == null) {
+            this.domainName = null;
+            this.domainStart = -1;
+            this.tldStart = -1;
+        } else if (host.endsWith(domain)) {
+            this.domainName = null;
+            this.domainStart = this.hostEnd - domain.length();
+            this.tldStart = scanner.tld() == null ? -1 : this.hostEnd - scanner.tld().length();
+        } else {
+            this.domainName = domain;
+            this.domainStart = 0;
+            this.tldStart = scanner.tld() == null ? -1 : domain.length() - scanner.tld().length();
         }
-        this.path = url.getPath();
-        this.query = url.getQuery();
-        this.anchor = url.getRef();
+    }
 
-        // Check if protocol is http or https. Others are disallowed.
-        if (!url.getProtocol().equals("http") && !url.getProtocol().equals("https")) {
-            throw new ParsedUrlException("Protocol is not http or https, provided URL: " + urlCandidate);
-        }
-        this.protocol = url.getProtocol();
+    /**
+     * Same checks as the constructor, but invalid input is returned as ParseResult instead of thrown.<br>
+     * No exception (and no error message) is created unless asked for, which makes this the cheap way to filter
+     * large amounts of URL candidates.
+     */
+    public static ParseResult tryParse(final CharSequence urlCandidate) {
+        return tryParse(urlCandidate, new UrlScanner());
+    }
 
-        // Port -1 means no port provided. Anything below 0 fails via java.net.URL
-        final int urlPort = url.getPort();
-        if (urlPort < -1 || urlPort == 0 || urlPort > 65535) {
-            throw new ParsedUrlException("Port must be between 0 - 65535, provided URL: " + urlCandidate);
-        }
-        if (urlPort == -1) {
-            this.port = null;
-        } else {
-            this.port = urlPort;
-        }
+    /**
+     * Lazily parses every candidate, see tryParse(). Parallel if the given stream is, splits as well as its source.<br>
+     * Results can be summarized with ParseSummary.collector().
+     */
+    public static Stream<ParseResult> parseAll(final Stream<? extends CharSequence> urlCandidates) {
+        return StreamSupport.stream(new ParseSpliterator(urlCandidates.spliterator()), urlCandidates.isParallel())
+                .onClose(urlCandidates::close);
+    }
+
+    /**
+     * Same as parseAll(Stream), sequential. Use parallel() to parse on all cores.
+     */
+    public static Stream<ParseResult> parseAll(final Iterable<? extends CharSequence> urlCandidates) {
+        return StreamSupport.stream(new ParseSpliterator(urlCandidates.spliterator()), false);
+    }
+
+    /**
+     * Same as parseAll(Stream), sequential. Use parallel() to parse on all cores.
+     */
+    public static Stream<ParseResult> parseAll(final CharSequence... urlCandidates) {
+        return StreamSupport.stream(new ParseSpliterator(Arrays.spliterator(urlCandidates)), false);
+    }
+
+    /**
+     * tryParse() over UTF-8 bytes, e.g. straight from a log or WARC record. Same results as for the decoded String.<br>
+     * ASCII input is validated and split on the bytes, no String is created unless the URL is valid or the error
+     * message is requested.
+     */
+    public static ParseResult tryParseUtf8(final byte[] utf8, final int offset, final int length) {
+        return tryParse(AsciiBytes.of(utf8, offset, length));
+    }
+
+    /**
+     * tryParse() over the remaining UTF-8 bytes of the buffer (heap or direct). Its position isn't changed.
+     */
+    public static ParseResult tryParseUtf8(final ByteBuffer utf8) {
+        return tryParse(AsciiBytes.of(utf8));
+    }
+
+
+    /**
+     * Resolves a reference (e.g. an `href`) against this URL as base, per RFC 3986 section 5.2. Replaces
+     * `new ParsedUrl(URI.create(base).resolve(reference).toString())`, without parsing the base again.<br>
+     * - Works on the already parsed components. If the host stays the same, domain + TLD are taken from this URL<br>
+     * - Like browsers: surrounding whitespace is ignored, `http:g` is relative if this URL is http as well<br>
+     * - Schemes other than http and https (mailto:, javascript:, ...) are rejected with BAD_PROTOCOL
+     * <pre>
+     * new ParsedUrl("https://google.com/a/b?q").resolve("../c#top")  = https://google.com/c#top
+     * new ParsedUrl("https://google.com/a/b?q").resolve("//bing.com") = https://bing.com
+     * </pre>
+     */
+    public ParsedUrl resolve(final CharSequence reference) throws ParsedUrlException {
+        return this.tryResolve(reference).getOrThrow();
+    }
 
-        this.userInfo = url.getUserInfo();
+    /**
+     * Same as resolve(), but invalid targets are returned as ParseResult instead of thrown, see tryParse()
+     */
+    public ParseResult tryResolve(final CharSequence reference) {
+        return new UrlResolver(this).resolve(reference);
+    }
 
-        this.url = this.buildUrl();
+    /**
+     * tryResolve() for all references of a page at once, in their order. Shares buffers and the scanner between
+     * them, which makes it cheaper than resolving one by one.
+     */
+    public List<ParseResult> resolveAll(final Iterable<? extends CharSequence> references) {
+        final UrlResolver resolver = new UrlResolver(this);
+        final List<ParseResult> results = references instanceof Collection
+                ? new ArrayList<>(((Collection<?>) references).size())
+                : new ArrayList<>();
+        for (final CharSequence reference : references) {
+            results.add(resolver.resolve(reference));
+        }
+        return results;
     }
 
 
@@ -128,41 +205,131 @@ public class ParsedUrl {
     }
 
     public String getProtocol() {
-        return this.protocol;
+        return this.url.charAt(4) == ':' ? "http" : "https";
     }
 
     public String getHost() {
-        return this.host;
+        return this.url.substring(this.hostStart(), this.hostEnd);
     }
 
     public Integer getPort() {
-        return this.port;
+        return this.port == -1 ? null : this.port;
     }
 
     public String getPath() {
-        return this.path;
+        return this.url.substring(this.pathStart, this.pathEnd());
     }
 
     public String getQuery() {
-        return this.query;
+        return this.queryStart < 0 ? null : this.url.substring(this.queryStart, this.queryEnd());
+    }
+
+    /**
+     * Lazy view of the query's parameters, nothing is split or decoded until asked for. Empty if there is no query.
+     */
+    public QueryParameters getQueryParameters() {
+        return new QueryParameters().reset(this.url, this.queryStart, this.queryStart < 0 ? -1 : this.queryEnd());
     }
 
     public String getAnchor() {
-        return this.anchor;
+        return this.anchorStart < 0 ? null : this.url.substring(this.anchorStart);
     }
 
     public String getDomain() {
-        return this.domain;
+        if (this.domainStart < 0) {
+            return null;
+        }
+        return this.domainName != null ? this.domainName : this.url.substring(this.domainStart, this.hostEnd);
     }
 
     public String getTld() {
-        return this.tld;
+        if (this.tldStart < 0) {
+            return null;
+        }
+        return this.domainName != null ? this.domainName.substring(this.tldStart) : this.url.substring(this.tldStart, this.hostEnd);
     }
 
     public String getUserInfo() {
         return this.userInfo;
     }
 
+    public HostType getHostType() {
+        if (this.domainStart < 0) {
+            return this.url.charAt(this.hostStart()) == '[' ? HostType.IPV6 : HostType.IPV4;
+        }
+        return this.tldStart < 0 ? HostType.LOCALHOST : HostType.DOMAIN;
+    }
+
+    /**
+     * IPv4 host as int, e.g. `0x7f000001` for `127.0.0.1`. See IpRangeSet for CIDR checks.
+     *
+     * @throws IllegalStateException if the host isn't IPv4
+     */
+    public int getIpv4() {
+        final long address = IpAddress.parseIpv4(this.url, this.hostStart(), this.hostEnd);
+        if (address == IpAddress.NOT_IPV4) {
+            throw new IllegalStateException("Host is not IPv4: " + this.getHost());
+        }
+        return (int) address;
+    }
+
+    /**
+     * High 64 bits of the IPv6 host, e.g. `0x20010db800000000` for `[2001:db8::1]`
+     *
+     * @throws IllegalStateException if the host isn't IPv6
+     */
+    public long getIpv6High() {
+        return this.ipv6()[0];
+    }
+
+    /**
+     * Low 64 bits of the IPv6 host, e.g. `1` for `[2001:db8::1]`
+     *
+     * @throws IllegalStateException if the host isn't IPv6
+     */
+    public long getIpv6Low() {
+        return this.ipv6()[1];
+    }
+
+    /**
+     * URL after all rules of UrlCanonicalizer.DEFAULT, e.g. `HTTP://Google.com:80/a/../b?y=1&x=2#top` becomes
+     * `http://google.com/b?x=2&y=1`
+     */
+    public String getCanonicalUrl() {
+        return UrlCanonicalizer.DEFAULT.canonicalize(this);
+    }
+
+    /**
+     * 64-bit fingerprint of getCanonicalUrl(), computed without creating it. See UrlCanonicalizer.fingerprint64()
+     */
+    public long getFingerprint() {
+        return UrlCanonicalizer.DEFAULT.fingerprint64(this);
+    }
+
+    /**
+     * Based on the normalized url (plus userInfo, which isn't part of it)
+     */
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ParsedUrl)) {
+            return false;
+        }
+        final ParsedUrl other = (ParsedUrl) o;
+        return this.hashCode() == other.hashCode() && this.url.equals(other.url) && Objects.equals(this.userInfo, other.userInfo);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = this.hash;
+        if (h == 0) {
+            this.hash = h = this.url.hashCode();
+        }
+        return h;
+    }
+
     @Override
     public String toString() {
         return this.url;
@@ -172,33 +339,78 @@ public class ParsedUrl {
     // HELPERS
     // ------------------------------------------------------------------------------------------ //
 
-    private String buildUrl() {
-        final StringBuilder sb = new StringBuilder();
-
-        sb.append(this.protocol);
-        sb.append("://");
-        sb.append(this.host);
-
-        if (this.port != null && this.port != -1) {
-            sb.append(":");
-            sb.append(this.port);
+    /**
+     * The scanner is free for reuse afterwards if the result is valid, otherwise the result keeps it for the message.
+     */
+    static ParseResult tryParse(final CharSequence urlCandidate, final UrlScanner scanner) {
+        final ParseError error = scanner.parse(urlCandidate);
+        if (error != null) {
+            scanner.detach();
+            return new ParseResult(null, error, scanner);
         }
+        return new ParseResult(new ParsedUrl(scanner), null, null);
+    }
 
-        if (this.path != null) {
-            sb.append(this.path);
+    private long[] ipv6() {
+        final long[] highLow = new long[2];
+        if (this.getHostType() != HostType.IPV6 || !IpAddress.parseIpv6(this.url, this.hostStart() + 1, this.hostEnd - 1, highLow)) {
+            throw new IllegalStateException("Host is not IPv6: " + this.getHost());
         }
+        return highLow;
+    }
 
-        if (this.query != null) {
-            sb.append("?");
-            sb.append(this.query);
+    private static UrlScanner parseOrThrow(final String urlCandidate) throws ParsedUrlException {
+        final UrlScanner scanner = new UrlScanner();
+        final ParseError error = scanner.parse(urlCandidate);
+        if (error != null) {
+            throw new ParsedUrlException(scanner.errorMessage(), error);
         }
+        return scanner;
+    }
 
-        if (this.anchor != null) {
-            sb.append("#");
-            sb.append(this.anchor);
-        }
+    // ------------------------------------------------------------------------------------------ //
+    // OFFSETS (into the url)
+    // ------------------------------------------------------------------------------------------ //
 
-        return sb.toString();
+    int hostStart() {
+        return this.url.charAt(4) == ':' ? 7 : 8; // "http://" or "https://"
+    }
+
+    int hostEnd() {
+        return this.hostEnd;
+    }
+
+    /**
+     * -1 if none
+     */
+    int port() {
+        return this.port;
+    }
+
+    int pathStart() {
+        return this.pathStart;
+    }
+
+    int pathEnd() {
+        return this.queryStart >= 0 ? this.queryStart - 1 : this.queryEnd();
+    }
+
+    /**
+     * -1 if none
+     */
+    int queryStart() {
+        return this.queryStart;
+    }
+
+    int queryEnd() {
+        return this.anchorStart >= 0 ? this.anchorStart - 1 : this.url.length();
+    }
+
+    /**
+     * -1 if none
+     */
+    int anchorStart() {
+        return this.anchorStart;
     }
 
 
@@ -206,10 +418,122 @@ public class ParsedUrl {
     // INNER OBJECTS
     // ------------------------------------------------------------------------------------------ //
 
+    public enum HostType {
+        /** Domain under a registry suffix, see getDomain() and getTld() */
+        DOMAIN,
+        LOCALHOST,
+        /** IPv4, see getIpv4() */
+        IPV4,
+        /** IPv6 in brackets, see getIpv6High() and getIpv6Low() */
+        IPV6
+    }
+
+    /**
+     * Why a URL candidate was rejected, in the order the checks are applied.
+     */
+    public enum ParseError {
+        NULL_INPUT,
+        MALFORMED_URL,
+        INVALID_DOMAIN,
+        NO_REGISTRY_SUFFIX,
+        ILLEGAL_CHARACTER,
+        BAD_PROTOCOL,
+        BAD_PORT
+    }
+
+    /**
+     * Outcome of tryParse(). Holds either the ParsedUrl or the ParseError.<br>
+     * The error message is the same one ParsedUrlException would have, but only built on first request. Thread-safe,
+     * concurrent first requests might both build it.
+     */
+    public static final class ParseResult {
+
+        private final ParsedUrl url;
+        private final ParseError error;
+        private final UrlScanner scanner; // Detached, only read from here on
+        private String errorMessage;
+
+        private ParseResult(final ParsedUrl url, final ParseError error, final UrlScanner scanner) {
+            this(url, error, scanner, null);
+        }
+
+        private ParseResult(final ParsedUrl url, final ParseError error, final UrlScanner scanner, final String errorMessage) {
+            this.url = url;
+            this.error = error;
+            this.scanner = scanner;
+            this.errorMessage = errorMessage;
+        }
+
+        /**
+         * Invalid result with a message that doesn't come from a scanner
+         */
+        static ParseResult invalid(final ParseError error, final String errorMessage) {
+            return new ParseResult(null, error, null, errorMessage);
+        }
+
+        public boolean isValid() {
+            return this.url != null;
+        }
+
+        /**
+         * @return the ParsedUrl, null if invalid
+         */
+        public ParsedUrl getUrl() {
+            return this.url;
+        }
+
+        /**
+         * @return the ParseError, null if valid
+         */
+        public ParseError getError() {
+            return this.error;
+        }
+
+        /**
+         * @return the error message, null if valid
+         */
+        public String getErrorMessage() {
+            String errorMessage = this.errorMessage;
+            if (errorMessage == null && this.scanner != null) {
+                // Racy but benign, Strings are immutable
+                errorMessage = this.scanner.errorMessage();
+                this.errorMessage = errorMessage;
+            }
+            return errorMessage;
+        }
+
+        public ParsedUrl getOrThrow() throws ParsedUrlException {
+            if (this.url == null) {
+                throw new ParsedUrlException(this.getErrorMessage(), this.error);
+            }
+            return this.url;
+        }
+
+        @Override
+        public String toString() {
+            return this.url != null ? this.url.toString() : this.error + ": " + this.getErrorMessage();
+        }
+
+    }
+
     public static class ParsedUrlException extends Exception {
 
+        private final ParseError error;
+
         public ParsedUrlException(final String s) {
+            this(s, null);
+        }
+
+        public ParsedUrlException(final String s, final ParseError error) {
             super(s);
+            this.error = error;
+        }
+
+        /**
+         * @return the reason, null if unknown
+         */
+        public ParseError getError() {
+            return this.error;
         }
 
     }
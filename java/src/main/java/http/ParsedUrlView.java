@@ -0,0 +1,246 @@
+package http;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reusable, mutable companion of ParsedUrl for hot loops: parse(), check, move on.<br>
+ * - Same checks, errors and component values as ParsedUrl, but components are CharSequence slices of the input
+ * instead of Strings. Steady-state parsing of ASCII input allocates nothing<br>
+ * - Slices are only valid until the next parse() and as long as the input doesn't change. Keep a result via
+ * toParsedUrl() or toString() of a slice<br>
+ * - Not thread-safe, use one per thread, e.g. forCurrentThread()<br>
+ * - Doesn't use HostCache, resolving on the chars is as cheap as a cache lookup
+ * <pre>
+ * ParsedUrlView view = ParsedUrlView.forCurrentThread();
+ * for (String candidate : candidates) {
+ *     if (view.parse(candidate) &amp;&amp; "google.com".contentEquals(view.getDomain())) {
+ *         keep.add(view.toParsedUrl());
+ *     }
+ * }
+ * </pre>
+ */
+public final class ParsedUrlView {
+
+    private static final ThreadLocal<ParsedUrlView> PER_THREAD = ThreadLocal.withInitial(ParsedUrlView::new);
+
+    private final UrlScanner scanner = new UrlScanner(true);
+    private final AsciiBytes bytes = new AsciiBytes();
+    private ParsedUrl.ParseError error = ParsedUrl.ParseError.NULL_INPUT;
+
+    private final CharSlice host = new CharSlice();
+    private final CharSlice domain = new CharSlice();
+    private final CharSlice tld = new CharSlice();
+    private final CharSlice path = new CharSlice();
+    private final CharSlice query = new CharSlice();
+    private final CharSlice anchor = new CharSlice();
+    private final CharSlice userInfo = new CharSlice();
+    private final QueryParameters queryParameters = new QueryParameters();
+
+    // Normalized host, only filled if normalizing changes it (upper case, trailing dot, ...)
+    private char[] normalizedHost = new char[64];
+    private CharBuffer normalizedView = CharBuffer.wrap(this.normalizedHost);
+    private boolean domainResolved;
+
+
+    public ParsedUrlView() {
+    }
+
+    /**
+     * View owned by the current thread, for code that can't hold on to its own
+     */
+    public static ParsedUrlView forCurrentThread() {
+        return PER_THREAD.get();
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // PARSE
+    // ------------------------------------------------------------------------------------------ //
+
+    /**
+     * @return true if the candidate is a valid URL, otherwise see getError()
+     */
+    public boolean parse(final CharSequence urlCandidate) {
+        this.error = this.scanner.parse(urlCandidate);
+        this.domainResolved = false;
+        return this.error == null;
+    }
+
+    /**
+     * Same as parse() for UTF-8 bytes. ASCII input is scanned in place, anything else is decoded first.
+     */
+    public boolean parseUtf8(final byte[] utf8, final int offset, final int length) {
+        return this.parse(this.bytes.wrap(utf8, offset, length) ? this.bytes : new String(utf8, offset, length, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Same as parse() for the remaining UTF-8 bytes of the buffer. The buffer's position isn't changed.
+     */
+    public boolean parseUtf8(final ByteBuffer utf8) {
+        return this.parse(this.bytes.wrap(utf8) ? this.bytes : StandardCharsets.UTF_8.decode(utf8.duplicate()).toString());
+    }
+
+    /**
+     * Immutable copy of the current URL, same as new ParsedUrl(candidate) would have returned
+     */
+    public ParsedUrl toParsedUrl() {
+        this.checkValid();
+        this.scanner.materialize();
+        return new ParsedUrl(this.scanner);
+    }
+
+    /**
+     * Appends the normalized URL, i.e. what ParsedUrl.getUrl() would return
+     */
+    public StringBuilder appendUrl(final StringBuilder sb) {
+        this.checkValid();
+        sb.append(this.getProtocol()).append("://").append(this.getHost());
+        if (this.scanner.port() != -1) {
+            sb.append(':').append(this.scanner.port());
+        }
+        sb.append(this.getPath());
+        if (this.scanner.queryStart() >= 0) {
+            sb.append('?').append(this.getQuery());
+        }
+        if (this.scanner.anchorStart() >= 0) {
+            sb.append('#').append(this.getAnchor());
+        }
+        return sb;
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // GETTER
+    // ------------------------------------------------------------------------------------------ //
+
+    public boolean isValid() {
+        return this.error == null;
+    }
+
+    /**
+     * Null if the last input was valid. NULL_INPUT if nothing was parsed yet.
+     */
+    public ParsedUrl.ParseError getError() {
+        return this.error;
+    }
+
+    /**
+     * Same message ParsedUrl would have thrown, null if valid
+     */
+    public String getErrorMessage() {
+        return this.error == null ? null : this.scanner.errorMessage();
+    }
+
+    public String getProtocol() {
+        this.checkValid();
+        return this.scanner.protocol();
+    }
+
+    public CharSequence getHost() {
+        this.checkValid();
+        return this.host.reset(this.scanner.input(), this.scanner.hostStart(), this.scanner.hostEnd());
+    }
+
+    /**
+     * -1 if none
+     */
+    public int getPort() {
+        this.checkValid();
+        return this.scanner.port();
+    }
+
+    public CharSequence getPath() {
+        this.checkValid();
+        return this.path.reset(this.scanner.input(), this.scanner.pathStart(), this.scanner.pathEnd());
+    }
+
+    public CharSequence getQuery() {
+        this.checkValid();
+        return this.scanner.queryStart() < 0 ? null : this.query.reset(this.scanner.input(), this.scanner.queryStart(), this.scanner.queryEnd());
+    }
+
+    /**
+     * Same as ParsedUrl.getQueryParameters(), but reused: only valid until the next call
+     */
+    public QueryParameters getQueryParameters() {
+        this.checkValid();
+        final int queryStart = this.scanner.queryStart();
+        return this.queryParameters.reset(this.scanner.input(), queryStart, queryStart < 0 ? -1 : this.scanner.queryEnd());
+    }
+
+    public CharSequence getAnchor() {
+        this.checkValid();
+        return this.scanner.anchorStart() < 0 ? null : this.anchor.reset(this.scanner.input(), this.scanner.anchorStart(), this.scanner.end());
+    }
+
+    public CharSequence getUserInfo() {
+        this.checkValid();
+        return this.scanner.userInfoEnd() < 0 ? null : this.userInfo.reset(this.scanner.input(), this.scanner.userInfoStart(), this.scanner.userInfoEnd());
+    }
+
+    /**
+     * Registered domain of the normalized host, e.g. `google.com` for `WWW.Google.COM`. Null for IPs.
+     */
+    public CharSequence getDomain() {
+        this.checkValid();
+        if (this.scanner.domainOffset() < 0) {
+            return null;
+        }
+        this.resolveDomain();
+        return this.domain;
+    }
+
+    public CharSequence getTld() {
+        this.checkValid();
+        if (this.scanner.tldOffset() < 0) {
+            return null;
+        }
+        this.resolveDomain();
+        return this.tld;
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // HELPERS
+    // ------------------------------------------------------------------------------------------ //
+
+    private void checkValid() {
+        if (this.error != null) {
+            throw new IllegalStateException("No valid URL parsed: " + this.error);
+        }
+    }
+
+    /**
+     * Domain and TLD are slices of the host, or of its normalized copy if normalizing changes it
+     */
+    private void resolveDomain() {
+        if (this.domainResolved) {
+            return;
+        }
+        final CharSequence host = this.getHost();
+        final CharSequence name;
+        final int nameStart;
+        final int nameEnd;
+        if (PublicSuffixTrie.isNormalized(host)) {
+            name = this.scanner.input();
+            nameStart = this.scanner.hostStart();
+            nameEnd = this.scanner.hostEnd();
+        } else {
+            if (this.normalizedHost.length < host.length()) {
+                this.normalizedHost = new char[Math.max(host.length(), this.normalizedHost.length * 2)];
+                this.normalizedView = CharBuffer.wrap(this.normalizedHost);
+            }
+            name = this.normalizedView;
+            nameStart = 0;
+            nameEnd = PublicSuffixTrie.normalizeInto(host, this.normalizedHost);
+        }
+        this.domain.reset(name, nameStart + this.scanner.domainOffset(), nameEnd);
+        if (this.scanner.tldOffset() >= 0) {
+            this.tld.reset(name, nameStart + this.scanner.tldOffset(), nameEnd);
+        }
+        this.domainResolved = true;
+    }
+
+}
@@ -0,0 +1,449 @@
+package http;
+
+import com.google.thirdparty.publicsuffix.PublicSuffixPatterns;
+import com.google.thirdparty.publicsuffix.PublicSuffixType;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact reversed-label trie of the public suffix list (https://publicsuffix.org/).<br>
+ * - Resolves the suffix of a host in one right-to-left scan, without splitting it into label lists<br>
+ * - Same results and error messages as Guava's InternetDomainName (validation, normalization, suffix lookup)<br>
+ * - Nodes are kept in flat arrays, children are found via one open-addressing table keyed by (parent, label)<br>
+ * - Loadable from Guava's built-in data or from a local `public_suffix_list.dat`<br>
+ * <br>
+ * Positions returned refer to the given host, which is also valid for the normalized name (see normalize()).
+ * Immutable and thread-safe.
+ * <pre>
+ * www.google.co.uk  - registry suffix starts at 11 ("co.uk"), top domain at 4 ("google.co.uk")
+ * foo.blogspot.com  - registry suffix "com", public suffix "blogspot.com" (private section)
+ * </pre>
+ */
+public final class PublicSuffixTrie {
+
+    /** Host has no known suffix at all */
+    public static final int NO_SUFFIX = -1;
+    /** Host is not a syntactically valid domain name */
+    public static final int INVALID = -2;
+    /** Host has more than 253 chars */
+    public static final int TOO_LONG = -3;
+
+    private static final int MAX_LENGTH = 253;
+    private static final int MAX_LABEL_LENGTH = 63;
+
+    // Node flags
+    private static final byte REGISTRY = 1;
+    private static final byte PRIVATE = 2;
+    private static final byte UNDER_REGISTRY = 4;
+    private static final byte UNDER_PRIVATE = 8;
+    private static final byte EXCLUDED = 16;
+
+    private static final int ROOT = 0;
+    private static volatile PublicSuffixTrie defaultTrie;
+
+    // Nodes. Labels are stored reversed in node order, i.e. label of node n is labels[labelStart[n]..labelStart[n+1])
+    private final int[] parents;
+    private final int[] hashes;
+    private final int[] labelStart;
+    private final char[] labels;
+    private final byte[] flags;
+
+    // Open-addressing table (parent, label) -> node + 1
+    private final int[] table;
+    private final int mask;
+
+
+    private PublicSuffixTrie(final Builder builder) {
+        final int size = builder.size;
+        this.parents = Arrays.copyOf(builder.parents, size);
+        this.hashes = Arrays.copyOf(builder.hashes, size);
+        this.flags = Arrays.copyOf(builder.flags, size);
+        this.labelStart = new int[size + 1];
+        final StringBuilder sb = new StringBuilder();
+        for (int node = 0; node < size; node++) {
+            this.labelStart[node] = sb.length();
+            sb.append(new StringBuilder(builder.labels[node]).reverse());
+        }
+        this.labelStart[size] = sb.length();
+        this.labels = sb.toString().toCharArray();
+
+        int capacity = Integer.highestOneBit(Math.max(size, 2) * 2 - 1) << 1;
+        this.table = new int[capacity];
+        this.mask = capacity - 1;
+        for (int node = 1; node < size; node++) {
+            int slot = slot(this.parents[node], this.hashes[node]) & this.mask;
+            while (this.table[slot] != 0) {
+                slot = (slot + 1) & this.mask;
+            }
+            this.table[slot] = node + 1;
+        }
+    }
+
+    /**
+     * Trie from Guava's built-in public suffix data, i.e. the same data InternetDomainName uses.
+     */
+    public static PublicSuffixTrie fromGuava() {
+        final Builder builder = new Builder();
+        for (final Map.Entry<String, PublicSuffixType> e : PublicSuffixPatterns.EXACT.entrySet()) {
+            builder.add(e.getKey(), e.getValue() == PublicSuffixType.REGISTRY ? REGISTRY : PRIVATE);
+        }
+        for (final Map.Entry<String, PublicSuffixType> e : PublicSuffixPatterns.UNDER.entrySet()) {
+            builder.add(e.getKey(), e.getValue() == PublicSuffixType.REGISTRY ? UNDER_REGISTRY : UNDER_PRIVATE);
+        }
+        for (final String excluded : PublicSuffixPatterns.EXCLUDED.keySet()) {
+            builder.add(excluded, EXCLUDED);
+        }
+        return new PublicSuffixTrie(builder);
+    }
+
+    /**
+     * Trie from a local copy of https://publicsuffix.org/list/public_suffix_list.dat. Rules after
+     * "===BEGIN PRIVATE DOMAINS===" are private suffixes.
+     */
+    public static PublicSuffixTrie fromFile(final Path publicSuffixList) throws IOException {
+        return fromLines(Files.readAllLines(publicSuffixList, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Same as fromFile() for the lines of a public suffix list.
+     */
+    public static PublicSuffixTrie fromLines(final List<String> lines) {
+        final Builder builder = new Builder();
+        boolean privateSection = false;
+        for (String line : lines) {
+            line = line.trim();
+            if (line.startsWith("//")) {
+                if (line.contains("===BEGIN PRIVATE DOMAINS===")) {
+                    privateSection = true;
+                } else if (line.contains("===END PRIVATE DOMAINS===")) {
+                    privateSection = false;
+                }
+                continue;
+            }
+            if (line.isEmpty()) {
+                continue;
+            }
+            final int whitespace = indexOfWhitespace(line);
+            final String rule = normalize(whitespace < 0 ? line : line.substring(0, whitespace));
+            if (rule.startsWith("!")) {
+                builder.add(rule.substring(1), EXCLUDED);
+            } else if (rule.startsWith("*.")) {
+                builder.add(rule.substring(2), privateSection ? UNDER_PRIVATE : UNDER_REGISTRY);
+            } else {
+                builder.add(rule, privateSection ? PRIVATE : REGISTRY);
+            }
+        }
+        return new PublicSuffixTrie(builder);
+    }
+
+    /**
+     * Trie used by ParsedUrl. Defaults to fromGuava().
+     */
+    public static PublicSuffixTrie getDefault() {
+        PublicSuffixTrie trie = defaultTrie;
+        if (trie == null) {
+            synchronized (PublicSuffixTrie.class) {
+                trie = defaultTrie;
+                if (trie == null) {
+                    defaultTrie = trie = fromGuava();
+                }
+            }
+        }
+        return trie;
+    }
+
+    /**
+     * Replaces the trie used by ParsedUrl, e.g. with a more recent list via fromFile().
+     */
+    public static void setDefault(final PublicSuffixTrie trie) {
+        if (trie == null) {
+            throw new IllegalArgumentException("Trie must not be null");
+        }
+        defaultTrie = trie;
+    }
+
+    // ------------------------------------------------------------------------------------------ //
+    // LOOKUP
+    // ------------------------------------------------------------------------------------------ //
+
+    /**
+     * Start of the registry suffix (ICANN section only, e.g. `com` for `blogspot.com`) within host. Same as
+     * InternetDomainName.registrySuffix(). Returns 0 if host is a registry suffix itself or one of the negative
+     * constants of this class.
+     */
+    public int registrySuffixStart(final CharSequence host) {
+        return this.suffixStart(host, REGISTRY, UNDER_REGISTRY);
+    }
+
+    /**
+     * Start of the public suffix (incl. private section, e.g. `blogspot.com`) within host. Same as
+     * InternetDomainName.publicSuffix(). Returns 0 if host is a public suffix itself or one of the negative constants
+     * of this class.
+     */
+    public int publicSuffixStart(final CharSequence host) {
+        return this.suffixStart(host, REGISTRY | PRIVATE, UNDER_REGISTRY | UNDER_PRIVATE);
+    }
+
+    /**
+     * Start of the label in front of the suffix starting at suffixStart, i.e. the top domain under that suffix. Returns
+     * -1 if there is none.
+     */
+    public static int topDomainStart(final CharSequence host, final int suffixStart) {
+        if (suffixStart <= 0) {
+            return -1;
+        }
+        int i = suffixStart - 2;
+        while (i >= 0 && !isDot(host.charAt(i))) {
+            i--;
+        }
+        return i + 1;
+    }
+
+    /**
+     * Host the way InternetDomainName sees it: ASCII lowercase, dot-like chars replaced with '.' and without trailing
+     * dot. Returns host itself if it's a String and already normalized.
+     */
+    public static String normalize(final CharSequence host) {
+        if (host instanceof String && isNormalized(host)) {
+            return (String) host;
+        }
+        final char[] chars = new char[nameEnd(host)];
+        normalizeInto(host, chars);
+        return new String(chars);
+    }
+
+    /**
+     * True if normalize() wouldn't change the chars of host
+     */
+    static boolean isNormalized(final CharSequence host) {
+        final int end = nameEnd(host);
+        if (end != host.length()) {
+            return false;
+        }
+        for (int i = 0; i < end; i++) {
+            final char c = host.charAt(i);
+            if ((c >= 'A' && c <= 'Z') || (c != '.' && isDot(c))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the normalized host into target, which must have room for host.length() chars. Returns the length.
+     */
+    static int normalizeInto(final CharSequence host, final char[] target) {
+        final int end = nameEnd(host);
+        for (int i = 0; i < end; i++) {
+            final char c = host.charAt(i);
+            target[i] = isDot(c) ? '.' : toLowerCase(c);
+        }
+        return end;
+    }
+
+    /**
+     * Same message as InternetDomainName for the given negative result of registrySuffixStart(). Results of 0 (host is
+     * a suffix itself) and NO_SUFFIX mean the host isn't under a registry suffix.
+     */
+    public static String describe(final int result, final CharSequence host) {
+        switch (result) {
+            case TOO_LONG:
+                return "Domain name too long: '" + normalize(host) + "':";
+            case INVALID:
+                return "Not a valid domain name: '" + normalize(host) + "'";
+            default:
+                return "Not under a registry suffix: " + normalize(host);
+        }
+    }
+
+    /**
+     * Walks the host right to left, validating each label like InternetDomainName and following the trie as long as
+     * there are nodes. The deepest matching rule wins, on the same level exact rules go before exclusions before
+     * wildcards (see InternetDomainName.findSuffixOfType()).
+     */
+    private int suffixStart(final CharSequence host, final int exact, final int under) {
+        // Guava's limit of 127 parts can't be exceeded within 253 chars
+        final int end = nameEnd(host);
+        if (end > MAX_LENGTH) {
+            return TOO_LONG;
+        }
+
+        int node = ROOT;
+        int suffix = NO_SUFFIX;
+        boolean valid = true;
+        boolean asciiOk = true;
+        int hash = 0;
+        int labelEnd = end;
+        for (int i = end - 1; i >= -1; i--) {
+            char c = i >= 0 ? host.charAt(i) : '.';
+            if (i >= 0 && !isDot(c)) {
+                if (c < 128) {
+                    c = toLowerCase(c);
+                    asciiOk &= (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '_';
+                }
+                hash = 31 * hash + c;
+                continue;
+            }
+
+            // Label [i + 1, labelEnd)
+            final int start = i + 1;
+            valid = valid && asciiOk && isValidLabel(host, start, labelEnd, labelEnd == end);
+            if (valid && node >= 0) {
+                final int child = this.child(node, hash, host, start, labelEnd);
+                if (child >= 0 && (this.flags[child] & exact) != 0) {
+                    suffix = start;
+                } else if (child >= 0 && (this.flags[child] & EXCLUDED) != 0 && labelEnd < end) {
+                    suffix = labelEnd + 1;
+                } else if (node != ROOT && (this.flags[node] & under) != 0) {
+                    suffix = start;
+                }
+                node = child;
+            }
+            asciiOk = true;
+            hash = 0;
+            labelEnd = i;
+        }
+        return valid ? suffix : INVALID;
+    }
+
+    private int child(final int parent, final int hash, final CharSequence host, final int start, final int end) {
+        int slot = slot(parent, hash) & this.mask;
+        int entry;
+        while ((entry = this.table[slot]) != 0) {
+            final int node = entry - 1;
+            if (this.hashes[node] == hash && this.parents[node] == parent && this.labelEquals(node, host, start, end)) {
+                return node;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        return -1;
+    }
+
+    private boolean labelEquals(final int node, final CharSequence host, final int start, final int end) {
+        final int from = this.labelStart[node];
+        if (this.labelStart[node + 1] - from != end - start) {
+            return false;
+        }
+        // Labels are stored reversed
+        for (int i = end - 1, j = from; i >= start; i--, j++) {
+            if (toLowerCase(host.charAt(i)) != this.labels[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ------------------------------------------------------------------------------------------ //
+    // HELPERS
+    // ------------------------------------------------------------------------------------------ //
+
+    /**
+     * See InternetDomainName.validatePart(). The ASCII chars have been checked by the caller already.
+     */
+    private static boolean isValidLabel(final CharSequence host, final int start, final int end, final boolean last) {
+        final int length = end - start;
+        if (length < 1 || length > MAX_LABEL_LENGTH) {
+            return false;
+        }
+        final char first = host.charAt(start);
+        final char lastChar = host.charAt(end - 1);
+        if (first == '-' || first == '_' || lastChar == '-' || lastChar == '_') {
+            return false;
+        }
+        return !last || first < '0' || first > '9';
+    }
+
+    private static int nameEnd(final CharSequence host) {
+        final int length = host.length();
+        return length > 0 && isDot(host.charAt(length - 1)) ? length - 1 : length;
+    }
+
+    private static boolean isDot(final char c) {
+        return c == '.' || c == '\u3002' || c == '\uFF0E' || c == '\uFF61';
+    }
+
+    private static char toLowerCase(final char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + 32) : c;
+    }
+
+    private static int slot(final int parent, final int hash) {
+        final int h = parent * 0x9E3779B9 + hash;
+        return h ^ (h >>> 16);
+    }
+
+    private static int indexOfWhitespace(final String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (Character.isWhitespace(s.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int labelHash(final String label) {
+        int hash = 0;
+        for (int i = label.length() - 1; i >= 0; i--) {
+            hash = 31 * hash + label.charAt(i);
+        }
+        return hash;
+    }
+
+    // ------------------------------------------------------------------------------------------ //
+    // INNER OBJECTS
+    // ------------------------------------------------------------------------------------------ //
+
+    /**
+     * Collects the rules. Only used while loading, the trie itself doesn't keep any maps.
+     */
+    private static class Builder {
+
+        private final Map<String, Integer> nodes = new HashMap<>();
+        private int[] parents = new int[1024];
+        private int[] hashes = new int[1024];
+        private byte[] flags = new byte[1024];
+        private String[] labels = new String[1024];
+        private int size = 1;
+
+        Builder() {
+            this.labels[ROOT] = "";
+        }
+
+        void add(final String suffix, final byte flag) {
+            final String[] parts = suffix.split("\\.");
+            int node = ROOT;
+            for (int i = parts.length - 1; i >= 0; i--) {
+                final String key = node + "." + parts[i];
+                Integer child = this.nodes.get(key);
+                if (child == null) {
+                    child = this.newNode(node, parts[i]);
+                    this.nodes.put(key, child);
+                }
+                node = child;
+            }
+            this.flags[node] |= flag;
+        }
+
+        private int newNode(final int parent, final String label) {
+            if (this.size == this.parents.length) {
+                final int capacity = this.size * 2;
+                this.parents = Arrays.copyOf(this.parents, capacity);
+                this.hashes = Arrays.copyOf(this.hashes, capacity);
+                this.flags = Arrays.copyOf(this.flags, capacity);
+                this.labels = Arrays.copyOf(this.labels, capacity);
+            }
+            this.parents[this.size] = parent;
+            this.hashes[this.size] = labelHash(label);
+            this.labels[this.size] = label;
+            return this.size++;
+        }
+
+    }
+
+}
@@ -0,0 +1,182 @@
+package http;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Removes parameters from the query of a URL, e.g. tracking and session parameters before dedup or fetching.<br>
+ * - Names are matched case-insensitively (ASCII) on the raw key. A trailing `*` matches every key with that prefix,
+ * e.g. `utm_*`<br>
+ * - One pass over the query, straight into the new URL. Nothing is split into maps, URLs without a removed parameter
+ * come back as they are<br>
+ * - Exact names are looked up in an open-addressing table hashed on the key chars, prefixes are compared one by one
+ * <pre>
+ * QueryParameterFilter.TRACKING.apply(new ParsedUrl("https://google.com/a?utm_source=x&amp;id=1&amp;gclid=y#top"))
+ *      = https://google.com/a?id=1#top
+ * </pre>
+ * Immutable and thread-safe.
+ */
+public final class QueryParameterFilter {
+
+    /**
+     * Common click and campaign trackers plus session ids
+     */
+    public static final QueryParameterFilter TRACKING = new QueryParameterFilter(Arrays.asList(
+            "utm_*", "gclid", "gclsrc", "dclid", "gbraid", "wbraid", "fbclid", "msclkid", "yclid", "twclid", "ttclid",
+            "li_fat_id", "mc_cid", "mc_eid", "_ga", "_gl", "_hsenc", "_hsmi", "mkt_tok", "igshid", "srsltid",
+            "jsessionid", "phpsessid", "aspsessionid*", "cfid", "cftoken", "sessionid", "session_id"));
+
+    private final List<String> names;
+    private final String[] table; // Lower case exact names, null slots are empty
+    private final int mask;
+    private final String[] prefixes; // Lower case, without the '*'
+
+
+    /**
+     * @param names exact names or prefixes ending with `*`
+     */
+    public QueryParameterFilter(final Collection<String> names) {
+        if (names == null) {
+            throw new IllegalArgumentException("Names must not be null");
+        }
+        final List<String> exact = new ArrayList<>();
+        final List<String> prefixes = new ArrayList<>();
+        for (final String name : names) {
+            if (name == null || name.isEmpty() || name.equals("*")) {
+                throw new IllegalArgumentException("Names must not be null, empty or only '*', provided: " + name);
+            }
+            final StringBuilder lowerCase = new StringBuilder(name.length());
+            for (int i = 0; i < name.length(); i++) {
+                lowerCase.append(toLowerCase(name.charAt(i)));
+            }
+            final String lower = lowerCase.toString();
+            if (lower.endsWith("*")) {
+                prefixes.add(lower.substring(0, lower.length() - 1));
+            } else {
+                exact.add(lower);
+            }
+        }
+        this.names = Collections.unmodifiableList(new ArrayList<>(names));
+        this.prefixes = prefixes.toArray(new String[0]);
+
+        final int capacity = Integer.highestOneBit(Math.max(2, exact.size()) * 4 - 1) << 1;
+        this.table = new String[capacity];
+        this.mask = capacity - 1;
+        for (final String name : exact) {
+            int slot = hash(name, 0, name.length()) & this.mask;
+            while (this.table[slot] != null && !this.table[slot].equals(name)) {
+                slot = (slot + 1) & this.mask;
+            }
+            this.table[slot] = name;
+        }
+    }
+
+    /**
+     * @return the URL without the matching parameters (same as getUrl() if there are none). If no parameter is left,
+     * the '?' goes as well.
+     */
+    public String apply(final ParsedUrl url) {
+        final String chars = url.getUrl();
+        final int queryStart = url.queryStart();
+        if (queryStart < 0) {
+            return chars;
+        }
+        final int queryEnd = url.queryEnd();
+
+        StringBuilder sb = null;
+        boolean kept = false;
+        int from = queryStart;
+        while (from <= queryEnd) {
+            final int separator = indexOf(chars, '&', from, queryEnd);
+            if (this.removes(chars, from, indexOf(chars, '=', from, separator))) {
+                if (sb == null) {
+                    // First removal, everything before it (without its '?' or '&') is kept as it is
+                    sb = new StringBuilder(chars.length()).append(chars, 0, from - 1);
+                    kept = from > queryStart;
+                }
+            } else if (sb != null) {
+                sb.append(kept ? '&' : '?').append(chars, from, separator);
+                kept = true;
+            }
+            from = separator + 1;
+        }
+        if (sb == null) {
+            return chars;
+        }
+        return sb.append(chars, queryEnd, chars.length()).toString();
+    }
+
+    /**
+     * @return true if a parameter with that (raw) key is removed
+     */
+    public boolean removes(final CharSequence key) {
+        return this.removes(key, 0, key.length());
+    }
+
+    public List<String> getNames() {
+        return this.names;
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // HELPERS
+    // ------------------------------------------------------------------------------------------ //
+
+    private boolean removes(final CharSequence chars, final int from, final int to) {
+        if (from == to) {
+            return false;
+        }
+        int slot = hash(chars, from, to) & this.mask;
+        for (String name; (name = this.table[slot]) != null; slot = (slot + 1) & this.mask) {
+            if (name.length() == to - from && equalsIgnoreCase(chars, from, name, name.length())) {
+                return true;
+            }
+        }
+        for (final String prefix : this.prefixes) {
+            if (prefix.length() <= to - from && equalsIgnoreCase(chars, from, prefix, prefix.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return index of the char, to if not found
+     */
+    private static int indexOf(final String chars, final char c, final int from, final int to) {
+        for (int i = from; i < to; i++) {
+            if (chars.charAt(i) == c) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    /**
+     * Hash of the ASCII lower case chars
+     */
+    private static int hash(final CharSequence chars, final int from, final int to) {
+        int hash = 0;
+        for (int i = from; i < to; i++) {
+            hash = 31 * hash + toLowerCase(chars.charAt(i));
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean equalsIgnoreCase(final CharSequence chars, final int from, final String lower, final int length) {
+        for (int i = 0; i < length; i++) {
+            if (toLowerCase(chars.charAt(from + i)) != lower.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static char toLowerCase(final char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + 32) : c;
+    }
+
+}
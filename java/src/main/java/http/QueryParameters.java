@@ -0,0 +1,254 @@
+package http;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Lazy view of the parameters of a query, see ParsedUrl.getQueryParameters() and ParsedUrlView.getQueryParameters().<br>
+ * - Works on the query bounds of the URL, nothing is split or copied up front<br>
+ * - Keys and values are CharSequence slices, reused by this instance: only valid until its next call, toString()
+ * keeps one<br>
+ * - Escapes are only decoded when asked for, see decode(). Keys are compared as they are, not decoded<br>
+ * - Parameters are separated by `&amp;`. A parameter without `=` has the value null, `a=` has ""
+ * <pre>
+ * QueryParameters params = url.getQueryParameters();
+ * CharSequence id = params.get("id");
+ * while (params.next()) {
+ *     System.out.println(params.getKey() + " = " + QueryParameters.decode(params.getValue()));
+ * }
+ * </pre>
+ * Not thread-safe.
+ */
+public final class QueryParameters {
+
+    private CharSequence source;
+    private int start;
+    private int end; // -1 if the URL has no query
+
+    // Current parameter of the cursor. next is where the one after starts, > end if there is none
+    private int next;
+    private int keyStart;
+    private int keyEnd;
+    private int valueStart; // -1 if the current parameter has no '='
+    private int valueEnd;
+
+    private final CharSlice key = new CharSlice();
+    private final CharSlice value = new CharSlice();
+    private final CharSlice found = new CharSlice();
+
+
+    QueryParameters() {
+        this.reset(null, 0, -1);
+    }
+
+    /**
+     * @param end -1 if there is no query
+     */
+    QueryParameters reset(final CharSequence source, final int start, final int end) {
+        this.source = source;
+        this.start = start;
+        this.end = end;
+        return this.rewind();
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // CURSOR
+    // ------------------------------------------------------------------------------------------ //
+
+    /**
+     * Moves to the next parameter, the first one on the first call
+     *
+     * @return false if there are no more
+     */
+    public boolean next() {
+        if (this.next > this.end) {
+            return false;
+        }
+        final int separator = this.indexOf('&', this.next, this.end);
+        this.keyStart = this.next;
+        this.valueStart = -1;
+        this.keyEnd = this.indexOf('=', this.keyStart, separator);
+        if (this.keyEnd < separator) {
+            this.valueStart = this.keyEnd + 1;
+            this.valueEnd = separator;
+        }
+        this.next = separator + 1;
+        return true;
+    }
+
+    /**
+     * Back to before the first parameter
+     */
+    public QueryParameters rewind() {
+        // An empty query ("?") has no parameters, unlike "?&" which has two empty ones
+        this.next = this.end < 0 || this.end == this.start ? Integer.MAX_VALUE : this.start;
+        return this;
+    }
+
+    public CharSequence getKey() {
+        this.checkCursor();
+        return this.key.reset(this.source, this.keyStart, this.keyEnd);
+    }
+
+    /**
+     * @return null if the parameter has no '='
+     */
+    public CharSequence getValue() {
+        this.checkCursor();
+        return this.valueStart < 0 ? null : this.value.reset(this.source, this.valueStart, this.valueEnd);
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // LOOKUP
+    // ------------------------------------------------------------------------------------------ //
+
+    /**
+     * Value of the first parameter with that key. Doesn't move the cursor.
+     *
+     * @return null if there is no such parameter, "" if it has no value
+     */
+    public CharSequence get(final CharSequence key) {
+        if (this.end <= this.start) {
+            return null;
+        }
+        final int length = key.length();
+        int from = this.start;
+        while (from <= this.end) {
+            final int separator = this.indexOf('&', from, this.end);
+            final int keyEnd = from + length;
+            if (keyEnd <= separator && (keyEnd == separator || this.source.charAt(keyEnd) == '=') && this.regionMatches(from, key)) {
+                return keyEnd == separator
+                        ? this.found.reset(this.source, keyEnd, keyEnd)
+                        : this.found.reset(this.source, keyEnd + 1, separator);
+            }
+            from = separator + 1;
+        }
+        return null;
+    }
+
+    public boolean contains(final CharSequence key) {
+        return this.get(key) != null;
+    }
+
+    /**
+     * Number of parameters, counted on every call
+     */
+    public int size() {
+        if (this.end <= this.start) {
+            return 0;
+        }
+        int count = 1;
+        for (int i = this.start; i < this.end; i++) {
+            if (this.source.charAt(i) == '&') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // DECODING
+    // ------------------------------------------------------------------------------------------ //
+
+    /**
+     * Decodes a key or value like a form does: `+` is a space, escapes are UTF-8. Malformed escapes are kept as they
+     * are (ParsedUrl doesn't let them through anyway).
+     *
+     * @return the chars as they are if there is nothing to decode, null for null
+     */
+    public static CharSequence decode(final CharSequence chars) {
+        if (chars == null) {
+            return null;
+        }
+        final int length = chars.length();
+        int first = 0;
+        while (first < length && chars.charAt(first) != '%' && chars.charAt(first) != '+') {
+            first++;
+        }
+        if (first == length) {
+            return chars;
+        }
+
+        final StringBuilder sb = new StringBuilder(length).append(chars, 0, first);
+        byte[] bytes = null;
+        int i = first;
+        while (i < length) {
+            final char c = chars.charAt(i);
+            if (c == '+') {
+                sb.append(' ');
+                i++;
+            } else if (c == '%' && decodeEscape(chars, i) >= 0) {
+                // Run of escapes, decoded together as they may form one multi-byte char
+                if (bytes == null) {
+                    bytes = new byte[(length - i) / 3];
+                }
+                int count = 0;
+                int escape;
+                while (i < length && chars.charAt(i) == '%' && (escape = decodeEscape(chars, i)) >= 0) {
+                    bytes[count++] = (byte) escape;
+                    i += 3;
+                }
+                sb.append(new String(bytes, 0, count, StandardCharsets.UTF_8));
+            } else {
+                sb.append(c);
+                i++;
+            }
+        }
+        return sb.toString();
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // HELPERS
+    // ------------------------------------------------------------------------------------------ //
+
+    private void checkCursor() {
+        if (this.next == this.start || this.next == Integer.MAX_VALUE) {
+            throw new IllegalStateException("No current parameter, call next() first");
+        }
+    }
+
+    /**
+     * @return index of the char, to if not found
+     */
+    private int indexOf(final char c, final int from, final int to) {
+        for (int i = from; i < to; i++) {
+            if (this.source.charAt(i) == c) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    private boolean regionMatches(final int from, final CharSequence key) {
+        for (int i = 0; i < key.length(); i++) {
+            if (this.source.charAt(from + i) != key.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the byte of the escape at i, -1 if it isn't a valid one
+     */
+    private static int decodeEscape(final CharSequence chars, final int i) {
+        if (i + 2 >= chars.length()) {
+            return -1;
+        }
+        final int high = hexDigit(chars.charAt(i + 1));
+        final int low = hexDigit(chars.charAt(i + 2));
+        return high < 0 || low < 0 ? -1 : high << 4 | low;
+    }
+
+    private static int hexDigit(final char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        final char lower = (char) (c | 0x20);
+        return lower >= 'a' && lower <= 'f' ? lower - 'a' + 10 : -1;
+    }
+
+}
@@ -0,0 +1,359 @@
+package http;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Rewrites a ParsedUrl into a canonical form, so the same page gets the same string (and fingerprint) for dedup.<br>
+ * - Rules can be picked individually, DEFAULT applies all of them<br>
+ * - The canonical form is streamed, fingerprint64() / fingerprint128() hash it without creating the String<br>
+ * - Fingerprints are MurmurHash3 x64 128 of the UTF-8 canonical url, i.e. the same as
+ * `Hashing.murmur3_128().hashString(canonicalize(url), UTF_8)` in Guava<br>
+ * <pre>
+ * http://WWW.Google.com.:80/a/./b/../c/%7euser?y=%4a&x=1#top  -  http://www.google.com/a/c/~user?x=1&y=J
+ * </pre>
+ * Immutable and thread-safe.
+ */
+public final class UrlCanonicalizer {
+
+    public static final UrlCanonicalizer DEFAULT = new UrlCanonicalizer(EnumSet.allOf(Rule.class));
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    private static final int KEPT_ESCAPE = 0x10000; // Sort key offset of escapes that stay encoded
+
+    private final Set<Rule> rules;
+    private final boolean lowercaseHost;
+    private final boolean removeTrailingDot;
+    private final boolean removeDefaultPort;
+    private final boolean removeDotSegments;
+    private final boolean normalizeEscapes;
+    private final boolean emptyPathAsSlash;
+    private final boolean sortQuery;
+    private final boolean removeEmptyQuery;
+    private final boolean removeFragment;
+
+
+    public UrlCanonicalizer(final Set<Rule> rules) {
+        if (rules == null) {
+            throw new IllegalArgumentException("Rules must not be null");
+        }
+        this.rules = rules.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(EnumSet.copyOf(rules));
+        this.lowercaseHost = rules.contains(Rule.LOWERCASE_HOST);
+        this.removeTrailingDot = rules.contains(Rule.REMOVE_TRAILING_DOT);
+        this.removeDefaultPort = rules.contains(Rule.REMOVE_DEFAULT_PORT);
+        this.removeDotSegments = rules.contains(Rule.REMOVE_DOT_SEGMENTS);
+        this.normalizeEscapes = rules.contains(Rule.NORMALIZE_PERCENT_ENCODING);
+        this.emptyPathAsSlash = rules.contains(Rule.EMPTY_PATH_AS_SLASH);
+        this.sortQuery = rules.contains(Rule.SORT_QUERY);
+        this.removeEmptyQuery = rules.contains(Rule.REMOVE_EMPTY_QUERY);
+        this.removeFragment = rules.contains(Rule.REMOVE_FRAGMENT);
+    }
+
+    public String canonicalize(final ParsedUrl url) {
+        final StringBuilder sb = new StringBuilder(url.getUrl().length());
+        this.write(url, sb::append);
+        return sb.toString();
+    }
+
+    /**
+     * First 64 bits of fingerprint128()
+     */
+    public long fingerprint64(final ParsedUrl url) {
+        final Murmur3Hasher hasher = new Murmur3Hasher();
+        this.write(url, hasher);
+        return hasher.h1();
+    }
+
+    /**
+     * @return both 64 bit halves, in Guava's byte order (little endian h1, then h2)
+     */
+    public long[] fingerprint128(final ParsedUrl url) {
+        final Murmur3Hasher hasher = new Murmur3Hasher();
+        this.write(url, hasher);
+        return new long[]{hasher.h1(), hasher.h2()};
+    }
+
+    public Set<Rule> getRules() {
+        return this.rules;
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // HELPERS
+    // ------------------------------------------------------------------------------------------ //
+
+    private void write(final ParsedUrl parsed, final CharSink sink) {
+        final String url = parsed.getUrl();
+
+        // Protocol is always lower case already
+        final int hostStart = parsed.hostStart();
+        for (int i = 0; i < hostStart; i++) {
+            sink.put(url.charAt(i));
+        }
+
+        int hostEnd = parsed.hostEnd();
+        if (this.removeTrailingDot && hostEnd > hostStart + 1 && url.charAt(hostEnd - 1) == '.') {
+            hostEnd--;
+        }
+        for (int i = hostStart; i < hostEnd; i++) {
+            final char c = url.charAt(i);
+            sink.put(this.lowercaseHost && c >= 'A' && c <= 'Z' ? (char) (c + 32) : c);
+        }
+
+        final int port = parsed.port();
+        final boolean defaultPort = port == (hostStart == 7 ? 80 : 443);
+        if (port != -1 && !(this.removeDefaultPort && defaultPort)) {
+            sink.put(':');
+            for (int divisor = port >= 10000 ? 10000 : port >= 1000 ? 1000 : port >= 100 ? 100 : port >= 10 ? 10 : 1; divisor > 0; divisor /= 10) {
+                sink.put((char) ('0' + port / divisor % 10));
+            }
+        }
+
+        this.writePath(url, parsed.pathStart(), parsed.pathEnd(), sink);
+
+        final int queryStart = parsed.queryStart();
+        if (queryStart >= 0) {
+            this.writeQuery(url, queryStart, parsed.queryEnd(), sink);
+        }
+
+        final int anchorStart = parsed.anchorStart();
+        if (anchorStart >= 0 && !this.removeFragment) {
+            sink.put('#');
+            this.writeEscaped(url, anchorStart, url.length(), sink);
+        }
+    }
+
+    private void writePath(final String url, final int from, final int to, final CharSink sink) {
+        if (from == to) {
+            if (this.emptyPathAsSlash) {
+                sink.put('/');
+            }
+            return;
+        }
+        if (!this.removeDotSegments || url.charAt(from) != '/') {
+            this.writeEscaped(url, from, to, sink);
+            return;
+        }
+
+        // RFC 3986 5.2.4 on segments. Stack holds [start, end) of the segments kept so far
+        final int[] stack = new int[to - from + 1 << 1];
+        int size = 0;
+        int segmentStart = from + 1;
+        while (segmentStart <= to) {
+            int segmentEnd = url.indexOf('/', segmentStart);
+            if (segmentEnd < 0 || segmentEnd > to) {
+                segmentEnd = to;
+            }
+            final boolean last = segmentEnd == to;
+            final int dots = this.dots(url, segmentStart, segmentEnd);
+            if (dots == 2 && size > 0) {
+                size -= 2;
+            }
+            if (dots == 0) {
+                stack[size++] = segmentStart;
+                stack[size++] = segmentEnd;
+            } else if (last) {
+                // "/a/." and "/a/b/.." keep the trailing slash
+                stack[size++] = segmentEnd;
+                stack[size++] = segmentEnd;
+            }
+            segmentStart = segmentEnd + 1;
+        }
+        for (int i = 0; i < size; i += 2) {
+            sink.put('/');
+            this.writeEscaped(url, stack[i], stack[i + 1], sink);
+        }
+    }
+
+    private void writeQuery(final String url, final int from, final int to, final CharSink sink) {
+        if (from == to) {
+            if (!this.removeEmptyQuery) {
+                sink.put('?');
+            }
+            return;
+        }
+        sink.put('?');
+        if (!this.sortQuery) {
+            this.writeEscaped(url, from, to, sink);
+            return;
+        }
+
+        // [start, end) of every parameter, sorted by their canonical form
+        int count = 1;
+        for (int i = from; i < to; i++) {
+            if (url.charAt(i) == '&') {
+                count++;
+            }
+        }
+        final int[] starts = new int[count];
+        final int[] ends = new int[count];
+        int start = from;
+        for (int n = 0; n < count; n++) {
+            int end = url.indexOf('&', start);
+            if (end < 0 || end > to) {
+                end = to;
+            }
+            starts[n] = start;
+            ends[n] = end;
+            start = end + 1;
+        }
+        final int[] order = this.sortParameters(url, starts, ends);
+        for (int n = 0; n < count; n++) {
+            if (n > 0) {
+                sink.put('&');
+            }
+            this.writeEscaped(url, starts[order[n]], ends[order[n]], sink);
+        }
+    }
+
+    /**
+     * Stable, insertion sort for the usual handful of parameters
+     */
+    private int[] sortParameters(final String url, final int[] starts, final int[] ends) {
+        final int count = starts.length;
+        if (count > 32) {
+            final Integer[] boxed = new Integer[count];
+            for (int i = 0; i < count; i++) {
+                boxed[i] = i;
+            }
+            Arrays.sort(boxed, (a, b) -> this.compare(url, starts[a], ends[a], starts[b], ends[b]));
+            final int[] order = new int[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = boxed[i];
+            }
+            return order;
+        }
+        final int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            final int current = i;
+            int j = i - 1;
+            while (j >= 0 && this.compare(url, starts[order[j]], ends[order[j]], starts[current], ends[current]) > 0) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = current;
+        }
+        return order;
+    }
+
+    /**
+     * Compares by canonical form, i.e. escapes that get decoded compare as the char they stand for
+     */
+    private int compare(final String url, int a, final int aEnd, int b, final int bEnd) {
+        while (a < aEnd && b < bEnd) {
+            final int unitA = this.unit(url, a);
+            final int unitB = this.unit(url, b);
+            if (unitA != unitB) {
+                return unitA - unitB;
+            }
+            a += url.charAt(a) == '%' && this.normalizeEscapes ? 3 : 1;
+            b += url.charAt(b) == '%' && this.normalizeEscapes ? 3 : 1;
+        }
+        return Boolean.compare(a < aEnd, b < bEnd);
+    }
+
+    private int unit(final String url, final int i) {
+        final char c = url.charAt(i);
+        if (c != '%' || !this.normalizeEscapes) {
+            return c;
+        }
+        final int value = decode(url, i);
+        return isUnreserved(value) ? value : KEPT_ESCAPE + value;
+    }
+
+    /**
+     * 1 for ".", 2 for "..", 0 otherwise. Encoded dots count if escapes are normalized
+     */
+    private int dots(final String url, final int from, final int to) {
+        int dots = 0;
+        int i = from;
+        while (i < to) {
+            if (url.charAt(i) == '.') {
+                i++;
+            } else if (this.normalizeEscapes && url.charAt(i) == '%' && decode(url, i) == '.') {
+                i += 3;
+            } else {
+                return 0;
+            }
+            if (++dots > 2) {
+                return 0;
+            }
+        }
+        return dots;
+    }
+
+    private void writeEscaped(final String url, final int from, final int to, final CharSink sink) {
+        if (!this.normalizeEscapes) {
+            for (int i = from; i < to; i++) {
+                sink.put(url.charAt(i));
+            }
+            return;
+        }
+        int i = from;
+        while (i < to) {
+            final char c = url.charAt(i);
+            if (c != '%') {
+                sink.put(c);
+                i++;
+                continue;
+            }
+            // Escapes are always valid here, ParsedUrl rejects malformed ones
+            final int value = decode(url, i);
+            if (isUnreserved(value)) {
+                sink.put((char) value);
+            } else {
+                sink.put('%');
+                sink.put(HEX[value >>> 4]);
+                sink.put(HEX[value & 0xF]);
+            }
+            i += 3;
+        }
+    }
+
+    private static int decode(final String url, final int i) {
+        return Character.digit(url.charAt(i + 1), 16) << 4 | Character.digit(url.charAt(i + 2), 16);
+    }
+
+    /**
+     * RFC 3986 unreserved: ALPHA / DIGIT / "-" / "." / "_" / "~"
+     */
+    private static boolean isUnreserved(final int c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '-' || c == '.' || c == '_' || c == '~';
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // INNER OBJECTS
+    // ------------------------------------------------------------------------------------------ //
+
+    public enum Rule {
+        /** `Google.COM` - `google.com` (ASCII only) */
+        LOWERCASE_HOST,
+        /** `google.com.` - `google.com` */
+        REMOVE_TRAILING_DOT,
+        /** `http://google.com:80` - `http://google.com`, same for https and 443 */
+        REMOVE_DEFAULT_PORT,
+        /** `/a/./b/../c` - `/a/c` */
+        REMOVE_DOT_SEGMENTS,
+        /** `%7e` - `~`, `%2f` - `%2F`. Only unreserved chars are decoded */
+        NORMALIZE_PERCENT_ENCODING,
+        /** `http://google.com` - `http://google.com/` */
+        EMPTY_PATH_AS_SLASH,
+        /** `?b=1&a=2&a=1` - `?a=1&a=2&b=1`, whole parameters are compared (after NORMALIZE_PERCENT_ENCODING if set) */
+        SORT_QUERY,
+        /** `/a?` - `/a` */
+        REMOVE_EMPTY_QUERY,
+        /** `/a#top` - `/a` */
+        REMOVE_FRAGMENT
+    }
+
+    /**
+     * Receives the canonical url char by char
+     */
+    interface CharSink {
+        void put(char c);
+    }
+
+}
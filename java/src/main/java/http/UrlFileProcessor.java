@@ -0,0 +1,292 @@
+package http;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs ParsedUrl over newline-delimited URL files of any size.<br>
+ * - The input is memory-mapped in line-aligned chunks, which are parsed in parallel on a fixed pool of workers<br>
+ * - Results are written in input order, one line per input line (see below)<br>
+ * - Only a bounded number of chunks is in flight at once, as many as fit into half the heap (at most 2 per worker),
+ * so memory stays bounded regardless of the file size<br>
+ * - Lines are parsed with a ParsedUrlView per chunk, no ParsedUrl objects are created<br>
+ * <pre>
+ * OUTPUT (tab separated):
+ * OK                   url   domain   tld    - e.g. OK   http://www.google.com   google.com   com
+ * ParseError name      input                 - e.g. BAD_PROTOCOL   ftp://google.com
+ * Rejected input is escaped like in Java strings: \t \r \\ and other control chars as unicode escapes
+ *
+ * USAGE:
+ * java -cp ... http.UrlFileProcessor urls.txt results.tsv
+ * </pre>
+ * Lines end with \n, a trailing \r is dropped. Input must be UTF-8.
+ */
+public final class UrlFileProcessor {
+
+    private static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+    private static final int MIN_CHUNK_SIZE = 64 * 1024;
+    // Worst case heap per input byte of a chunk: ~2 output chars per byte, UTF-16, StringBuilder growth slack
+    private static final int HEAP_PER_BYTE = 8;
+    private static final int INITIAL_OUTPUT = 8192;
+
+    private final int threads;
+    private final int chunkSize;
+
+
+    public UrlFileProcessor() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param threads   number of parsing workers
+     * @param chunkSize maximum bytes per chunk (smaller for small files, so all workers get some), chunks are extended
+     *                  to the end of their last line
+     */
+    public UrlFileProcessor(final int threads, final int chunkSize) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Threads must be > 0, provided: " + threads);
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be > 0, provided: " + chunkSize);
+        }
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+    }
+
+    public static void main(final String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: UrlFileProcessor <input file> <output file>");
+            System.exit(2);
+        }
+        final Summary summary = new UrlFileProcessor().process(Paths.get(args[0]), Paths.get(args[1]));
+        System.err.println(summary);
+    }
+
+    /**
+     * Parses every line of input and writes the results to output (created or overwritten).
+     */
+    public Summary process(final Path input, final Path output) throws IOException {
+        final long start = System.nanoTime();
+        final Summary summary = new Summary();
+        final ExecutorService workers = Executors.newFixedThreadPool(this.threads, r -> {
+            final Thread thread = new Thread(r, "url-file-processor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (final FileChannel channel = FileChannel.open(input, StandardOpenOption.READ);
+             final Writer out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(output), StandardCharsets.UTF_8), 1 << 16)) {
+
+            final long size = channel.size();
+            final long chunkSize = Math.min(this.chunkSize, Math.max(MIN_CHUNK_SIZE, size / (this.threads * 4L)));
+            final ArrayDeque<Future<Chunk>> pending = new ArrayDeque<>();
+            final int maxPending = (int) Math.max(1, Math.min(this.threads * 2L,
+                    Runtime.getRuntime().maxMemory() / 2 / (chunkSize * HEAP_PER_BYTE)));
+            long position = 0;
+            while (position < size || !pending.isEmpty()) {
+                // Keep the workers busy, but never more than maxPending chunks in memory
+                while (position < size && pending.size() < maxPending) {
+                    final long chunkStart = position;
+                    final long chunkEnd = lineStart(channel, Math.min(size, chunkStart + chunkSize), size);
+                    pending.add(workers.submit(() -> parseChunk(channel, chunkStart, chunkEnd)));
+                    position = chunkEnd;
+                }
+                final Chunk chunk = pending.poll().get();
+                out.append(chunk.output);
+                summary.add(chunk);
+            }
+            summary.bytes = size;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while processing " + input, e);
+        } catch (final ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+        summary.nanos = System.nanoTime() - start;
+        return summary;
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // HELPERS
+    // ------------------------------------------------------------------------------------------ //
+
+    private static Chunk parseChunk(final FileChannel channel, final long from, final long to) throws IOException {
+        final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+        final Chunk chunk = new Chunk((int) (to - from));
+        final int limit = buffer.limit();
+        int lineStart = 0;
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            final int next = lineEnd + 1;
+            if (lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+            chunk.add(buffer.slice(lineStart, lineEnd - lineStart));
+            lineStart = next;
+        }
+        return chunk;
+    }
+
+    /**
+     * First line start at or after position.
+     */
+    private static long lineStart(final FileChannel channel, final long position, final long size) throws IOException {
+        if (position >= size) {
+            return size;
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long p = position - 1;
+        while (p < size) {
+            buffer.clear();
+            final int read = channel.read(buffer, p);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return p + i + 1;
+                }
+            }
+            p += read;
+        }
+        return size;
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // INNER OBJECTS
+    // ------------------------------------------------------------------------------------------ //
+
+    /**
+     * Results of one chunk, written by a single worker.
+     */
+    private static final class Chunk {
+
+        private final StringBuilder output;
+        private final ParsedUrlView view = new ParsedUrlView();
+        private final long[] errors = new long[ParsedUrl.ParseError.values().length];
+        private long lines;
+        private long valid;
+
+        Chunk(final int bytes) {
+            this.output = new StringBuilder(Math.min(bytes, INITIAL_OUTPUT));
+        }
+
+        void add(final ByteBuffer line) {
+            this.lines++;
+            if (this.view.parseUtf8(line)) {
+                this.valid++;
+                this.view.appendUrl(this.output.append("OK\t")).append('\t');
+                if (this.view.getDomain() != null) {
+                    this.output.append(this.view.getDomain());
+                }
+                this.output.append('\t');
+                if (this.view.getTld() != null) {
+                    this.output.append(this.view.getTld());
+                }
+            } else {
+                this.errors[this.view.getError().ordinal()]++;
+                appendEscaped(this.output.append(this.view.getError().name()).append('\t'), StandardCharsets.UTF_8.decode(line));
+            }
+            this.output.append('\n');
+        }
+
+        /**
+         * Keeps rejected input in its column, also if it contains tabs or control chars.
+         */
+        private static void appendEscaped(final StringBuilder sb, final CharSequence s) {
+            for (int i = 0; i < s.length(); i++) {
+                final char c = s.charAt(i);
+                if (c == '\t') {
+                    sb.append("\\t");
+                } else if (c == '\r') {
+                    sb.append("\\r");
+                } else if (c == '\\') {
+                    sb.append("\\\\");
+                } else if (c < 0x20 || c == 0x7f) {
+                    sb.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xf, 16));
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Counts and throughput of one process() run.
+     */
+    public static final class Summary {
+
+        private final long[] errors = new long[ParsedUrl.ParseError.values().length];
+        private long lines;
+        private long valid;
+        private long bytes;
+        private long nanos;
+
+        private void add(final Chunk chunk) {
+            this.lines += chunk.lines;
+            this.valid += chunk.valid;
+            for (int i = 0; i < this.errors.length; i++) {
+                this.errors[i] += chunk.errors[i];
+            }
+        }
+
+        public long getLines() {
+            return this.lines;
+        }
+
+        public long getValid() {
+            return this.valid;
+        }
+
+        public long getErrors(final ParsedUrl.ParseError error) {
+            return this.errors[error.ordinal()];
+        }
+
+        public long getBytes() {
+            return this.bytes;
+        }
+
+        public long getNanos() {
+            return this.nanos;
+        }
+
+        @Override
+        public String toString() {
+            final double seconds = Math.max(this.nanos, 1) / 1e9;
+            final StringBuilder sb = new StringBuilder();
+            sb.append(String.format(Locale.ROOT, "%,d lines (%,d valid) in %.2f s, %,.0f lines/s, %.1f MB/s",
+                    this.lines, this.valid, seconds, this.lines / seconds, this.bytes / seconds / 1e6));
+            for (final ParsedUrl.ParseError error : ParsedUrl.ParseError.values()) {
+                if (this.errors[error.ordinal()] > 0) {
+                    sb.append(String.format(Locale.ROOT, "%n  %-20s %,d", error, this.errors[error.ordinal()]));
+                }
+            }
+            return sb.toString();
+        }
+
+    }
+
+}
@@ -0,0 +1,263 @@
+package http;
+
+import java.util.Locale;
+
+/**
+ * Reference resolution of RFC 3986 (section 5.2) against a base ParsedUrl, see ParsedUrl.resolve().<br>
+ * - The reference is split without regex, the target is built from the base's components and parsed once. The base
+ * itself is never parsed again<br>
+ * - Targets on the base's host take domain + TLD from the base instead of resolving them again<br>
+ * - Dot segments are removed as in RFC 3986 5.2.4, only literal dots count (no `%2e`, unlike UrlCanonicalizer)<br>
+ * - Like browsers: leading / trailing whitespace and control chars of the reference are ignored, schemes are case
+ * insensitive and `http:g` on an http base is relative. Schemes other than http and https are BAD_PROTOCOL<br>
+ * Not thread-safe. Reuses its buffers and scanner between references, create one per base and thread.
+ */
+final class UrlResolver {
+
+    private final ParsedUrl base;
+    private final String baseUrl;
+    private final String baseHost;
+    private final StringBuilder target = new StringBuilder(128);
+    private final StringBuilder merged = new StringBuilder(64);
+    private UrlScanner scanner;
+
+    // Components of the current reference. Indexes into it, -1 if undefined
+    private int schemeEnd; // ':'
+    private int authorityStart; // First char after "//"
+    private int pathStart;
+    private int pathEnd;
+    private int queryStart; // First char after '?'
+    private int queryEnd;
+    private int fragmentStart; // First char after '#'
+
+
+    UrlResolver(final ParsedUrl base) {
+        this.base = base;
+        this.baseUrl = base.getUrl();
+        this.baseHost = base.getHost();
+    }
+
+    ParsedUrl.ParseResult resolve(final CharSequence reference) {
+        if (reference == null) {
+            return this.parse(null);
+        }
+        int begin = 0;
+        int end = reference.length();
+        while (begin < end && reference.charAt(begin) <= ' ') {
+            begin++;
+        }
+        while (end > begin && reference.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        this.split(reference, begin, end);
+
+        final StringBuilder sb = this.target;
+        sb.setLength(0);
+        if (this.schemeEnd >= 0) {
+            final String scheme = reference.subSequence(begin, this.schemeEnd).toString().toLowerCase(Locale.ROOT);
+            if (!scheme.equals("http") && !scheme.equals("https")) {
+                return ParsedUrl.ParseResult.invalid(ParsedUrl.ParseError.BAD_PROTOCOL,
+                        "Protocol is not http or https, provided URL: " + reference);
+            }
+            if (this.authorityStart < 0 && scheme.equals(this.base.getProtocol())) {
+                this.schemeEnd = -1; // Same scheme, no authority: relative (RFC 3986 5.2.2, non-strict)
+            } else {
+                sb.append(scheme).append(':');
+            }
+        }
+
+        if (this.schemeEnd >= 0 || this.authorityStart >= 0) {
+            if (this.schemeEnd < 0) {
+                sb.append(this.baseUrl, 0, this.base.hostStart() - 2); // "http:"
+            }
+            if (this.authorityStart >= 0) {
+                sb.append("//").append(reference, this.authorityStart, this.pathStart);
+            }
+            this.removeDotSegments(reference, this.pathStart, this.pathEnd);
+            this.appendQuery(reference);
+        } else {
+            this.appendBaseAuthority();
+            if (this.pathStart == this.pathEnd) {
+                sb.append(this.baseUrl, this.base.pathStart(), this.base.pathEnd());
+                if (this.queryStart >= 0) {
+                    this.appendQuery(reference);
+                } else if (this.base.queryStart() >= 0) {
+                    sb.append('?').append(this.baseUrl, this.base.queryStart(), this.base.queryEnd());
+                }
+            } else {
+                if (reference.charAt(this.pathStart) == '/') {
+                    this.removeDotSegments(reference, this.pathStart, this.pathEnd);
+                } else {
+                    this.merge(reference);
+                    this.removeDotSegments(this.merged, 0, this.merged.length());
+                }
+                this.appendQuery(reference);
+            }
+        }
+        if (this.fragmentStart >= 0) {
+            sb.append('#').append(reference, this.fragmentStart, end);
+        }
+        return this.parse(sb);
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // HELPERS
+    // ------------------------------------------------------------------------------------------ //
+
+    /**
+     * RFC 3986 appendix B, without the regex: scheme ":" "//" authority path "?" query "#" fragment
+     */
+    private void split(final CharSequence reference, final int begin, final int end) {
+        this.schemeEnd = -1;
+        if (begin < end && isAlpha(reference.charAt(begin))) {
+            for (int i = begin + 1; i < end; i++) {
+                final char c = reference.charAt(i);
+                if (c == ':') {
+                    this.schemeEnd = i;
+                    break;
+                }
+                if (!isAlpha(c) && !(c >= '0' && c <= '9') && c != '+' && c != '-' && c != '.') {
+                    break;
+                }
+            }
+        }
+
+        int i = this.schemeEnd >= 0 ? this.schemeEnd + 1 : begin;
+        this.authorityStart = -1;
+        if (i + 1 < end && reference.charAt(i) == '/' && reference.charAt(i + 1) == '/') {
+            i += 2;
+            this.authorityStart = i;
+            while (i < end && reference.charAt(i) != '/' && reference.charAt(i) != '?' && reference.charAt(i) != '#') {
+                i++;
+            }
+        }
+        this.pathStart = i;
+        while (i < end && reference.charAt(i) != '?' && reference.charAt(i) != '#') {
+            i++;
+        }
+        this.pathEnd = i;
+        this.queryStart = -1;
+        if (i < end && reference.charAt(i) == '?') {
+            this.queryStart = ++i;
+            while (i < end && reference.charAt(i) != '#') {
+                i++;
+            }
+        }
+        this.queryEnd = i;
+        this.fragmentStart = i < end ? i + 1 : -1;
+    }
+
+    private static boolean isAlpha(final char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    /**
+     * "http://" + userInfo + host + port of the base
+     */
+    private void appendBaseAuthority() {
+        final int hostStart = this.base.hostStart();
+        this.target.append(this.baseUrl, 0, hostStart);
+        if (this.base.getUserInfo() != null) {
+            this.target.append(this.base.getUserInfo()).append('@');
+        }
+        this.target.append(this.baseUrl, hostStart, this.base.pathStart());
+    }
+
+    private void appendQuery(final CharSequence reference) {
+        if (this.queryStart >= 0) {
+            this.target.append('?').append(reference, this.queryStart, this.queryEnd);
+        }
+    }
+
+    /**
+     * RFC 3986 5.2.3: the base path up to its last '/' plus the reference path. The base has an authority, so an
+     * empty base path counts as "/".
+     */
+    private void merge(final CharSequence reference) {
+        this.merged.setLength(0);
+        final int slash = this.baseUrl.lastIndexOf('/', this.base.pathEnd() - 1);
+        if (slash < this.base.pathStart()) {
+            this.merged.append('/');
+        } else {
+            this.merged.append(this.baseUrl, this.base.pathStart(), slash + 1);
+        }
+        this.merged.append(reference, this.pathStart, this.pathEnd);
+    }
+
+    /**
+     * RFC 3986 5.2.4, appends the path without "." and ".." segments to the target
+     */
+    private void removeDotSegments(final CharSequence path, final int from, final int to) {
+        final StringBuilder out = this.target;
+        final int outStart = out.length();
+        int i = from;
+        while (i < to) {
+            if (startsWith(path, i, to, "../")) {
+                i += 3;
+            } else if (startsWith(path, i, to, "./") || startsWith(path, i, to, "/./")) {
+                i += 2;
+            } else if (equals(path, i, to, "/.")) {
+                out.append('/');
+                i = to;
+            } else if (startsWith(path, i, to, "/../")) {
+                removeLastSegment(out, outStart);
+                i += 3;
+            } else if (equals(path, i, to, "/..")) {
+                removeLastSegment(out, outStart);
+                out.append('/');
+                i = to;
+            } else if (equals(path, i, to, ".") || equals(path, i, to, "..")) {
+                i = to;
+            } else {
+                // Move the first segment, incl. its leading '/', to the output
+                int segmentEnd = path.charAt(i) == '/' ? i + 1 : i;
+                while (segmentEnd < to && path.charAt(segmentEnd) != '/') {
+                    segmentEnd++;
+                }
+                out.append(path, i, segmentEnd);
+                i = segmentEnd;
+            }
+        }
+    }
+
+    private static void removeLastSegment(final StringBuilder out, final int outStart) {
+        int i = out.length() - 1;
+        while (i >= outStart && out.charAt(i) != '/') {
+            i--;
+        }
+        out.setLength(Math.max(i, outStart));
+    }
+
+    private static boolean startsWith(final CharSequence chars, final int from, final int to, final String prefix) {
+        if (to - from < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (chars.charAt(from + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equals(final CharSequence chars, final int from, final int to, final String text) {
+        return to - from == text.length() && startsWith(chars, from, to, text);
+    }
+
+    /**
+     * Same as ParseSpliterator: the scanner is reused until an invalid result keeps it
+     */
+    private ParsedUrl.ParseResult parse(final CharSequence url) {
+        if (this.scanner == null) {
+            this.scanner = new UrlScanner();
+            this.scanner.knownHost(this.baseHost, this.base.getDomain(), this.base.getTld());
+        }
+        final ParsedUrl.ParseResult result = ParsedUrl.tryParse(url, this.scanner);
+        if (!result.isValid()) {
+            this.scanner = null;
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,971 @@
+package http;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+
+/**
+ * Single-pass, regex-free parser engine behind ParsedUrl.<br>
+ * Splits a URL candidate into scheme, userinfo, host, port, path, query and fragment in one walk over the chars and
+ * validates every component against the RFC2396 character classes of java.net.URI on the way. Domain and TLD are
+ * resolved via PublicSuffixTrie, or taken from HostCache if enabled.<br>
+ * Accept/reject semantics and error messages mirror the former `java.net.URL` + `URL.toURI()` pipeline, including its
+ * quirks (e.g. `:-1` being accepted as "no port").
+ * <br>
+ * Failures are recorded as ParseError plus positions, messages are only built via errorMessage().<br>
+ * All positions are indexes into the scanned input. Not thread-safe, create one per parse or reuse it per thread.
+ */
+final class UrlScanner {
+
+    static final String IMPLICIT_SCHEME = "http://";
+    private static final String[] SCHEMES = {"http", "https", "ftp", "file", "jar"};
+    // Errors of the URL structure, see urlErrorMessage()
+    private static final int JAR_NO_BANG = 1;
+    private static final int JAR_INVALID = 2;
+    private static final int INVALID_AUTHORITY = 3;
+    private static final int INVALID_HOST = 4;
+    private static final int PORT_FORMAT = 5;
+    private static final int PORT_NEGATIVE = 6;
+    private static final int HOST_CHARACTER = 7;
+
+    // Look-alikes of URL delimiters, see sun.net.util.IPAddressUtil
+    private static final char[] HOST_OTHERS = {
+            8263, 8264, 8265, 8448, 8449, 8453, 8454, 10868,
+            65109, 65110, 65119, 65131, 65283, 65295, 65306, 65311, 65312
+    };
+
+    // Character classes, see java.net.URI. Non-ASCII chars are handled in classOf()
+    private static final byte PATH = 1;
+    private static final byte URIC = 2;
+    private static final byte REG_NAME = 4;
+    private static final byte SERVER = 8;
+    private static final byte ALL = PATH | URIC | REG_NAME | SERVER;
+    private static final byte[] CLASSES = new byte[128];
+
+    static {
+        final String alphanum = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+        final String unreserved = alphanum + "-_.!~*'()";
+        addClass(unreserved + ";/:@&=+$,", PATH);
+        addClass(unreserved + ";/?:@&=+$,[]", URIC);
+        addClass(unreserved + "$,;:@&=+", REG_NAME);
+        addClass(unreserved + ";:&=+$,.:@[]%", SERVER); // '%' is allowed unescaped, see URI.L_SERVER_PERCENT
+    }
+
+    // Legal chars that walk() skips in bulk, whatever ends the component or needs a closer look isn't part of them
+    private static final CharClass PATH_PLAIN = CharClass.of(CLASSES, PATH, "?#%");
+    private static final CharClass QUERY_PLAIN = CharClass.of(CLASSES, URIC, "#%");
+    private static final CharClass FRAGMENT_PLAIN = CharClass.of(CLASSES, URIC, "%");
+
+    // Scanned input
+    private CharSequence input;
+    private int begin;
+    private int end;
+    private boolean implicitScheme;
+    private String protocol;
+
+    // Component bounds, -1 if not present
+    private int authorityStart;
+    private int authorityEnd;
+    private int userInfoEnd;
+    private int hostStart;
+    private int hostEnd;
+    private int port;
+    private int pathStart;
+    private int pathEnd;
+    private int queryStart;
+    private int queryEnd;
+    private int anchorStart;
+
+    // Authority details
+    private boolean unc;
+    private int atCount;
+    private int lastAt;
+
+    // Host, domain + TLD
+    private String host;
+    private String domain;
+    private String tld;
+    private int suffixFailure;
+
+    // Errors
+    private ParsedUrl.ParseError error;
+    private int urlError;
+    private int urlErrorIndex;
+    private int portStart;
+    private int portEnd;
+    private String uriErrorReason;
+    private int uriErrorIndex;
+    private boolean uriFallback;
+    private boolean lineTerminator;
+
+    // Metrics of the current parse, null if disabled
+    private ParseMetrics metrics;
+    private long lapStart;
+
+    // In-place mode: no Strings, host / domain / TLD are offsets into the input, see ParsedUrlView
+    private final boolean inPlace;
+    private final CharSlice hostSlice;
+    private int domainOffset;
+    private int tldOffset;
+
+    // Host whose domain + TLD are already known, see knownHost()
+    private String knownHost;
+    private String knownDomain;
+    private String knownTld;
+
+
+    UrlScanner() {
+        this(false);
+    }
+
+    /**
+     * @param inPlace resolve the domain on the input chars, without creating the host, domain and TLD Strings and
+     *                without HostCache. See materialize().
+     */
+    UrlScanner(final boolean inPlace) {
+        this.inPlace = inPlace;
+        this.hostSlice = inPlace ? new CharSlice() : null;
+    }
+
+    /**
+     * Domain and TLD of a host that was already resolved, e.g. the base URL's when resolving links (UrlResolver).
+     * Parses of exactly that host take them as they are, without suffix lookup. Not used in in-place mode.
+     */
+    void knownHost(final String host, final String domain, final String tld) {
+        this.knownHost = host;
+        this.knownDomain = domain;
+        this.knownTld = tld;
+    }
+
+    /**
+     * Parses the candidate. Returns null if it's a valid URL, otherwise the reason it isn't. The checks happen in the
+     * same order as they always did: URL structure, domain, illegal characters, protocol, port range.
+     */
+    ParsedUrl.ParseError parse(final CharSequence candidate) {
+        final ParseMetrics metrics = ParseMetrics.getDefault();
+        this.metrics = metrics;
+        if (metrics == null) {
+            return this.error = this.parseComponents(candidate);
+        }
+        final long start = System.nanoTime();
+        this.lapStart = start;
+        this.error = this.parseComponents(candidate);
+        metrics.recordResult(this.error, System.nanoTime() - start);
+        return this.error;
+    }
+
+    private ParsedUrl.ParseError parseComponents(final CharSequence candidate) {
+        this.input = candidate;
+        this.host = null;
+        this.domain = null;
+        this.tld = null;
+        if (candidate == null) {
+            return ParsedUrl.ParseError.NULL_INPUT;
+        }
+        final boolean scanned = this.scan(candidate);
+        this.lap(ParseMetrics.Phase.SCAN);
+        if (!scanned) {
+            final boolean port = this.urlError == PORT_FORMAT || this.urlError == PORT_NEGATIVE;
+            return port ? ParsedUrl.ParseError.BAD_PORT : ParsedUrl.ParseError.MALFORMED_URL;
+        }
+        if (this.inPlace) {
+            final ParsedUrl.ParseError error = this.resolveInPlace();
+            if (error != null) {
+                return error;
+            }
+        } else {
+            this.host = this.substring(this.hostStart, this.hostEnd);
+            final boolean known = this.host.equals(this.knownHost);
+            final boolean ipOrLocalhost = !known && isIpOrLocalhost(this.host);
+            this.lap(ParseMetrics.Phase.HOST);
+
+            // Domain + TLD. Nothing to resolve for known hosts, IPs and localhost
+            if (known) {
+                this.domain = this.knownDomain;
+                this.tld = this.knownTld;
+            } else if (ipOrLocalhost) {
+                this.domain = this.host.equals("localhost") ? "localhost" : null;
+            } else {
+                final PublicSuffixTrie trie = PublicSuffixTrie.getDefault();
+                final HostCache cache = HostCache.getDefault();
+                final HostCache.Resolution resolution = cache != null
+                        ? cache.resolve(trie, this.host)
+                        : HostCache.Resolution.of(trie, this.host);
+                this.lap(ParseMetrics.Phase.SUFFIX);
+                if (!resolution.isValid()) {
+                    this.suffixFailure = resolution.failure;
+                    return suffixError(resolution.failure);
+                }
+                this.domain = resolution.domain;
+                this.tld = resolution.tld;
+            }
+        }
+
+        final ParsedUrl.ParseError error = this.validate();
+        this.lap(ParseMetrics.Phase.VALIDATION);
+        return error;
+    }
+
+    /**
+     * Same as the String based resolution in parseComponents(), but on the input chars. Domain and TLD are kept as
+     * offsets into the host, which are the same for the normalized host (see PublicSuffixTrie.normalize()).
+     */
+    private ParsedUrl.ParseError resolveInPlace() {
+        final CharSlice host = this.hostSlice.reset(this.input, this.hostStart, this.hostEnd);
+        final boolean ipOrLocalhost = isIpOrLocalhost(host);
+        this.lap(ParseMetrics.Phase.HOST);
+
+        if (ipOrLocalhost) {
+            final boolean localhost = host.length() == 9 && host.charAt(0) == 'l';
+            this.domainOffset = localhost ? 0 : -1;
+            this.tldOffset = -1;
+        } else {
+            final int tldStart = PublicSuffixTrie.getDefault().registrySuffixStart(host);
+            this.lap(ParseMetrics.Phase.SUFFIX);
+            if (tldStart <= 0) {
+                this.suffixFailure = tldStart;
+                return suffixError(tldStart);
+            }
+            this.domainOffset = PublicSuffixTrie.topDomainStart(host, tldStart);
+            this.tldOffset = tldStart;
+        }
+        return null;
+    }
+
+    /**
+     * After a successful in-place parse: creates host, domain and TLD like a regular parse would have
+     */
+    void materialize() {
+        this.host = this.substring(this.hostStart, this.hostEnd);
+        if (this.domainOffset < 0) {
+            this.domain = null;
+            this.tld = null;
+        } else if (this.tldOffset < 0) {
+            this.domain = this.host; // localhost
+            this.tld = null;
+        } else {
+            final String name = PublicSuffixTrie.normalize(this.host);
+            this.domain = name.substring(this.domainOffset);
+            this.tld = name.substring(this.tldOffset);
+        }
+    }
+
+    private static ParsedUrl.ParseError suffixError(final int failure) {
+        final boolean invalid = failure == PublicSuffixTrie.INVALID || failure == PublicSuffixTrie.TOO_LONG;
+        return invalid ? ParsedUrl.ParseError.INVALID_DOMAIN : ParsedUrl.ParseError.NO_REGISTRY_SUFFIX;
+    }
+
+    /**
+     * Same messages as ParsedUrl always had. Only valid after parse() failed.
+     */
+    String errorMessage() {
+        switch (this.error) {
+            case NULL_INPUT:
+                return "Provided URL must not be null";
+            case INVALID_DOMAIN:
+            case NO_REGISTRY_SUFFIX:
+                return PublicSuffixTrie.describe(this.suffixFailure, this.substring(this.hostStart, this.hostEnd)) + ", provided URL: " + this.input;
+            case ILLEGAL_CHARACTER:
+                return this.uriError(); // Shows full URL
+            case BAD_PROTOCOL:
+                return "Protocol is not http or https, provided URL: " + this.input;
+            case BAD_PORT:
+                return this.urlError == 0 ? "Port must be between 0 - 65535, provided URL: " + this.input
+                        : this.urlErrorMessage() + ", provided URL: " + this.input;
+            default:
+                return this.urlErrorMessage() + ", provided URL: " + this.input;
+        }
+    }
+
+    /**
+     * Keeps a copy of the input if it's mutable, so errorMessage() still works after the caller reused it.
+     */
+    void detach() {
+        if (this.input != null && !(this.input instanceof String)) {
+            this.input = this.input.toString();
+        }
+    }
+
+    /**
+     * Checks that only apply to URLs with a valid host, in the order the former pipeline did them
+     */
+    private ParsedUrl.ParseError validate() {
+        if (this.uriErrorReason != null || (this.uriFallback && this.uriError() != null)) {
+            return ParsedUrl.ParseError.ILLEGAL_CHARACTER;
+        }
+        if (!this.protocol.equals("http") && !this.protocol.equals("https")) {
+            return ParsedUrl.ParseError.BAD_PROTOCOL;
+        }
+        if (this.port == 0 || this.port > 65535) {
+            return ParsedUrl.ParseError.BAD_PORT;
+        }
+        return null;
+    }
+
+    /**
+     * Records the time since the previous lap as phase, if metrics are enabled
+     */
+    private void lap(final ParseMetrics.Phase phase) {
+        if (this.metrics != null) {
+            final long now = System.nanoTime();
+            this.metrics.recordPhase(phase, now - this.lapStart);
+            this.lapStart = now;
+        }
+    }
+
+    /**
+     * Splits the candidate into its components. Returns false if that isn't possible, see urlErrorMessage().
+     * Violations of the URI character classes don't fail the scan, because they are checked after the domain.
+     */
+    private boolean scan(final CharSequence candidate) {
+        this.urlError = 0;
+
+        int begin = 0;
+        int end = candidate.length();
+        while (end > 0 && candidate.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        while (begin < end && candidate.charAt(begin) <= ' ') {
+            begin++;
+        }
+        this.begin = begin;
+        this.end = end;
+
+        // Without a known protocol we assume it's either a raw domain name or has some disallowed protocol (will
+        // fail later). Line terminators after the protocol count as unknown, like in the former regex `^(...)://.*`
+        final int scheme = explicitScheme(candidate, begin, end);
+        this.implicitScheme = true;
+        this.protocol = "http";
+        if (scheme >= 0) {
+            this.implicitScheme = false;
+            this.protocol = SCHEMES[scheme];
+            this.walk(begin + SCHEMES[scheme].length() + 3);
+            if (this.lineTerminator) {
+                this.implicitScheme = true;
+                this.protocol = "http";
+            }
+        }
+        if (this.implicitScheme) {
+            this.walk(begin);
+        }
+
+        return this.splitAuthority();
+    }
+
+    // ------------------------------------------------------------------------------------------ //
+    // RESULTS
+    // ------------------------------------------------------------------------------------------ //
+
+    String protocol() {
+        return this.protocol;
+    }
+
+    String host() {
+        return this.host;
+    }
+
+    String domain() {
+        return this.domain;
+    }
+
+    String tld() {
+        return this.tld;
+    }
+
+    int port() {
+        return this.port;
+    }
+
+    String path() {
+        return this.substring(this.pathStart, this.pathEnd);
+    }
+
+    String query() {
+        return this.queryStart < 0 ? null : this.substring(this.queryStart, this.queryEnd);
+    }
+
+    String anchor() {
+        return this.anchorStart < 0 ? null : this.substring(this.anchorStart, this.end);
+    }
+
+    String userInfo() {
+        return this.userInfoEnd < 0 ? null : this.substring(this.authorityStart, this.userInfoEnd);
+    }
+
+    // Offsets into input(), for in-place access. Same conventions as the fields, -1 if not present
+
+    CharSequence input() {
+        return this.input;
+    }
+
+    int hostStart() {
+        return this.hostStart;
+    }
+
+    int hostEnd() {
+        return this.hostEnd;
+    }
+
+    int pathStart() {
+        return this.pathStart;
+    }
+
+    int pathEnd() {
+        return this.pathEnd;
+    }
+
+    int queryStart() {
+        return this.queryStart;
+    }
+
+    int queryEnd() {
+        return this.queryEnd;
+    }
+
+    int anchorStart() {
+        return this.anchorStart;
+    }
+
+    int end() {
+        return this.end;
+    }
+
+    int userInfoStart() {
+        return this.authorityStart;
+    }
+
+    int userInfoEnd() {
+        return this.userInfoEnd;
+    }
+
+    /**
+     * In-place mode only: start of domain and TLD within the host, -1 if none
+     */
+    int domainOffset() {
+        return this.domainOffset;
+    }
+
+    int tldOffset() {
+        return this.tldOffset;
+    }
+
+    // ------------------------------------------------------------------------------------------ //
+    // ERROR MESSAGES
+    // ------------------------------------------------------------------------------------------ //
+
+    /**
+     * Error of the URL structure (what java.net.URL used to throw), without the ", provided URL: ..." suffix.
+     */
+    private String urlErrorMessage() {
+        switch (this.urlError) {
+            case JAR_NO_BANG:
+                return "no !/ in spec";
+            case JAR_INVALID:
+                final int specStart = this.authorityStart - 2;
+                final int limit = this.anchorStart < 0 ? this.end : this.anchorStart - 1;
+                return "invalid url: " + this.substring(specStart, limit)
+                        + " (java.net.MalformedURLException: no protocol: " + this.substring(specStart, this.urlErrorIndex) + ")";
+            case INVALID_AUTHORITY:
+                return "Invalid authority field: " + this.substring(this.authorityStart, this.authorityEnd);
+            case INVALID_HOST:
+                return "Invalid host: " + this.substring(this.hostStart, this.hostEnd);
+            case PORT_FORMAT:
+                return "Error at index " + (this.urlErrorIndex - this.portStart) + " in: \""
+                        + this.substring(this.portStart, this.portEnd) + "\"";
+            case PORT_NEGATIVE:
+                return "Invalid port number :" + this.port;
+            default:
+                final char c = this.input.charAt(this.urlErrorIndex);
+                if (c < 32 || c == 127) {
+                    return "Illegal character found in host: "
+                            + (c == '\n' ? "LF" : c == '\r' ? "CR" : "control char (code=" + (int) c + ")");
+                }
+                return "Illegal character found in host: '" + c + "'";
+        }
+    }
+
+    /**
+     * Error of the character validation (what URL.toURI() used to throw), formatted like URISyntaxException.
+     */
+    private String uriError() {
+        if (this.uriFallback) {
+            // Brackets within a server-based authority: leave the diagnostics to java.net.URI, it's rare enough
+            try {
+                new URI(this.spec());
+                return null;
+            } catch (final URISyntaxException e) {
+                return e.getMessage();
+            }
+        }
+        if (this.uriErrorReason == null) {
+            return null;
+        }
+        return this.uriErrorReason + " at index " + this.specIndex(this.uriErrorIndex) + ": " + this.spec();
+    }
+
+    /**
+     * The trimmed candidate, prefixed with "http://" if it had no known protocol. This is what error messages refer to.
+     */
+    private String spec() {
+        final String trimmed = this.substring(this.begin, this.end);
+        return this.implicitScheme ? IMPLICIT_SCHEME + trimmed : trimmed;
+    }
+
+    // ------------------------------------------------------------------------------------------ //
+    // SCANNING
+    // ------------------------------------------------------------------------------------------ //
+
+    /**
+     * Walks everything behind "scheme://" once: finds the component bounds and the first illegal character.
+     */
+    private void walk(final int from) {
+        final CharSequence s = this.input;
+        final int end = this.end;
+        this.lineTerminator = false;
+        this.uriErrorReason = null;
+        this.uriErrorIndex = -1;
+        this.uriFallback = false;
+        this.atCount = 0;
+        this.lastAt = -1;
+        this.queryStart = -1;
+        this.queryEnd = -1;
+        this.anchorStart = -1;
+
+        // "scheme:////..." is a UNC name to java.net.URL, i.e. there is no authority at all
+        int p = from;
+        this.authorityStart = from;
+        this.unc = p + 1 < end && s.charAt(p) == '/' && s.charAt(p + 1) == '/';
+
+        // AUTHORITY
+        int serverStop = -1;
+        int regStop = -1;
+        if (!this.unc) {
+            // URI allows a raw '%' in server authorities, unless they start with ']' (quirk of its IPv6 check)
+            final boolean serverEscapes = p < end && s.charAt(p) == ']';
+            for (; p < end; p++) {
+                final char c = s.charAt(p);
+                if (c == '/' || c == '?' || c == '#') {
+                    break;
+                }
+                if (c == '@') {
+                    this.atCount++;
+                    this.lastAt = p;
+                }
+                final int cls = classOf(c);
+                if (c == '%' && serverEscapes && serverStop < 0 && !isEscape(s, p, end)) {
+                    this.uriError("Malformed escape pair", p);
+                }
+                if ((cls & SERVER) == 0) {
+                    this.checkLineTerminator(c);
+                    if (serverStop < 0) {
+                        serverStop = p;
+                    }
+                }
+                if ((cls & REG_NAME) == 0 && regStop < 0) {
+                    if (c != '%') {
+                        regStop = p;
+                    } else if (!isEscape(s, p, end)) {
+                        regStop = p;
+                        this.uriError("Malformed escape pair", p);
+                    }
+                }
+            }
+        }
+        this.authorityEnd = p;
+        if (p > from && regStop >= 0 && this.uriErrorReason == null) {
+            if (serverStop >= 0) {
+                this.uriError("Illegal character in authority", from);
+            } else {
+                this.uriFallback = true;
+            }
+        }
+
+        // PATH
+        this.pathStart = p;
+        for (; (p = PATH_PLAIN.skip(s, p, end)) < end; p++) {
+            final char c = s.charAt(p);
+            if (c == '?' || c == '#') {
+                break;
+            }
+            if ((classOf(c) & PATH) == 0) {
+                this.illegal(s, p, c, "Illegal character in path");
+            }
+        }
+        this.pathEnd = p;
+
+        // QUERY
+        if (p < end && s.charAt(p) == '?') {
+            this.queryStart = ++p;
+            for (; (p = QUERY_PLAIN.skip(s, p, end)) < end; p++) {
+                final char c = s.charAt(p);
+                if (c == '#') {
+                    break;
+                }
+                if ((classOf(c) & URIC) == 0) {
+                    this.illegal(s, p, c, "Illegal character in query");
+                }
+            }
+            this.queryEnd = p;
+        }
+
+        // FRAGMENT
+        if (p < end) {
+            this.anchorStart = ++p;
+            for (; (p = FRAGMENT_PLAIN.skip(s, p, end)) < end; p++) {
+                final char c = s.charAt(p);
+                if ((classOf(c) & URIC) == 0) {
+                    this.illegal(s, p, c, "Illegal character in fragment");
+                }
+            }
+        }
+    }
+
+    /**
+     * Breaks the authority down into userinfo, host and port the way java.net.URL does.
+     */
+    private boolean splitAuthority() {
+        final CharSequence s = this.input;
+        this.port = -1;
+        this.userInfoEnd = -1;
+        this.hostStart = this.authorityEnd;
+        this.hostEnd = this.authorityEnd;
+
+        if (this.protocol.equals("jar")) {
+            return this.splitJar();
+        }
+        if (this.unc || this.atCount > 1) {
+            // "scheme:////..." has no authority and more than one '@' isn't server based. Host stays empty
+            return true;
+        }
+        if (this.atCount == 1) {
+            this.userInfoEnd = this.lastAt;
+            this.hostStart = this.lastAt + 1;
+        } else {
+            this.hostStart = this.authorityStart;
+        }
+
+        if (this.hostStart < this.hostEnd && s.charAt(this.hostStart) == '[') {
+            // IPv6 literal address as specified in RFC2732
+            final int closing = this.indexOf(']', this.hostStart, this.hostEnd);
+            if (closing - this.hostStart <= 2) {
+                return this.fail(INVALID_AUTHORITY, -1);
+            }
+            this.hostEnd = closing + 1;
+            if (!isIPv6Literal(s, this.hostStart + 1, closing)) {
+                return this.fail(INVALID_HOST, -1);
+            }
+            if (this.hostEnd < this.authorityEnd) {
+                if (s.charAt(this.hostEnd) != ':') {
+                    return this.fail(INVALID_AUTHORITY, -1);
+                }
+                if (this.hostEnd + 1 < this.authorityEnd && !this.parsePort(this.hostEnd + 1, this.authorityEnd)) {
+                    return false;
+                }
+            }
+        } else {
+            final int colon = this.indexOf(':', this.hostStart, this.hostEnd);
+            if (colon >= 0) {
+                if (colon + 1 < this.hostEnd && !this.parsePort(colon + 1, this.hostEnd)) {
+                    return false;
+                }
+                this.hostEnd = colon;
+            }
+        }
+
+        if (this.port < -1) {
+            return this.fail(PORT_NEGATIVE, -1);
+        }
+        return this.checkHost();
+    }
+
+    /**
+     * Same as sun.net.util.IPAddressUtil.checkHostString(), which java.net.URL applies to every host.
+     */
+    private boolean checkHost() {
+        for (int i = this.hostStart; i < this.hostEnd; i++) {
+            final char c = this.input.charAt(i);
+            if (c < 32 || c == 127 || (c >= HOST_OTHERS[0] && Arrays.binarySearch(HOST_OTHERS, c) >= 0)) {
+                return this.fail(HOST_CHARACTER, i);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * java.net.URL delegates "jar:" to its own handler, which requires an inner URL. That one can never have a protocol
+     * here because it starts with "//".
+     */
+    private boolean splitJar() {
+        final int limit = this.anchorStart < 0 ? this.end : this.anchorStart - 1;
+        final int specStart = this.authorityStart - 2;
+        for (int bang = limit - 2; bang >= specStart; bang--) {
+            if (this.input.charAt(bang) == '!' && this.input.charAt(bang + 1) == '/') {
+                return this.fail(JAR_INVALID, bang);
+            }
+        }
+        return this.fail(JAR_NO_BANG, -1);
+    }
+
+    /**
+     * Same semantics and messages as Integer.parseInt(CharSequence, int, int, 10), which java.net.URL uses.
+     */
+    private boolean parsePort(final int from, final int to) {
+        final CharSequence s = this.input;
+        this.portStart = from;
+        this.portEnd = to;
+        int i = from;
+        boolean negative = false;
+        int limit = -Integer.MAX_VALUE;
+        final char first = s.charAt(i);
+        if (first < '0') {
+            if (first == '-') {
+                negative = true;
+                limit = Integer.MIN_VALUE;
+            } else if (first != '+') {
+                return this.fail(PORT_FORMAT, i);
+            }
+            i++;
+            if (i == to) {
+                return this.fail(PORT_FORMAT, i);
+            }
+        }
+        final int multmin = limit / 10;
+        int result = 0;
+        while (i < to) {
+            final int digit = Character.digit(s.charAt(i), 10);
+            if (digit < 0 || result < multmin) {
+                return this.fail(PORT_FORMAT, i);
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                return this.fail(PORT_FORMAT, i);
+            }
+            i++;
+            result -= digit;
+        }
+        this.port = negative ? result : -result;
+        return true;
+    }
+
+    // ------------------------------------------------------------------------------------------ //
+    // HELPERS
+    // ------------------------------------------------------------------------------------------ //
+
+    private boolean fail(final int urlError, final int index) {
+        this.urlError = urlError;
+        this.urlErrorIndex = index;
+        return false;
+    }
+
+    private void illegal(final CharSequence s, final int p, final char c, final String reason) {
+        if (c == '%') {
+            if (isEscape(s, p, this.end)) {
+                return;
+            }
+            this.uriError("Malformed escape pair", p);
+            return;
+        }
+        this.checkLineTerminator(c);
+        this.uriError(reason, p);
+    }
+
+    private void uriError(final String reason, final int p) {
+        if (this.uriErrorReason == null) {
+            this.uriErrorReason = reason;
+            this.uriErrorIndex = p;
+        }
+    }
+
+    private void checkLineTerminator(final char c) {
+        if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+            this.lineTerminator = true;
+        }
+    }
+
+    private int specIndex(final int p) {
+        return p - this.begin + (this.implicitScheme ? IMPLICIT_SCHEME.length() : 0);
+    }
+
+    private int indexOf(final char c, final int from, final int to) {
+        for (int i = from; i < to; i++) {
+            if (this.input.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private String substring(final int from, final int to) {
+        return this.input.subSequence(from, to).toString();
+    }
+
+    /**
+     * localhost, IPv4 with octets 0 - 255 or IPv6 in brackets, see IpAddress. The former pattern
+     * `(localhost|\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3})` also took octets > 255 and no IPv6.
+     */
+    private static boolean isIpOrLocalhost(final CharSequence host) {
+        return (host.length() == 9 && "localhost".contentEquals(host)) || IpAddress.isIpHost(host);
+    }
+
+    private static int classOf(final char c) {
+        if (c < 128) {
+            return CLASSES[c];
+        }
+        // Visible non-US-ASCII chars are allowed unescaped
+        return c > 128 && !Character.isSpaceChar(c) && !Character.isISOControl(c) ? ALL : 0;
+    }
+
+    private static boolean isEscape(final CharSequence s, final int p, final int end) {
+        return p + 3 <= end && isHex(s.charAt(p + 1)) && isHex(s.charAt(p + 2));
+    }
+
+    private static boolean isHex(final char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    private static int explicitScheme(final CharSequence s, final int begin, final int end) {
+        for (int i = 0; i < SCHEMES.length; i++) {
+            final String scheme = SCHEMES[i];
+            final int n = scheme.length();
+            if (end - begin < n + 3) {
+                continue;
+            }
+            int j = 0;
+            while (j < n && s.charAt(begin + j) == scheme.charAt(j)) {
+                j++;
+            }
+            if (j == n && s.charAt(begin + n) == ':' && s.charAt(begin + n + 1) == '/' && s.charAt(begin + n + 2) == '/') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Same acceptance as sun.net.util.IPAddressUtil.isIPv6LiteralAddress(), which java.net.URL uses for "[...]" hosts.
+     */
+    static boolean isIPv6Literal(final CharSequence s, final int from, final int to) {
+        if (to - from < 2) {
+            return false;
+        }
+        int limit = to;
+        for (int i = from; i < to; i++) {
+            if (s.charAt(i) == '%') {
+                if (i == to - 1) {
+                    return false;
+                }
+                limit = i;
+                break;
+            }
+        }
+
+        int i = from;
+        int bytes = 0;
+        int gap = -1;
+        if (s.charAt(i) == ':' && s.charAt(++i) != ':') {
+            return false;
+        }
+        int token = i;
+        boolean sawDigit = false;
+        int value = 0;
+        while (i < limit) {
+            final char c = s.charAt(i++);
+            final int digit = hexValue(c);
+            if (digit != -1) {
+                value = (value << 4) | digit;
+                if (value > 0xffff) {
+                    return false;
+                }
+                sawDigit = true;
+                continue;
+            }
+            if (c == ':') {
+                token = i;
+                if (!sawDigit) {
+                    if (gap != -1) {
+                        return false;
+                    }
+                    gap = bytes;
+                    continue;
+                } else if (i == limit) {
+                    return false;
+                }
+                if (bytes + 2 > 16) {
+                    return false;
+                }
+                bytes += 2;
+                sawDigit = false;
+                value = 0;
+                continue;
+            }
+            if (c == '.' && bytes + 4 <= 16) {
+                if (!isIPv4Literal(s, token, limit)) {
+                    return false;
+                }
+                bytes += 4;
+                sawDigit = false;
+                break;
+            }
+            return false;
+        }
+        if (sawDigit) {
+            if (bytes + 2 > 16) {
+                return false;
+            }
+            bytes += 2;
+        }
+        if (gap != -1) {
+            return bytes != 16;
+        }
+        return bytes == 16;
+    }
+
+    /**
+     * Strict dotted quad A.B.C.D as accepted within IPv6 literals.
+     */
+    private static boolean isIPv4Literal(final CharSequence s, final int from, final int to) {
+        if (to - from == 0 || to - from > 15) {
+            return false;
+        }
+        int dots = 0;
+        long value = 0;
+        boolean newOctet = true;
+        for (int i = from; i < to; i++) {
+            final char c = s.charAt(i);
+            if (c == '.') {
+                if (newOctet || value > 0xff || dots == 3) {
+                    return false;
+                }
+                dots++;
+                value = 0;
+                newOctet = true;
+            } else if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                newOctet = false;
+            } else {
+                return false;
+            }
+        }
+        return dots == 3 && !newOctet && value <= 0xff;
+    }
+
+    private static int hexValue(final char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private static void addClass(final String chars, final byte cls) {
+        for (int i = 0; i < chars.length(); i++) {
+            CLASSES[chars.charAt(i)] |= cls;
+        }
+    }
+
+}
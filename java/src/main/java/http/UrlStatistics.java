@@ -0,0 +1,685 @@
+package http;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collector;
+
+/**
+ * Approximate statistics over a stream of URLs in fixed memory, e.g. for crawl monitoring.<br>
+ * - Top domains and TLDs by URL count: a Count-Min sketch counts every key, a bounded min-heap keeps the keys with
+ * the highest estimates. Estimates never undercount and overcount by at most ~e * count / width (probability
+ * 1 - e^-depth)<br>
+ * - Distinct hosts, overall and per TLD: HyperLogLog, ~1.04 / sqrt(2^precision) relative error. Only TLDs have
+ * their own HyperLogLog, so the count of those is bounded by the public suffix list. They stay sparse, 4 bytes per
+ * used register, until a quarter of the 2^precision registers are used: the long tail of TLDs with few hosts costs
+ * little, only TLDs with thousands of hosts take the full 2^precision bytes<br>
+ * - Mergeable: one instance per thread (see collector()) or node, combined with merge(). toBytes() / fromBytes() is
+ * a compact form for shipping them between nodes, mostly empty sketches take only a few bytes<br>
+ * - Hosts without domain (IPs, localhost) only count towards getCount() and the overall distinct hosts
+ * <pre>
+ * UrlStatistics stats = ParsedUrl.parseAll(lines).filter(ParseResult::isValid).map(ParseResult::getUrl)
+ *         .collect(UrlStatistics.collector());
+ * stats.getTopDomains(10);              - e.g. [google.com=1042, github.com=977, ...]
+ * stats.getDistinctHosts("co.uk");      - e.g. 1200
+ * </pre>
+ * Not thread-safe, merge per-thread instances instead.
+ */
+public final class UrlStatistics {
+
+    private static final int MAGIC = 0x55535431; // "UST1"
+
+    private final int capacity;
+    private final int width;
+    private final int depth;
+    private final int precision;
+
+    private long count;
+    private final HeavyHitters domains;
+    private final HeavyHitters tlds;
+    private final HyperLogLog hosts;
+    private final Map<String, HyperLogLog> tldHosts = new HashMap<>();
+    private final long[] hashes = new long[2]; // Scratch for add()
+
+
+    /**
+     * Top 256 keys, sketches of width 8192 and depth 4, HyperLogLogs with 2^12 registers (~1.6% error)
+     */
+    public UrlStatistics() {
+        this(256, 1 << 13, 4, 12);
+    }
+
+    /**
+     * @param capacity  how many top keys are kept, per domain and TLD
+     * @param width     counters per sketch row, rounded up to a power of two
+     * @param depth     sketch rows, 1 - 16
+     * @param precision 4 - 18, HyperLogLogs have 2^precision registers of one byte
+     */
+    public UrlStatistics(final int capacity, final int width, final int depth, final int precision) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1, provided: " + capacity);
+        }
+        if (width < 1 || width > 1 << 24) {
+            throw new IllegalArgumentException("Width must be within 1 - 2^24, provided: " + width);
+        }
+        if (depth < 1 || depth > 16) {
+            throw new IllegalArgumentException("Depth must be within 1 - 16, provided: " + depth);
+        }
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException("Precision must be within 4 - 18, provided: " + precision);
+        }
+        this.capacity = capacity;
+        this.width = width == 1 ? 1 : Integer.highestOneBit(width - 1) << 1;
+        this.depth = depth;
+        this.precision = precision;
+        this.domains = new HeavyHitters(capacity, this.width, depth);
+        this.tlds = new HeavyHitters(capacity, this.width, depth);
+        this.hosts = new HyperLogLog(precision);
+    }
+
+    /**
+     * Collects into a UrlStatistics with the default configuration, also in parallel
+     */
+    public static Collector<ParsedUrl, ?, UrlStatistics> collector() {
+        return Collector.of(UrlStatistics::new, UrlStatistics::add, UrlStatistics::merge, Collector.Characteristics.UNORDERED);
+    }
+
+    public void add(final ParsedUrl url) {
+        this.count++;
+        final String host = url.getHost();
+        final long hostHash = hash(host, null);
+        this.hosts.add(hostHash);
+
+        final String domain = url.getDomain();
+        final String tld = url.getTld();
+        if (domain == null || tld == null) {
+            return;
+        }
+        hash(domain, this.hashes);
+        this.domains.add(domain, this.hashes[0], this.hashes[1]);
+        hash(tld, this.hashes);
+        this.tlds.add(tld, this.hashes[0], this.hashes[1]);
+        this.tldHosts.computeIfAbsent(tld, key -> new HyperLogLog(this.precision)).add(hostHash);
+    }
+
+    /**
+     * Adds the other statistics to these, the other ones stay unchanged
+     *
+     * @throws IllegalArgumentException if they have a different configuration
+     */
+    public UrlStatistics merge(final UrlStatistics other) {
+        if (this.capacity != other.capacity || this.width != other.width || this.depth != other.depth || this.precision != other.precision) {
+            throw new IllegalArgumentException("Can only merge statistics with the same configuration, provided: " + other.describe()
+                    + ", expected: " + this.describe());
+        }
+        this.count += other.count;
+        this.domains.merge(other.domains);
+        this.tlds.merge(other.tlds);
+        this.hosts.merge(other.hosts);
+        for (final Map.Entry<String, HyperLogLog> entry : other.tldHosts.entrySet()) {
+            this.tldHosts.computeIfAbsent(entry.getKey(), key -> new HyperLogLog(this.precision)).merge(entry.getValue());
+        }
+        return this;
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // GETTER
+    // ------------------------------------------------------------------------------------------ //
+
+    /**
+     * Number of URLs added (exact)
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    /**
+     * @param k at most capacity
+     * @return up to k domains with their estimated URL count, highest first
+     */
+    public List<Map.Entry<String, Long>> getTopDomains(final int k) {
+        return this.domains.top(this.checkK(k));
+    }
+
+    /**
+     * @param k at most capacity
+     * @return up to k TLDs with their estimated URL count, highest first
+     */
+    public List<Map.Entry<String, Long>> getTopTlds(final int k) {
+        return this.tlds.top(this.checkK(k));
+    }
+
+    /**
+     * Estimated URL count of any domain, not only the top ones. Never less than the real count.
+     */
+    public long estimateDomainCount(final String domain) {
+        final long[] hashes = new long[2];
+        hash(domain, hashes);
+        return this.domains.estimate(hashes[0], hashes[1]);
+    }
+
+    /**
+     * Estimated URL count of any TLD, not only the top ones. Never less than the real count.
+     */
+    public long estimateTldCount(final String tld) {
+        final long[] hashes = new long[2];
+        hash(tld, hashes);
+        return this.tlds.estimate(hashes[0], hashes[1]);
+    }
+
+    /**
+     * Estimated number of distinct hosts
+     */
+    public long getDistinctHosts() {
+        return this.hosts.estimate();
+    }
+
+    /**
+     * Estimated number of distinct hosts with that TLD, 0 if it never occurred
+     */
+    public long getDistinctHosts(final String tld) {
+        final HyperLogLog hyperLogLog = this.tldHosts.get(tld);
+        return hyperLogLog == null ? 0 : hyperLogLog.estimate();
+    }
+
+    /**
+     * @return estimated distinct hosts of every TLD that occurred, sorted by TLD
+     */
+    public Map<String, Long> getDistinctHostsPerTld() {
+        final Map<String, Long> result = new TreeMap<>();
+        for (final Map.Entry<String, HyperLogLog> entry : this.tldHosts.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().estimate());
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "UrlStatistics{count=" + this.count + ", distinctHosts=" + this.getDistinctHosts()
+                + ", topDomains=" + this.getTopDomains(Math.min(5, this.capacity))
+                + ", topTlds=" + this.getTopTlds(Math.min(5, this.capacity)) + "}";
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // SERIALIZATION
+    // ------------------------------------------------------------------------------------------ //
+
+    /**
+     * Compact binary form, see fromBytes(). Counters and registers are stored sparse as varints.
+     */
+    public byte[] toBytes() {
+        final Writer out = new Writer();
+        out.writeInt(MAGIC);
+        out.writeVarLong(this.capacity);
+        out.writeVarLong(this.width);
+        out.writeVarLong(this.depth);
+        out.writeVarLong(this.precision);
+        out.writeVarLong(this.count);
+        this.domains.write(out);
+        this.tlds.write(out);
+        this.hosts.write(out);
+        out.writeVarLong(this.tldHosts.size());
+        for (final Map.Entry<String, HyperLogLog> entry : this.tldHosts.entrySet()) {
+            out.writeString(entry.getKey());
+            entry.getValue().write(out);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the bytes aren't from toBytes()
+     */
+    public static UrlStatistics fromBytes(final byte[] bytes) {
+        final ByteBuffer in = ByteBuffer.wrap(bytes);
+        try {
+            if (in.remaining() < 4 || in.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Not serialized UrlStatistics");
+            }
+            final UrlStatistics stats = new UrlStatistics(readVarInt(in), readVarInt(in), readVarInt(in), readVarInt(in));
+            stats.count = readVarLong(in);
+            stats.domains.read(in);
+            stats.tlds.read(in);
+            stats.hosts.read(in);
+            final int tldCount = readVarInt(in);
+            for (int i = 0; i < tldCount; i++) {
+                final HyperLogLog hyperLogLog = new HyperLogLog(stats.precision);
+                stats.tldHosts.put(readString(in), hyperLogLog);
+                hyperLogLog.read(in);
+            }
+            if (in.hasRemaining()) {
+                throw new IllegalArgumentException("Trailing bytes after serialized UrlStatistics: " + in.remaining());
+            }
+            return stats;
+        } catch (final BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated or corrupt UrlStatistics", e);
+        }
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // HELPERS
+    // ------------------------------------------------------------------------------------------ //
+
+    private int checkK(final int k) {
+        if (k < 0 || k > this.capacity) {
+            throw new IllegalArgumentException("k must be within 0 - " + this.capacity + ", provided: " + k);
+        }
+        return k;
+    }
+
+    private String describe() {
+        return "capacity=" + this.capacity + ", width=" + this.width + ", depth=" + this.depth + ", precision=" + this.precision;
+    }
+
+    /**
+     * Murmur3 of the chars, both halves into hashes if given
+     *
+     * @return the first half
+     */
+    private static long hash(final String s, final long[] hashes) {
+        final Murmur3Hasher hasher = new Murmur3Hasher();
+        for (int i = 0; i < s.length(); i++) {
+            hasher.put(s.charAt(i));
+        }
+        final long h1 = hasher.h1();
+        if (hashes != null) {
+            hashes[0] = h1;
+            hashes[1] = hasher.h2();
+        }
+        return h1;
+    }
+
+    private static long readVarLong(final ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in serialized UrlStatistics");
+    }
+
+    private static int readVarInt(final ByteBuffer in) {
+        final long value = readVarLong(in);
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Value out of range in serialized UrlStatistics: " + value);
+        }
+        return (int) value;
+    }
+
+    private static String readString(final ByteBuffer in) {
+        final byte[] bytes = new byte[readVarInt(in)];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // INNER OBJECTS
+    // ------------------------------------------------------------------------------------------ //
+
+    /**
+     * Count-Min sketch plus the capacity keys with the highest estimates, in a min-heap so the smallest one is evicted
+     * first. Row i uses the index h1 + i * h2 (Kirsch-Mitzenmacher).
+     */
+    private static final class HeavyHitters {
+
+        private final int capacity;
+        private final int mask;
+        private final int depth;
+        private final long[] counters;
+
+        // Min-heap on the estimates, index maps each key to its heap position
+        private final String[] keys;
+        private final long[] estimates;
+        private final Map<String, Integer> index = new HashMap<>();
+        private int size;
+
+        private HeavyHitters(final int capacity, final int width, final int depth) {
+            this.capacity = capacity;
+            this.mask = width - 1;
+            this.depth = depth;
+            this.counters = new long[width * depth];
+            this.keys = new String[capacity];
+            this.estimates = new long[capacity];
+        }
+
+        private void add(final String key, final long h1, final long h2) {
+            long estimate = Long.MAX_VALUE;
+            for (int row = 0; row < this.depth; row++) {
+                final int i = this.slot(row, h1, h2);
+                estimate = Math.min(estimate, ++this.counters[i]);
+            }
+            this.offer(key, estimate);
+        }
+
+        private long estimate(final long h1, final long h2) {
+            long estimate = Long.MAX_VALUE;
+            for (int row = 0; row < this.depth; row++) {
+                estimate = Math.min(estimate, this.counters[this.slot(row, h1, h2)]);
+            }
+            return estimate;
+        }
+
+        /**
+         * Counters are summed, the top keys of both are re-estimated on the merged counters
+         */
+        private void merge(final HeavyHitters other) {
+            for (int i = 0; i < this.counters.length; i++) {
+                this.counters[i] += other.counters[i];
+            }
+            final Set<String> candidates = new LinkedHashSet<>(Arrays.asList(this.keys).subList(0, this.size));
+            candidates.addAll(Arrays.asList(other.keys).subList(0, other.size));
+            this.index.clear();
+            this.size = 0;
+            final long[] hashes = new long[2];
+            for (final String key : candidates) {
+                hash(key, hashes);
+                this.offer(key, this.estimate(hashes[0], hashes[1]));
+            }
+        }
+
+        private List<Map.Entry<String, Long>> top(final int k) {
+            final List<Map.Entry<String, Long>> top = new ArrayList<>(this.size);
+            for (int i = 0; i < this.size; i++) {
+                top.add(Map.entry(this.keys[i], this.estimates[i]));
+            }
+            top.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()).thenComparing(Map.Entry.comparingByKey()));
+            return top.subList(0, Math.min(k, top.size()));
+        }
+
+        private void write(final Writer out) {
+            int nonZero = 0;
+            for (final long counter : this.counters) {
+                nonZero += counter != 0 ? 1 : 0;
+            }
+            out.writeVarLong(nonZero);
+            int last = -1;
+            for (int i = 0; i < this.counters.length; i++) {
+                if (this.counters[i] != 0) {
+                    out.writeVarLong(i - last - 1);
+                    out.writeVarLong(this.counters[i]);
+                    last = i;
+                }
+            }
+            out.writeVarLong(this.size);
+            for (int i = 0; i < this.size; i++) {
+                out.writeString(this.keys[i]);
+            }
+        }
+
+        private void read(final ByteBuffer in) {
+            final int nonZero = readVarInt(in);
+            int i = -1;
+            for (int n = 0; n < nonZero; n++) {
+                i += readVarInt(in) + 1;
+                this.counters[i] = readVarLong(in);
+            }
+            final int size = readVarInt(in);
+            final long[] hashes = new long[2];
+            for (int n = 0; n < size; n++) {
+                final String key = readString(in);
+                hash(key, hashes);
+                this.offer(key, this.estimate(hashes[0], hashes[1]));
+            }
+        }
+
+        private int slot(final int row, final long h1, final long h2) {
+            return row * (this.mask + 1) + ((int) (h1 + row * h2) & this.mask);
+        }
+
+        /**
+         * Updates the key's estimate, adds it if there's room or it beats the smallest one
+         */
+        private void offer(final String key, final long estimate) {
+            final Integer position = this.index.get(key);
+            if (position != null) {
+                // Estimates only grow, so it can only move down
+                this.estimates[position] = estimate;
+                this.siftDown(position);
+            } else if (this.size < this.capacity) {
+                this.keys[this.size] = key;
+                this.estimates[this.size] = estimate;
+                this.index.put(key, this.size);
+                this.siftUp(this.size++);
+            } else if (estimate > this.estimates[0]) {
+                this.index.remove(this.keys[0]);
+                this.keys[0] = key;
+                this.estimates[0] = estimate;
+                this.index.put(key, 0);
+                this.siftDown(0);
+            }
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                final int parent = (i - 1) >>> 1;
+                if (this.estimates[parent] <= this.estimates[i]) {
+                    return;
+                }
+                this.swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                final int left = 2 * i + 1;
+                if (left >= this.size) {
+                    return;
+                }
+                final int child = left + 1 < this.size && this.estimates[left + 1] < this.estimates[left] ? left + 1 : left;
+                if (this.estimates[i] <= this.estimates[child]) {
+                    return;
+                }
+                this.swap(i, child);
+                i = child;
+            }
+        }
+
+        private void swap(final int i, final int j) {
+            final String key = this.keys[i];
+            final long estimate = this.estimates[i];
+            this.keys[i] = this.keys[j];
+            this.estimates[i] = this.estimates[j];
+            this.keys[j] = key;
+            this.estimates[j] = estimate;
+            this.index.put(this.keys[i], i);
+            this.index.put(this.keys[j], j);
+        }
+    }
+
+    /**
+     * HyperLogLog with one byte registers, linear counting for small cardinalities. 64-bit hashes, so there's no
+     * large range correction.<br>
+     * Starts sparse: only the used registers, as sorted (index &lt;&lt; 8 | rank) ints. Switches to the dense array once
+     * a quarter of the registers are used, where both take the same memory. Most TLDs have few hosts and never do.
+     */
+    private static final class HyperLogLog {
+
+        private final int precision;
+        private byte[] registers; // null while sparse
+        private int[] sparse = new int[4];
+        private int sparseSize;
+
+        private HyperLogLog(final int precision) {
+            this.precision = precision;
+        }
+
+        private void add(final long hash) {
+            final int i = (int) (hash >>> (64 - this.precision));
+            // Guard bit keeps the rank within 64 - precision + 1
+            final int rank = Long.numberOfLeadingZeros(hash << this.precision | 1L << (this.precision - 1)) + 1;
+            this.set(i, rank);
+        }
+
+        private void merge(final HyperLogLog other) {
+            if (other.registers == null) {
+                for (int n = 0; n < other.sparseSize; n++) {
+                    this.set(other.sparse[n] >>> 8, other.sparse[n] & 0xFF);
+                }
+                return;
+            }
+            this.densify();
+            for (int i = 0; i < this.registers.length; i++) {
+                if (other.registers[i] > this.registers[i]) {
+                    this.registers[i] = other.registers[i];
+                }
+            }
+        }
+
+        private long estimate() {
+            final int m = 1 << this.precision;
+            double sum = 0;
+            int zeros = 0;
+            if (this.registers != null) {
+                for (final byte register : this.registers) {
+                    sum += Double.longBitsToDouble((long) (1023 - register) << 52); // 2^-register
+                    zeros += register == 0 ? 1 : 0;
+                }
+            } else {
+                zeros = m - this.sparseSize;
+                sum = zeros;
+                for (int n = 0; n < this.sparseSize; n++) {
+                    sum += Double.longBitsToDouble((long) (1023 - (this.sparse[n] & 0xFF)) << 52);
+                }
+            }
+            final double alpha = m == 16 ? 0.673 : m == 32 ? 0.697 : m == 64 ? 0.709 : 0.7213 / (1 + 1.079 / m);
+            final double estimate = alpha * m * m / sum;
+            if (estimate <= 2.5 * m && zeros > 0) {
+                return Math.round(m * Math.log((double) m / zeros));
+            }
+            return Math.round(estimate);
+        }
+
+        private void write(final Writer out) {
+            if (this.registers == null) {
+                out.writeVarLong(this.sparseSize);
+                int last = -1;
+                for (int n = 0; n < this.sparseSize; n++) {
+                    final int i = this.sparse[n] >>> 8;
+                    out.writeVarLong(i - last - 1);
+                    out.write(this.sparse[n] & 0xFF);
+                    last = i;
+                }
+                return;
+            }
+            int nonZero = 0;
+            for (final byte register : this.registers) {
+                nonZero += register != 0 ? 1 : 0;
+            }
+            out.writeVarLong(nonZero);
+            int last = -1;
+            for (int i = 0; i < this.registers.length; i++) {
+                if (this.registers[i] != 0) {
+                    out.writeVarLong(i - last - 1);
+                    out.write(this.registers[i]);
+                    last = i;
+                }
+            }
+        }
+
+        private void read(final ByteBuffer in) {
+            final int nonZero = readVarInt(in);
+            int i = -1;
+            for (int n = 0; n < nonZero; n++) {
+                i += readVarInt(in) + 1;
+                final byte register = in.get();
+                if (i >= 1 << this.precision || register <= 0 || register > 65 - this.precision) {
+                    throw new IllegalArgumentException("Register out of range in serialized UrlStatistics: " + i + "=" + register);
+                }
+                this.set(i, register);
+            }
+        }
+
+        /**
+         * Raises register i to rank, if that's higher
+         */
+        private void set(final int i, final int rank) {
+            if (this.registers != null) {
+                if (rank > this.registers[i]) {
+                    this.registers[i] = (byte) rank;
+                }
+                return;
+            }
+            int low = 0;
+            int high = this.sparseSize - 1;
+            while (low <= high) {
+                final int middle = (low + high) >>> 1;
+                final int index = this.sparse[middle] >>> 8;
+                if (index < i) {
+                    low = middle + 1;
+                } else if (index > i) {
+                    high = middle - 1;
+                } else {
+                    if (rank > (this.sparse[middle] & 0xFF)) {
+                        this.sparse[middle] = i << 8 | rank;
+                    }
+                    return;
+                }
+            }
+            if (this.sparseSize == this.sparse.length) {
+                if (this.sparseSize >= (1 << this.precision) / 4) {
+                    this.densify();
+                    this.registers[i] = (byte) rank;
+                    return;
+                }
+                this.sparse = Arrays.copyOf(this.sparse, this.sparseSize * 2);
+            }
+            System.arraycopy(this.sparse, low, this.sparse, low + 1, this.sparseSize - low);
+            this.sparse[low] = i << 8 | rank;
+            this.sparseSize++;
+        }
+
+        private void densify() {
+            if (this.registers != null) {
+                return;
+            }
+            this.registers = new byte[1 << this.precision];
+            for (int n = 0; n < this.sparseSize; n++) {
+                this.registers[this.sparse[n] >>> 8] = (byte) (this.sparse[n] & 0xFF);
+            }
+            this.sparse = null;
+            this.sparseSize = 0;
+        }
+    }
+
+    private static final class Writer extends ByteArrayOutputStream {
+
+        private void writeInt(final int value) {
+            this.write(value >>> 24);
+            this.write(value >>> 16);
+            this.write(value >>> 8);
+            this.write(value);
+        }
+
+        private void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                this.write((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            this.write((int) value);
+        }
+
+        private void writeString(final String s) {
+            final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            this.writeVarLong(bytes.length);
+            this.write(bytes, 0, bytes.length);
+        }
+    }
+
+}
@@ -16,15 +16,32 @@
 
 package utils;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
- * Builder Util for validating and setting defaults from builders in a single place
+ * Builder Util for validating and setting defaults from builders in a single place.<br>
+ * For int, long and double values see IntButil, LongButil and DoubleButil, they don't box. For chains that are
+ * applied over and over, see schema().<br>
+ * Failures throw ButilException, an IllegalArgumentException. See stackless() for high failure rates.
  */
 public class Butil<T> {
 
+    private static final int PARALLEL_THRESHOLD = 1 << 13; // Rows, below that validateAllParallel() stays sequential
+    private static final int CHUNK = 1 << 10; // Rows per fork/join leaf
+
     private final T object;
+    private boolean stackless;
 
     private Butil(T object) {
         this.object = object;
@@ -59,41 +76,168 @@ public class Butil<T> {
         return new Butil<>(object, defaultValue);
     }
 
+    /**
+     * Reusable chain, defined once and applied many times. See ButilSchema.
+     */
+    public static <T> ButilSchema.Builder<T> schema() {
+        return new ButilSchema.Builder<>();
+    }
+
+    /**
+     * Validates every row with the schema, without throwing. Invalid rows don't stop the others, see ButilReport.
+     */
+    public static <T> ButilReport validateAll(Collection<? extends T> rows, ButilSchema<T> schema) {
+        return validateAll(rows.stream(), schema);
+    }
+
+    /**
+     * Same as validateAll(Collection), indexes are in encounter order. The stream is consumed sequentially.
+     *
+     * @throws IllegalArgumentException if the stream has more than Integer.MAX_VALUE rows
+     */
+    public static <T> ButilReport validateAll(Stream<? extends T> rows, ButilSchema<T> schema) {
+        int[] indexes = new int[16];
+        List<List<String>> violations = new ArrayList<>();
+        int index = 0;
+        for (Iterator<? extends T> iterator = rows.iterator(); iterator.hasNext(); index++) {
+            if (index == Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Can validate at most " + Integer.MAX_VALUE + " rows");
+            }
+            List<String> rowViolations = violations(schema, iterator.next());
+            if (!rowViolations.isEmpty()) {
+                if (violations.size() == indexes.length) {
+                    indexes = Arrays.copyOf(indexes, indexes.length * 2);
+                }
+                indexes[violations.size()] = index;
+                violations.add(rowViolations);
+            }
+        }
+        return new ButilReport(index, Arrays.copyOf(indexes, violations.size()), violations);
+    }
+
+    /**
+     * Same as validateAll(Collection), but splits large inputs into chunks that are validated by the common
+     * fork/join pool. The schema's checks must be thread-safe.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ButilReport validateAllParallel(Collection<? extends T> rows, ButilSchema<T> schema) {
+        Object[] array = rows.toArray();
+        if (array.length < PARALLEL_THRESHOLD) {
+            return validateAll((List<T>) Arrays.asList(array), schema);
+        }
+        List<List<String>> results = new ArrayList<>(Collections.nCopies(array.length, null));
+        ForkJoinPool.commonPool().invoke(new ValidateTask<>((T[]) array, schema, results, 0, array.length));
+
+        int invalid = 0;
+        for (List<String> result : results) {
+            invalid += result != null ? 1 : 0;
+        }
+        int[] indexes = new int[invalid];
+        List<List<String>> violations = new ArrayList<>(invalid);
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) != null) {
+                indexes[violations.size()] = i;
+                violations.add(results.get(i));
+            }
+        }
+        return new ButilReport(array.length, indexes, violations);
+    }
+
     public Butil<T> isNotNull(String errorMessage) {
         if (this.object == null) {
-            throw new IllegalArgumentException(errorMessage);
+            throw failure(errorMessage, this.stackless);
+        }
+        return this;
+    }
+
+    /**
+     * Same as isNotNull() with a message that's only built on failure
+     */
+    public Butil<T> isNotNull(Supplier<String> errorMessage) {
+        if (this.object == null) {
+            throw failure(errorMessage.get(), this.stackless);
         }
         return this;
     }
 
     public Butil<T> isTrue(Boolean condition, String errorMessage) {
         if (!condition) {
-            throw new IllegalArgumentException(errorMessage);
+            throw failure(errorMessage, this.stackless);
+        }
+        return this;
+    }
+
+    /**
+     * Same as isTrue() with a message that's only built on failure
+     */
+    public Butil<T> isTrue(Boolean condition, Supplier<String> errorMessage) {
+        if (!condition) {
+            throw failure(errorMessage.get(), this.stackless);
         }
         return this;
     }
 
     public Butil<T> isTrue(Predicate<T> predicate, String errorMessage) {
         if (!predicate.test(this.object)) {
-            throw new IllegalArgumentException(errorMessage);
+            throw failure(errorMessage, this.stackless);
+        }
+        return this;
+    }
+
+    /**
+     * Same as isTrue() with a message that's only built on failure
+     */
+    public Butil<T> isTrue(Predicate<T> predicate, Supplier<String> errorMessage) {
+        if (!predicate.test(this.object)) {
+            throw failure(errorMessage.get(), this.stackless);
         }
         return this;
     }
 
     public Butil<T> isFalse(Boolean condition, String errorMessage) {
         if (condition) {
-            throw new IllegalArgumentException(errorMessage);
+            throw failure(errorMessage, this.stackless);
+        }
+        return this;
+    }
+
+    /**
+     * Same as isFalse() with a message that's only built on failure
+     */
+    public Butil<T> isFalse(Boolean condition, Supplier<String> errorMessage) {
+        if (condition) {
+            throw failure(errorMessage.get(), this.stackless);
         }
         return this;
     }
 
     public Butil<T> isFalse(Predicate<T> predicate, String errorMessage) {
         if (predicate.test(this.object)) {
-            throw new IllegalArgumentException(errorMessage);
+            throw failure(errorMessage, this.stackless);
+        }
+        return this;
+    }
+
+    /**
+     * Same as isFalse() with a message that's only built on failure
+     */
+    public Butil<T> isFalse(Predicate<T> predicate, Supplier<String> errorMessage) {
+        if (predicate.test(this.object)) {
+            throw failure(errorMessage.get(), this.stackless);
         }
         return this;
     }
 
+    /**
+     * Failures of this chain throw a ButilException without stack trace, which is much cheaper to create. For hot
+     * paths that reject bad input at high rates, where the trace of the validation isn't of interest. Applies to the
+     * checks after it, other chains keep their stack traces.
+     */
+    public Butil<T> stackless() {
+        this.stackless = true;
+        return this;
+    }
+
     public T get() {
         return this.object;
     }
@@ -102,4 +246,53 @@ public class Butil<T> {
         return function.apply(this.object);
     }
 
+    /**
+     * Never throws, a failing check counts as violation
+     */
+    private static <T> List<String> violations(ButilSchema<T> schema, T row) {
+        try {
+            return schema.violations(row);
+        } catch (RuntimeException e) {
+            return Collections.singletonList(e.toString());
+        }
+    }
+
+    static ButilException failure(String errorMessage, boolean stackless) {
+        return stackless ? new ButilException.Stackless(errorMessage) : new ButilException(errorMessage);
+    }
+
+
+    private static final class ValidateTask<T> extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final T[] rows;
+        private final ButilSchema<T> schema;
+        private final List<List<String>> results; // Fixed size, null for valid rows
+        private final int from;
+        private final int to;
+
+        private ValidateTask(T[] rows, ButilSchema<T> schema, List<List<String>> results, int from, int to) {
+            this.rows = rows;
+            this.schema = schema;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= CHUNK) {
+                for (int i = this.from; i < this.to; i++) {
+                    List<String> violations = violations(this.schema, this.rows[i]);
+                    this.results.set(i, violations.isEmpty() ? null : violations);
+                }
+                return;
+            }
+            int middle = (this.from + this.to) >>> 1;
+            invokeAll(new ValidateTask<>(this.rows, this.schema, this.results, this.from, middle),
+                    new ValidateTask<>(this.rows, this.schema, this.results, middle, this.to));
+        }
+    }
+
 }
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2022 Sergej Schaefer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package utils;
+
+/**
+ * Failed Butil validation. Has no stack trace if the chain or schema was stackless(), see Butil.stackless().
+ */
+public class ButilException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    ButilException(String message) {
+        super(message);
+    }
+
+    /**
+     * Skips filling in the stack trace, which is most of the cost of creating an exception
+     */
+    static final class Stackless extends ButilException {
+
+        private static final long serialVersionUID = 1L;
+
+        Stackless(String message) {
+            super(message);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+}
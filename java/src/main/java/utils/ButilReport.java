@@ -0,0 +1,87 @@
+/*
+ * Copyright 2022 Sergej Schaefer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package utils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of Butil.validateAll(): the violations per row index. Only invalid rows are kept, sorted by index.
+ */
+public final class ButilReport {
+
+    private static final int TO_STRING_ROWS = 10;
+
+    private final long count;
+    private final int[] indexes;
+    private final List<List<String>> violations;
+
+    ButilReport(long count, int[] indexes, List<List<String>> violations) {
+        this.count = count;
+        this.indexes = indexes;
+        this.violations = violations;
+    }
+
+    public boolean isValid() {
+        return this.indexes.length == 0;
+    }
+
+    /**
+     * Number of validated rows
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    public int getInvalidCount() {
+        return this.indexes.length;
+    }
+
+    /**
+     * Indexes of the invalid rows, ascending
+     */
+    public int[] getInvalidIndexes() {
+        return this.indexes.clone();
+    }
+
+    /**
+     * Messages of the row in check order, empty if it's valid. A check that threw counts as a violation with the
+     * exception as message.
+     */
+    public List<String> getViolations(int index) {
+        int i = Arrays.binarySearch(this.indexes, index);
+        return i < 0 ? Collections.emptyList() : Collections.unmodifiableList(this.violations.get(i));
+    }
+
+    /**
+     * Shows the first 10 invalid rows
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("ButilReport{count=").append(this.count)
+                .append(", invalid=").append(this.indexes.length);
+        for (int i = 0; i < Math.min(TO_STRING_ROWS, this.indexes.length); i++) {
+            sb.append(", ").append(this.indexes[i]).append('=').append(this.violations.get(i));
+        }
+        if (this.indexes.length > TO_STRING_ROWS) {
+            sb.append(", ...");
+        }
+        return sb.append('}').toString();
+    }
+
+}
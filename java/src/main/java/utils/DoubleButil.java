@@ -0,0 +1,179 @@
+/*
+ * Copyright 2022 Sergej Schaefer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package utils;
+
+import java.util.function.DoubleFunction;
+import java.util.function.DoublePredicate;
+import java.util.function.Supplier;
+
+/**
+ * Butil for double values, without boxing the value or any of the checks. Nothing escapes a validation chain, so the JIT
+ * removes the instance as well, see ButilBenchmark.
+ */
+public class DoubleButil {
+
+    private final double value;
+    private boolean stackless;
+
+    private DoubleButil(double value) {
+        this.value = value;
+    }
+
+    /**
+     * Same as mandatoryValue() but more descriptive, if you just need an assertion.
+     */
+    public static DoubleButil assertThat(double value) {
+        return new DoubleButil(value);
+    }
+
+    public static DoubleButil mandatoryValue(double value) {
+        return new DoubleButil(value);
+    }
+
+    /**
+     * Value with a default, which makes it optional. Default is used if provided 'object' is NULL. Default value has
+     * to pass all validations.
+     */
+    public static DoubleButil optionalValue(Double object, double defaultValue) {
+        return new DoubleButil(object == null ? defaultValue : object);
+    }
+
+    public DoubleButil isTrue(boolean condition, String errorMessage) {
+        if (!condition) {
+            throw Butil.failure(errorMessage, this.stackless);
+        }
+        return this;
+    }
+
+    /**
+     * Same as isTrue() with a message that's only built on failure
+     */
+    public DoubleButil isTrue(boolean condition, Supplier<String> errorMessage) {
+        if (!condition) {
+            throw Butil.failure(errorMessage.get(), this.stackless);
+        }
+        return this;
+    }
+
+    public DoubleButil isTrue(DoublePredicate predicate, String errorMessage) {
+        if (!predicate.test(this.value)) {
+            throw Butil.failure(errorMessage, this.stackless);
+        }
+        return this;
+    }
+
+    /**
+     * Same as isTrue() with a message that's only built on failure
+     */
+    public DoubleButil isTrue(DoublePredicate predicate, Supplier<String> errorMessage) {
+        if (!predicate.test(this.value)) {
+            throw Butil.failure(errorMessage.get(), this.stackless);
+        }
+        return this;
+    }
+
+    public DoubleButil isFalse(boolean condition, String errorMessage) {
+        if (condition) {
+            throw Butil.failure(errorMessage, this.stackless);
+        }
+        return this;
+    }
+
+    /**
+     * Same as isFalse() with a message that's only built on failure
+     */
+    public DoubleButil isFalse(boolean condition, Supplier<String> errorMessage) {
+        if (condition) {
+            throw Butil.failure(errorMessage.get(), this.stackless);
+        }
+        return this;
+    }
+
+    public DoubleButil isFalse(DoublePredicate predicate, String errorMessage) {
+        if (predicate.test(this.value)) {
+            throw Butil.failure(errorMessage, this.stackless);
+        }
+        return this;
+    }
+
+    /**
+     * Same as isFalse() with a message that's only built on failure
+     */
+    public DoubleButil isFalse(DoublePredicate predicate, Supplier<String> errorMessage) {
+        if (predicate.test(this.value)) {
+            throw Butil.failure(errorMessage.get(), this.stackless);
+        }
+        return this;
+    }
+
+    /**
+     * min <= value <= max, NaN never is
+     */
+    public DoubleButil inRange(double min, double max, String errorMessage) {
+        if (!(this.value >= min && this.value <= max)) {
+            throw Butil.failure(errorMessage, this.stackless);
+        }
+        return this;
+    }
+
+    /**
+     * Same as inRange() with a message that's only built on failure
+     */
+    public DoubleButil inRange(double min, double max, Supplier<String> errorMessage) {
+        if (!(this.value >= min && this.value <= max)) {
+            throw Butil.failure(errorMessage.get(), this.stackless);
+        }
+        return this;
+    }
+
+    /**
+     * value > 0, NaN never is
+     */
+    public DoubleButil positive(String errorMessage) {
+        if (!(this.value > 0)) {
+            throw Butil.failure(errorMessage, this.stackless);
+        }
+        return this;
+    }
+
+    /**
+     * Same as positive() with a message that's only built on failure
+     */
+    public DoubleButil positive(Supplier<String> errorMessage) {
+        if (!(this.value > 0)) {
+            throw Butil.failure(errorMessage.get(), this.stackless);
+        }
+        return this;
+    }
+
+    /**
+     * Failures of this chain throw without stack trace, see Butil.stackless()
+     */
+    public DoubleButil stackless() {
+        this.stackless = true;
+        return this;
+    }
+
+    public double get() {
+        return this.value;
+    }
+
+    public <R> R map(DoubleFunction<R> function) {
+        return function.apply(this.value);
+    }
+
+}
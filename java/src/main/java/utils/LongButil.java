@@ -0,0 +1,179 @@
+/*
+ * Copyright 2022 Sergej Schaefer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package utils;
+
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+import java.util.function.Supplier;
+
+/**
+ * Butil for long values, without boxing the value or any of the checks. Nothing escapes a validation chain, so the JIT
+ * removes the instance as well, see ButilBenchmark.
+ */
+public class LongButil {
+
+    private final long value;
+    private boolean stackless;
+
+    private LongButil(long value) {
+        this.value = value;
+    }
+
+    /**
+     * Same as mandatoryValue() but more descriptive, if you just need an assertion.
+     */
+    public static LongButil assertThat(long value) {
+        return new LongButil(value);
+    }
+
+    public static LongButil mandatoryValue(long value) {
+        return new LongButil(value);
+    }
+
+    /**
+     * Value with a default, which makes it optional. Default is used if provided 'object' is NULL. Default value has
+     * to pass all validations.
+     */
+    public static LongButil optionalValue(Long object, long defaultValue) {
+        return new LongButil(object == null ? defaultValue : object);
+    }
+
+    public LongButil isTrue(boolean condition, String errorMessage) {
+        if (!condition) {
+            throw Butil.failure(errorMessage, this.stackless);
+        }
+        return this;
+    }
+
+    /**
+     * Same as isTrue() with a message that's only built on failure
+     */
+    public LongButil isTrue(boolean condition, Supplier<String> errorMessage) {
+        if (!condition) {
+            throw Butil.failure(errorMessage.get(), this.stackless);
+        }
+        return this;
+    }
+
+    public LongButil isTrue(LongPredicate predicate, String errorMessage) {
+        if (!predicate.test(this.value)) {
+            throw Butil.failure(errorMessage, this.stackless);
+        }
+        return this;
+    }
+
+    /**
+     * Same as isTrue() with a message that's only built on failure
+     */
+    public LongButil isTrue(LongPredicate predicate, Supplier<String> errorMessage) {
+        if (!predicate.test(this.value)) {
+            throw Butil.failure(errorMessage.get(), this.stackless);
+        }
+        return this;
+    }
+
+    public LongButil isFalse(boolean condition, String errorMessage) {
+        if (condition) {
+            throw Butil.failure(errorMessage, this.stackless);
+        }
+        return this;
+    }
+
+    /**
+     * Same as isFalse() with a message that's only built on failure
+     */
+    public LongButil isFalse(boolean condition, Supplier<String> errorMessage) {
+        if (condition) {
+            throw Butil.failure(errorMessage.get(), this.stackless);
+        }
+        return this;
+    }
+
+    public LongButil isFalse(LongPredicate predicate, String errorMessage) {
+        if (predicate.test(this.value)) {
+            throw Butil.failure(errorMessage, this.stackless);
+        }
+        return this;
+    }
+
+    /**
+     * Same as isFalse() with a message that's only built on failure
+     */
+    public LongButil isFalse(LongPredicate predicate, Supplier<String> errorMessage) {
+        if (predicate.test(this.value)) {
+            throw Butil.failure(errorMessage.get(), this.stackless);
+        }
+        return this;
+    }
+
+    /**
+     * min <= value <= max
+     */
+    public LongButil inRange(long min, long max, String errorMessage) {
+        if (this.value < min || this.value > max) {
+            throw Butil.failure(errorMessage, this.stackless);
+        }
+        return this;
+    }
+
+    /**
+     * Same as inRange() with a message that's only built on failure
+     */
+    public LongButil inRange(long min, long max, Supplier<String> errorMessage) {
+        if (this.value < min || this.value > max) {
+            throw Butil.failure(errorMessage.get(), this.stackless);
+        }
+        return this;
+    }
+
+    /**
+     * value > 0
+     */
+    public LongButil positive(String errorMessage) {
+        if (this.value <= 0) {
+            throw Butil.failure(errorMessage, this.stackless);
+        }
+        return this;
+    }
+
+    /**
+     * Same as positive() with a message that's only built on failure
+     */
+    public LongButil positive(Supplier<String> errorMessage) {
+        if (this.value <= 0) {
+            throw Butil.failure(errorMessage.get(), this.stackless);
+        }
+        return this;
+    }
+
+    /**
+     * Failures of this chain throw without stack trace, see Butil.stackless()
+     */
+    public LongButil stackless() {
+        this.stackless = true;
+        return this;
+    }
+
+    public long get() {
+        return this.value;
+    }
+
+    public <R> R map(LongFunction<R> function) {
+        return function.apply(this.value);
+    }
+
+}
@@ -0,0 +1,90 @@
+package http;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+
+public class CharClassTest {
+
+    @Test
+    public void contains() {
+        final byte[] classes = new byte[128];
+        for (final char c : "abc-/?%".toCharArray()) {
+            classes[c] = 1;
+        }
+        classes['~'] = 2;
+        final CharClass set = CharClass.of(classes, 1, "?%");
+        assertThat(set.contains('a'), is(true));
+        assertThat(set.contains('/'), is(true));
+        assertThat(set.contains('?'), is(false));
+        assertThat(set.contains('%'), is(false));
+        assertThat(set.contains('~'), is(false));
+        assertThat(set.contains('d'), is(false));
+        assertThat(set.contains('\u00e9'), is(false));
+    }
+
+    @Test
+    public void skip() {
+        final byte[] classes = new byte[128];
+        for (final char c : "abcdefghijklmnopqrstuvwxyz/".toCharArray()) {
+            classes[c] = 1;
+        }
+        final CharClass set = CharClass.of(classes, 1, "");
+        final String s = "abcdefghij/klmnopqr?stuvwxyz";
+        final CharSequence bytes = AsciiBytes.of(s.getBytes(StandardCharsets.US_ASCII), 0, s.length());
+        assertThat(set.skip(s, 0, s.length()), is(19));
+        assertThat(set.skip(bytes, 0, s.length()), is(19));
+        assertThat(set.skip(bytes, 20, s.length()), is(s.length()));
+        assertThat(set.skip(bytes, 3, 10), is(10));
+        assertThat(set.skip(new StringBuilder(s), 0, s.length()), is(19));
+        assertThat(set.skip("", 0, 0), is(0));
+    }
+
+    @Test
+    public void same_as_contains() {
+        final Random random = new Random(3);
+        for (int round = 0; round < 200; round++) {
+            // Random sets, from a few ranges to scattered chars
+            final byte[] classes = new byte[128];
+            final int density = 1 + random.nextInt(10);
+            for (int c = 0; c < 128; c++) {
+                classes[c] = (byte) (random.nextInt(density + 1) == 0 ? 0 : 1);
+            }
+            final CharClass set = CharClass.of(classes, 1, "");
+
+            // Mostly members, so the runs span several words
+            final byte[] chars = new byte[40 + random.nextInt(40)];
+            for (int i = 0; i < chars.length; i++) {
+                char c;
+                do {
+                    c = (char) random.nextInt(128);
+                } while (random.nextInt(20) != 0 && !set.contains(c));
+                chars[i] = (byte) c;
+            }
+            final String s = new String(chars, StandardCharsets.US_ASCII);
+            // Offset into a bigger array, so words aren't aligned with the view
+            final byte[] padded = new byte[chars.length + 5];
+            System.arraycopy(chars, 0, padded, 3, chars.length);
+            final CharSequence bytes = AsciiBytes.of(padded, 3, chars.length);
+            final CharSequence buffer = AsciiBytes.of(ByteBuffer.allocateDirect(chars.length).put(chars).flip());
+
+            for (int from = 0; from <= chars.length; from++) {
+                final int to = from + random.nextInt(chars.length - from + 1);
+                int expected = from;
+                while (expected < to && set.contains(s.charAt(expected))) {
+                    expected++;
+                }
+                assertThat(s, set.skip(s, from, to), is(expected));
+                assertThat(s, set.skip(bytes, from, to), is(expected));
+                assertThat(s, set.skip(buffer, from, to), is(expected));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+package http;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+public class DomainPartitionerTest {
+
+    private static final List<String> NODES = List.of("fetcher-1", "fetcher-2", "fetcher-3", "fetcher-4");
+
+    @Test
+    public void same_domain_same_node() throws Exception {
+        final DomainPartitioner partitioner = new DomainPartitioner(NODES);
+        assertThat(DomainPartitioner.keyOf(new ParsedUrl("https://sub.google.com/a")), is("google.com"));
+        assertThat(DomainPartitioner.keyOf(new ParsedUrl("http://127.0.0.1:8080/a")), is("127.0.0.1"));
+        assertThat(partitioner.nodeFor(new ParsedUrl("https://sub.google.com/a")),
+                is(partitioner.nodeFor(new ParsedUrl("google.com/b?x=1"))));
+
+        // Stable across JVMs and independent of the node order
+        assertThat(partitioner.nodeFor("google.com"), is("fetcher-1"));
+        assertThat(new DomainPartitioner(List.of("fetcher-4", "fetcher-3", "fetcher-2", "fetcher-1")).nodeFor("google.com"),
+                is("fetcher-1"));
+    }
+
+    @Test
+    public void balanced_and_consistent() {
+        final DomainPartitioner partitioner = new DomainPartitioner(NODES);
+        final DomainPartitioner grown = partitioner.withNode("fetcher-5");
+        final Map<String, Integer> counts = new HashMap<>();
+        int moved = 0;
+        final int domains = 100_000;
+        for (int i = 0; i < domains; i++) {
+            final String domain = "domain" + i + ".com";
+            final String node = partitioner.nodeFor(domain);
+            counts.merge(node, 1, Integer::sum);
+            final String newNode = grown.nodeFor(domain);
+            if (!newNode.equals(node)) {
+                assertThat(newNode, is("fetcher-5"));
+                moved++;
+            }
+            assertThat(grown.withoutNode("fetcher-5").nodeFor(domain), is(node));
+        }
+        for (final int count : counts.values()) {
+            assertThat(String.valueOf(count), Math.abs(count - domains / 4) < domains / 4 / 10, is(true));
+        }
+        // ~1/5 of the domains move to the new node
+        assertThat(String.valueOf(moved), Math.abs(moved - domains / 5) < domains / 5 / 10, is(true));
+    }
+
+    @Test
+    public void invalid_config() {
+        assertThrows(IllegalArgumentException.class, () -> new DomainPartitioner(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> new DomainPartitioner(List.of("a", "a")));
+        assertThrows(IllegalArgumentException.class, () -> new DomainPartitioner(NODES, 0));
+        assertThrows(IllegalArgumentException.class, () -> new DomainPartitioner(NODES).withoutNode("b"));
+    }
+
+}
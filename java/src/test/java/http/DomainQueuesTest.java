@@ -0,0 +1,114 @@
+package http;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+
+public class DomainQueuesTest {
+
+    @Test
+    public void round_robin() throws Exception {
+        final DomainQueues<ParsedUrl> queues = new DomainQueues<>();
+        for (final String url : new String[]{"a.com/1", "a.com/2", "a.com/3", "sub.b.com/1", "b.com/2", "c.com/1"}) {
+            final ParsedUrl parsed = new ParsedUrl(url);
+            queues.offer(DomainPartitioner.keyOf(parsed), parsed);
+        }
+        assertThat(queues.size(), is(6L));
+        assertThat(queues.domainCount(), is(3));
+
+        final List<String> order = new ArrayList<>();
+        ParsedUrl url;
+        while ((url = queues.poll()) != null) {
+            order.add(url.getHost() + url.getPath());
+        }
+        assertThat(order, is(List.of("a.com/1", "sub.b.com/1", "c.com/1", "a.com/2", "b.com/2", "a.com/3")));
+
+        // Drained domains are dropped
+        assertThat(queues.isEmpty(), is(true));
+        assertThat(queues.domainCount(), is(0));
+    }
+
+    @Test
+    public void politeness_delay() {
+        final AtomicLong now = new AtomicLong(-500);
+        final DomainQueues<String> queues = new DomainQueues<>(100, TimeUnit.NANOSECONDS, now::get);
+        queues.offer("a.com", "a1");
+        queues.offer("a.com", "a2");
+        queues.offer("b.com", "b1");
+
+        assertThat(queues.poll(), is("a1"));
+        assertThat(queues.poll(), is("b1"));
+        assertThat(queues.poll(), nullValue());
+
+        now.addAndGet(99);
+        assertThat(queues.poll(), nullValue());
+        now.addAndGet(1);
+        assertThat(queues.poll(), is("a2"));
+
+        // a.com is empty but still within its delay, a new item has to wait as well
+        queues.offer("a.com", "a3");
+        assertThat(queues.poll(), nullValue());
+        now.addAndGet(100);
+        assertThat(queues.poll(), is("a3"));
+        assertThat(queues.poll(), nullValue());
+
+        now.addAndGet(100);
+        assertThat(queues.poll(), nullValue());
+        assertThat(queues.domainCount(), is(0));
+    }
+
+    @Test
+    public void concurrent() throws Exception {
+        final DomainQueues<Integer> queues = new DomainQueues<>();
+        final Set<Integer> polled = ConcurrentHashMap.newKeySet();
+        final int producers = 4;
+        final int perProducer = 50_000;
+        final List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    final int item = producer * perProducer + i;
+                    queues.offer("domain" + (item % 1000), item);
+                }
+            }));
+        }
+        for (int c = 0; c < 4; c++) {
+            threads.add(new Thread(() -> {
+                final Set<Integer> local = new HashSet<>();
+                while (polled.size() + local.size() < producers * perProducer) {
+                    final Integer item = queues.poll();
+                    if (item != null) {
+                        assertThat(local.add(item), is(true));
+                    } else {
+                        polled.addAll(local);
+                        local.clear();
+                        Thread.yield();
+                    }
+                }
+                polled.addAll(local);
+            }));
+        }
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(polled.size(), is(producers * perProducer));
+        assertThat(queues.isEmpty(), is(true));
+        assertThat(queues.domainCount(), is(0));
+    }
+
+}
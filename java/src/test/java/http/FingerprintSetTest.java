@@ -0,0 +1,134 @@
+package http;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+
+
+public class FingerprintSetTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void add_and_contains() throws Exception {
+        try (final FingerprintSet set = FingerprintSet.open(this.dir, 1000)) {
+            assertThat(set.addIfAbsent(new ParsedUrl("google.com/a")), is(true));
+            assertThat(set.addIfAbsent(new ParsedUrl("http://Google.com:80/b/../a#top")), is(false));
+            assertThat(set.contains(new ParsedUrl("google.com/a")), is(true));
+            assertThat(set.contains(new ParsedUrl("google.com/b")), is(false));
+
+            assertThat(set.addIfAbsent(0), is(true));
+            assertThat(set.addIfAbsent(0), is(false));
+            assertThat(set.contains(0), is(true));
+            assertThat(set.size(), is(2L));
+        }
+    }
+
+    @Test
+    public void grows_and_survives_reopen() throws Exception {
+        try (final FingerprintSet set = FingerprintSet.open(this.dir, 10)) {
+            for (long i = 1; i <= 500_000; i++) {
+                assertThat(set.addIfAbsent(i * 31), is(true));
+            }
+            assertThat(set.size(), is(500_000L));
+        }
+        try (final FingerprintSet set = FingerprintSet.open(this.dir, 10)) {
+            assertThat(set.size(), is(500_000L));
+            for (long i = 1; i <= 500_000; i++) {
+                assertThat(set.contains(i * 31), is(true));
+                assertThat(set.contains(i * 31 + 1), is(false));
+            }
+            assertThat(set.addIfAbsent(31), is(false));
+        }
+    }
+
+    @Test
+    public void bloom_filter() throws Exception {
+        // Filled without, then opened with a Bloom filter, which has to know all existing entries
+        try (final FingerprintSet set = FingerprintSet.open(this.dir, 1000)) {
+            for (long i = 1; i <= 1000; i++) {
+                set.addIfAbsent(i);
+            }
+        }
+        try (final FingerprintSet set = FingerprintSet.open(this.dir, 10_000, 0.01)) {
+            for (long i = 1; i <= 1000; i++) {
+                assertThat(set.contains(i), is(true));
+            }
+            for (long i = 1001; i <= 2000; i++) {
+                assertThat(set.addIfAbsent(i), is(true));
+            }
+            for (long i = 2001; i <= 3000; i++) {
+                assertThat(set.contains(i), is(false));
+            }
+        }
+        try (final FingerprintSet set = FingerprintSet.open(this.dir, 10_000)) {
+            assertThat(set.contains(1500), is(true));
+            assertThat(set.size(), is(2000L));
+        }
+    }
+
+    @Test
+    public void full_stripe() throws Exception {
+        // Stripe without any empty slot, e.g. written by an older version: probes must still end
+        final ByteBuffer full = ByteBuffer.allocate(64 + 1024 * 8);
+        full.putLong(0, 0x4650534554303031L).putLong(8, 1024).putLong(16, 1024);
+        for (int slot = 0; slot < 1024; slot++) {
+            full.putLong(64 + slot * 8, Long.MIN_VALUE + slot);
+        }
+        Files.write(this.dir.resolve("stripe-000.bin"), full.array());
+
+        try (final FingerprintSet set = FingerprintSet.open(this.dir, 1000)) {
+            for (long i = 1; i <= 10_000; i++) {
+                assertThat(set.contains(i), is(false));
+            }
+            // Grows before writing
+            for (long i = 1; i <= 10_000; i++) {
+                assertThat(set.addIfAbsent(i), is(true));
+            }
+            assertThat(set.size(), is(11_024L));
+            assertThat(Files.size(this.dir.resolve("stripe-000.bin")), greaterThan(64L + 1024 * 8));
+        }
+    }
+
+    @Test
+    public void concurrent_addIfAbsent() throws Exception {
+        try (final FingerprintSet set = FingerprintSet.open(this.dir, 100, 0.01)) {
+            final AtomicInteger added = new AtomicInteger();
+            final List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                threads.add(new Thread(() -> {
+                    try {
+                        for (long i = 0; i < 50_000; i++) {
+                            if (set.addIfAbsent(i)) {
+                                added.incrementAndGet();
+                            }
+                        }
+                    } catch (final Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }));
+            }
+            for (final Thread thread : threads) {
+                thread.start();
+            }
+            for (final Thread thread : threads) {
+                thread.join();
+            }
+
+            assertThat(added.get(), is(50_000));
+            assertThat(set.size(), is(50_000L));
+        }
+    }
+
+}
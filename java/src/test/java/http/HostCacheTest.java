@@ -0,0 +1,119 @@
+package http;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+
+public class HostCacheTest {
+
+    private final PublicSuffixTrie trie = PublicSuffixTrie.getDefault();
+
+    @Test
+    public void resolve() {
+        final HostCache cache = new HostCache(100);
+
+        HostCache.Resolution resolution = cache.resolve(this.trie, "www.google.co.uk");
+        assertThat(resolution.domain, is("google.co.uk"));
+        assertThat(resolution.tld, is("co.uk"));
+        assertThat(cache.getMissCount(), is(1L));
+
+        assertThat(cache.resolve(this.trie, "www.google.co.uk"), is(resolution));
+        assertThat(cache.getHitCount(), is(1L));
+
+        // Failures are cached as well
+        resolution = cache.resolve(this.trie, "google.asdf");
+        assertThat(resolution.isValid(), is(false));
+        assertThat(resolution.failure, is(PublicSuffixTrie.NO_SUFFIX));
+        assertThat(resolution.domain, nullValue());
+        assertThat(cache.resolve(this.trie, "google.asdf"), is(resolution));
+        assertThat(cache.getHitCount(), is(2L));
+
+        // Other trie, other result
+        final PublicSuffixTrie other = PublicSuffixTrie.fromLines(List.of("uk"));
+        assertThat(cache.resolve(other, "www.google.co.uk").domain, is("co.uk"));
+        assertThat(cache.getMissCount(), is(3L));
+        assertThat(cache.size(), is(2));
+
+        cache.clear();
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    public void eviction() {
+        final HostCache cache = new HostCache(20);
+        for (int i = 0; i < 100; i++) {
+            cache.resolve(this.trie, "host" + i + ".com");
+        }
+        assertThat(cache.size(), is(20));
+        assertThat(cache.getEvictionCount(), is(80L));
+
+        // Hosts hit twice survive a scan of one-off hosts
+        final HostCache scanResistant = new HostCache(20);
+        for (int i = 0; i < 10; i++) {
+            scanResistant.resolve(this.trie, "hot" + i + ".com");
+            scanResistant.resolve(this.trie, "hot" + i + ".com");
+        }
+        for (int i = 0; i < 1000; i++) {
+            scanResistant.resolve(this.trie, "cold" + i + ".com");
+        }
+        final long hits = scanResistant.getHitCount();
+        for (int i = 0; i < 10; i++) {
+            scanResistant.resolve(this.trie, "hot" + i + ".com");
+        }
+        assertThat(scanResistant.getHitCount() - hits, is(10L));
+    }
+
+    @Test
+    public void concurrent_access() throws Exception {
+        final HostCache cache = new HostCache(64);
+        final AtomicInteger errors = new AtomicInteger();
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            final int seed = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    final int n = (i * 31 + seed) % 200;
+                    if (!cache.resolve(this.trie, "www.host" + n + ".co.uk").domain.equals("host" + n + ".co.uk")) {
+                        errors.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(errors.get(), is(0));
+        assertThat(cache.getHitCount() + cache.getMissCount(), is(160_000L));
+        assertThat(cache.size() <= 64, is(true));
+    }
+
+    @Test
+    public void parsedUrl_uses_default() throws Exception {
+        final HostCache cache = new HostCache(100);
+        HostCache.setDefault(cache);
+        try {
+            assertThat(new ParsedUrl("http://www.google.co.uk").getDomain(), is("google.co.uk"));
+            assertThat(new ParsedUrl("https://mail.google.co.uk/inbox").getTld(), is("co.uk"));
+            assertThat(ParsedUrl.tryParse("http://www.google.co.uk").getUrl().getDomain(), is("google.co.uk"));
+            assertThat(ParsedUrl.tryParse("http://google.asdf").getErrorMessage(),
+                    is("Not under a registry suffix: google.asdf, provided URL: http://google.asdf"));
+            assertThat(ParsedUrl.tryParse("http://127.0.0.1").isValid(), is(true));
+            assertThat(cache.getHitCount(), is(1L));
+            assertThat(cache.getMissCount(), is(3L));
+        } finally {
+            HostCache.setDefault(null);
+        }
+    }
+
+}
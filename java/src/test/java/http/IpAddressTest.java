@@ -0,0 +1,107 @@
+package http;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+
+public class IpAddressTest {
+
+    @Test
+    public void ipv4() {
+        assertThat(IpAddress.parseIpv4("127.0.0.1"), is(0x7f000001L));
+        assertThat(IpAddress.parseIpv4("255.255.255.255"), is(0xffffffffL));
+        assertThat(IpAddress.parseIpv4("0.0.0.0"), is(0L));
+        assertThat(IpAddress.parseIpv4("01.002.03.4"), is(0x01020304L));
+        for (final String invalid : new String[]{"999.1.1.1", "1.2.3.256", "1.2.3", "1.2.3.4.5", "1..2.3", ".1.2.3", "1.2.3.",
+                "0001.2.3.4", "1.2.3.4a", "", "a.b.c.d", "1.2.3.\u0664"}) {
+            assertThat(invalid, IpAddress.parseIpv4(invalid), is(IpAddress.NOT_IPV4));
+        }
+    }
+
+    @Test
+    public void ipv6() {
+        final long[] highLow = new long[2];
+        assertThat(IpAddress.parseIpv6("[2001:db8::1]", highLow), is(true));
+        assertThat(highLow, is(new long[]{0x20010db800000000L, 1}));
+        assertThat(IpAddress.parseIpv6("::", highLow), is(true));
+        assertThat(highLow, is(new long[]{0, 0}));
+        assertThat(IpAddress.parseIpv6("1::", highLow), is(true));
+        assertThat(highLow, is(new long[]{0x0001000000000000L, 0}));
+        assertThat(IpAddress.parseIpv6("::FFFF:1.2.3.4", highLow), is(true));
+        assertThat(highLow, is(new long[]{0, 0x0000ffff01020304L}));
+        assertThat(IpAddress.parseIpv6("1:2:3:4:5:6:7:8", highLow), is(true));
+        assertThat(highLow, is(new long[]{0x0001000200030004L, 0x0005000600070008L}));
+        assertThat(IpAddress.parseIpv6("1:2:3:4:5:6:1.2.3.4", highLow), is(true));
+        assertThat(highLow, is(new long[]{0x0001000200030004L, 0x0005000601020304L}));
+        for (final String invalid : new String[]{"", ":", ":::", "1:2", "1::2::3", "1:2:3:4:5:6:7:8:9", "1:2:3:4:5:6:7::8",
+                "12345::", "::g", "1:", ":1", "::1.2.3", "::1.2.3.4:1", "1:2:3:4:5:6:7:1.2.3.4", "fe80::1%eth0", "[::1",
+                "::\uff11"}) {
+            assertThat(invalid, IpAddress.parseIpv6(invalid, null), is(false));
+        }
+    }
+
+    @Test
+    public void ipv6_same_as_InetAddress() throws Exception {
+        final Random random = new Random(42);
+        final long[] highLow = new long[2];
+        for (int i = 0; i < 10_000; i++) {
+            final int[] groups = new int[8];
+            for (int g = 0; g < 8; g++) {
+                groups[g] = random.nextInt(3) == 0 ? 0 : random.nextInt(0x10000);
+            }
+            // Compress a random run of groups, possibly none or all of them
+            final int from = random.nextInt(8);
+            final int to = from + random.nextInt(8 - from + 1);
+            final StringBuilder text = new StringBuilder();
+            for (int g = 0; g < 8; g++) {
+                if (g >= from && g < to) {
+                    if (g == from) {
+                        text.append(g == 0 ? "::" : ":");
+                    }
+                    groups[g] = 0;
+                    continue;
+                }
+                text.append(Integer.toHexString(groups[g])).append(g < 7 ? ":" : "");
+            }
+            final String address = text.toString();
+            final boolean valid = IpAddress.parseIpv6(address, highLow);
+            final boolean expected = isInet6(address);
+            assertThat(address, valid, is(expected));
+            final byte[] inet = valid ? InetAddress.getByName("[" + address + "]").getAddress() : null;
+            if (inet != null && inet.length == 16) { // IPv4-mapped ones come back as IPv4
+                final ByteBuffer bytes = ByteBuffer.wrap(inet);
+                assertThat(address, highLow, is(new long[]{bytes.getLong(), bytes.getLong()}));
+            }
+        }
+    }
+
+    @Test
+    public void isIpHost() {
+        assertThat(IpAddress.isIpHost("1.2.3.4"), is(true));
+        assertThat(IpAddress.isIpHost("[::1]"), is(true));
+        assertThat(IpAddress.isIpHost("::1"), is(false));
+        assertThat(IpAddress.isIpHost("[1.2.3.4]"), is(false));
+        assertThat(IpAddress.isIpHost("google.com"), is(false));
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // HELPERS
+    // ------------------------------------------------------------------------------------------ //
+
+    private static boolean isInet6(final String address) {
+        try {
+            InetAddress.getByName("[" + address + "]");
+            return true;
+        } catch (final Exception e) {
+            return false;
+        }
+    }
+
+}
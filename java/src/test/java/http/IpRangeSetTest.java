@@ -0,0 +1,81 @@
+package http;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+public class IpRangeSetTest {
+
+    @Test
+    public void cidr() throws Exception {
+        final IpRangeSet set = new IpRangeSet().add("10.0.0.0/8").add("192.168.1.7").add("172.16.0.0/12")
+                .add("fc00::/7").add("[2001:db8::1]");
+        assertThat(set.containsHost("10.255.0.1"), is(true));
+        assertThat(set.containsHost("11.0.0.1"), is(false));
+        assertThat(set.containsHost("192.168.1.7"), is(true));
+        assertThat(set.containsHost("192.168.1.8"), is(false));
+        assertThat(set.containsHost("172.31.255.255"), is(true));
+        assertThat(set.containsHost("172.32.0.0"), is(false));
+        assertThat(set.containsHost("[fd12:3456::1]"), is(true));
+        assertThat(set.containsHost("[fe80::1]"), is(false));
+        assertThat(set.containsHost("[2001:db8::1]"), is(true));
+        assertThat(set.containsHost("[2001:db8::2]"), is(false));
+        assertThat(set.containsHost("[::ffff:10.1.2.3]"), is(true));
+        assertThat(set.containsHost("google.com"), is(false));
+
+        assertThat(set.contains(new ParsedUrl("http://10.1.2.3:8080/a")), is(true));
+        assertThat(set.contains(new ParsedUrl("http://[FD00::1]/a")), is(true));
+        assertThat(set.contains(new ParsedUrl("http://[2001:db8::2]/")), is(false));
+        assertThat(set.contains(new ParsedUrl("http://8.8.8.8/")), is(false));
+        assertThat(set.contains(new ParsedUrl("http://localhost/")), is(false));
+        assertThat(set.contains(new ParsedUrl("http://google.com/")), is(false));
+    }
+
+    @Test
+    public void prefix_lengths() {
+        final IpRangeSet all = new IpRangeSet().add("0.0.0.0/0");
+        assertThat(all.containsIpv4(0xffffffff), is(true));
+        assertThat(all.containsIpv6(1, 1), is(false));
+        // Host bits are ignored, broader ranges cover narrower ones in either order
+        final IpRangeSet set = new IpRangeSet().add("1.2.3.4/16").add("1.2.3.0/24");
+        assertThat(set.containsHost("1.2.200.1"), is(true));
+        assertThat(new IpRangeSet().isEmpty(), is(true));
+        assertThat(set.isEmpty(), is(false));
+
+        assertThrows(IllegalArgumentException.class, () -> new IpRangeSet().add("1.2.3.4/33"));
+        assertThrows(IllegalArgumentException.class, () -> new IpRangeSet().add("::/129"));
+        assertThrows(IllegalArgumentException.class, () -> new IpRangeSet().add("1.2.3.4/"));
+        assertThrows(IllegalArgumentException.class, () -> new IpRangeSet().add("1.2.3.4/x"));
+        assertThrows(IllegalArgumentException.class, () -> new IpRangeSet().add("google.com/8"));
+        assertThrows(IllegalArgumentException.class, () -> new IpRangeSet().addIpv4(0, -1));
+    }
+
+    @Test
+    public void same_as_mask_check() {
+        final Random random = new Random(7);
+        final int[] addresses = new int[200];
+        final int[] lengths = new int[addresses.length];
+        final IpRangeSet set = new IpRangeSet();
+        for (int i = 0; i < addresses.length; i++) {
+            addresses[i] = random.nextInt();
+            lengths[i] = 8 + random.nextInt(25);
+            set.addIpv4(addresses[i], lengths[i]);
+        }
+        for (int i = 0; i < 100_000; i++) {
+            // Half of them close to a range
+            final int address = i % 2 == 0 ? random.nextInt() : addresses[random.nextInt(addresses.length)] ^ (1 << random.nextInt(32));
+            boolean expected = false;
+            for (int r = 0; r < addresses.length && !expected; r++) {
+                final int mask = -1 << (32 - lengths[r]);
+                expected = (address & mask) == (addresses[r] & mask);
+            }
+            assertThat(set.containsIpv4(address), is(expected));
+        }
+    }
+
+}
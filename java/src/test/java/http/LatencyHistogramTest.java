@@ -0,0 +1,44 @@
+package http;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void buckets() {
+        long previous = -1;
+        for (int bucket = 0; bucket < LatencyHistogram.BUCKETS; bucket++) {
+            final long upper = LatencyHistogram.upperBoundOf(bucket);
+            assertThat(LatencyHistogram.bucketOf(previous + 1), is(bucket));
+            assertThat(LatencyHistogram.bucketOf(upper), is(bucket));
+            // At most 1/16 of the value wide
+            assertThat(upper - previous - 1 <= Math.max(0, (previous + 1) / 16), is(true));
+            previous = upper;
+        }
+        assertThat(previous, is(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void percentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        assertThat(histogram.snapshot().getPercentileNanos(99), is(0L));
+        for (long i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000);
+        }
+        histogram.record(-5);
+
+        final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.getCount(), is(1001L));
+        assertThat(snapshot.getMaxNanos(), is(1_000_000L));
+        assertThat(snapshot.getPercentileNanos(0), is(0L));
+        assertThat(snapshot.getPercentileNanos(100), is(1_000_000L));
+        assertThat(Math.abs(snapshot.getPercentileNanos(50) - 500_000) <= 500_000 / 16, is(true));
+        assertThat(Math.abs(snapshot.getPercentileNanos(99) - 990_000) <= 990_000 / 16, is(true));
+        assertThat(Math.round(snapshot.getMeanNanos()), is(Math.round(500_500_000 / 1001.0)));
+    }
+
+}
@@ -0,0 +1,58 @@
+package http;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+
+public class ParseMetricsTest {
+
+    @AfterEach
+    public void tearDown() {
+        ParseMetrics.setDefault(null);
+    }
+
+    @Test
+    public void counts_and_phases() {
+        final ParseMetrics metrics = new ParseMetrics();
+        ParseMetrics.setDefault(metrics);
+        for (final String url : new String[]{"google.com", "http://127.0.0.1/a", "sub.google.co.uk/?x=1", null, "google.asdf",
+                "google.com/ /", "ftp://google.com", "http://google.com:65536", "http://google.com:x", "http://[google.com"}) {
+            ParsedUrl.tryParse(url);
+        }
+
+        final ParseMetrics.Snapshot snapshot = metrics.snapshot();
+        assertThat(snapshot.getValidCount(), is(3L));
+        assertThat(snapshot.getErrorCount(), is(7L));
+        assertThat(snapshot.getErrorCount(ParsedUrl.ParseError.NULL_INPUT), is(1L));
+        assertThat(snapshot.getErrorCount(ParsedUrl.ParseError.NO_REGISTRY_SUFFIX), is(1L));
+        assertThat(snapshot.getErrorCount(ParsedUrl.ParseError.ILLEGAL_CHARACTER), is(1L));
+        assertThat(snapshot.getErrorCount(ParsedUrl.ParseError.BAD_PROTOCOL), is(1L));
+        assertThat(snapshot.getErrorCount(ParsedUrl.ParseError.BAD_PORT), is(2L));
+        assertThat(snapshot.getErrorCount(ParsedUrl.ParseError.MALFORMED_URL), is(1L));
+
+        // Every URL, but each phase only as far as the URLs got
+        assertThat(snapshot.getLatency(ParseMetrics.Phase.TOTAL).getCount(), is(10L));
+        assertThat(snapshot.getLatency(ParseMetrics.Phase.SCAN).getCount(), is(9L));
+        assertThat(snapshot.getLatency(ParseMetrics.Phase.HOST).getCount(), is(7L));
+        assertThat(snapshot.getLatency(ParseMetrics.Phase.SUFFIX).getCount(), is(6L));
+        assertThat(snapshot.getLatency(ParseMetrics.Phase.VALIDATION).getCount(), is(6L));
+
+        metrics.reset();
+        assertThat(metrics.snapshot().getLatency(ParseMetrics.Phase.TOTAL).getCount(), is(0L));
+        assertThat(metrics.snapshot().getErrorCount(), is(0L));
+    }
+
+    @Test
+    public void disabled() {
+        final ParseMetrics metrics = new ParseMetrics();
+        ParseMetrics.setDefault(metrics);
+        ParsedUrl.tryParse("google.com");
+        ParseMetrics.setDefault(null);
+        ParsedUrl.tryParse("google.com");
+        assertThat(metrics.snapshot().getValidCount(), is(1L));
+    }
+
+}
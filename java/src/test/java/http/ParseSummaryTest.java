@@ -0,0 +1,49 @@
+package http;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+
+public class ParseSummaryTest {
+
+    @Test
+    public void summary() {
+        final ParseSummary summary = ParsedUrl.parseAll("google.com", "ftp://google.com", "google.asdf", "https://a.b.co.uk", null)
+                .collect(ParseSummary.collector());
+
+        assertThat(summary.getValidCount(), is(2L));
+        assertThat(summary.getUrls().get(0).getUrl(), is("http://google.com"));
+        assertThat(summary.getUrls().get(1).getDomain(), is("b.co.uk"));
+        assertThat(summary.getErrorCount(), is(3L));
+        assertThat(summary.getErrorCount(ParsedUrl.ParseError.BAD_PROTOCOL), is(1L));
+        assertThat(summary.getErrorCount(ParsedUrl.ParseError.BAD_PORT), is(0L));
+        assertThat(summary.getErrorCounts(), is(Map.of(
+                ParsedUrl.ParseError.BAD_PROTOCOL, 1L,
+                ParsedUrl.ParseError.NO_REGISTRY_SUFFIX, 1L,
+                ParsedUrl.ParseError.NULL_INPUT, 1L)));
+    }
+
+    @Test
+    public void parallel_keeps_order() {
+        final List<String> urls = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            urls.add(i % 10 == 0 ? "http://host" + i + ".com:0" : "host" + i + ".com/" + i);
+        }
+
+        final ParseSummary summary = ParsedUrl.parseAll(urls).parallel().collect(ParseSummary.collector());
+
+        assertThat(summary.getValidCount(), is(90_000L));
+        assertThat(summary.getErrorCount(ParsedUrl.ParseError.BAD_PORT), is(10_000L));
+        final List<String> expected = urls.stream().filter(url -> !url.endsWith(":0")).map(url -> "http://" + url)
+                .collect(Collectors.toList());
+        assertThat(summary.getUrls().stream().map(ParsedUrl::getUrl).collect(Collectors.toList()), is(expected));
+    }
+
+}
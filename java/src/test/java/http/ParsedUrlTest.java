@@ -2,9 +2,18 @@ package http;
 
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 
 public class ParsedUrlTest {
@@ -46,6 +55,36 @@ public class ParsedUrlTest {
 
         assertThat(this.tryToCreateHttpUrl("http://google.com:0"),
                 is("Port must be between 0 - 65535, provided URL: http://google.com:0"));
+
+        assertThat(this.tryToCreateHttpUrl("http://google.com:8a"),
+                is("Error at index 1 in: \"8a\", provided URL: http://google.com:8a"));
+
+        assertThat(this.tryToCreateHttpUrl("http://google.com/a%zz"),
+                is("Malformed escape pair at index 19: http://google.com/a%zz"));
+        assertThat(this.tryToCreateHttpUrl("http://]a%2@google.com"),
+                is("Malformed escape pair at index 9: http://]a%2@google.com"));
+
+        assertThat(this.tryToCreateHttpUrl("http://us er@google.com"),
+                is("Illegal character in authority at index 7: http://us er@google.com"));
+
+        assertThat(this.tryToCreateHttpUrl("http://google.com?q=a b"),
+                is("Illegal character in query at index 21: http://google.com?q=a b"));
+
+        assertThat(this.tryToCreateHttpUrl("http://google.com#a#b"),
+                is("Illegal character in fragment at index 19: http://google.com#a#b"));
+
+        assertThat(this.tryToCreateHttpUrl("http://[::x]/"),
+                is("Invalid host: [::x], provided URL: http://[::x]/"));
+
+        assertThat(this.tryToCreateHttpUrl("http://a@b@google.com"),
+                is("Not a valid domain name: '', provided URL: http://a@b@google.com"));
+
+        assertThat(this.tryToCreateHttpUrl("jar://google.com"),
+                is("no !/ in spec, provided URL: jar://google.com"));
+
+        // Line terminators don't count as explicit protocol, i.e. "http://" gets prepended
+        assertThat(this.tryToCreateHttpUrl("http://goo\ngle.com"),
+                is("Not under a registry suffix: http, provided URL: http://goo\ngle.com"));
     }
 
     @Test
@@ -156,6 +195,10 @@ public class ParsedUrlTest {
     public void specialCase_inputs() throws Exception {
         // Probably bug in java.net.URL. Anything < -1 throws, but -1 is used to signal that there's no port and it gets through
         assertThat(new ParsedUrl("http://google.com:-1").getUrl(), is("http://google.com"));
+        assertThat(new ParsedUrl("http://google.com:").getUrl(), is("http://google.com"));
+
+        // Escapes are validated but kept as they are
+        assertThat(new ParsedUrl("http://google.com/%41").getPath(), is("/%41"));
 
         // IP or localhost
         ParsedUrl httpUrl = new ParsedUrl("http://127.0.0.1:8080/asdf");
@@ -169,6 +212,148 @@ public class ParsedUrlTest {
         assertThat(httpUrl.getDomain(), is("localhost"));
         assertThat(httpUrl.getTld(), nullValue());
         assertThat(httpUrl.getHost(), is("localhost"));
+        assertThat(httpUrl.getHostType(), is(ParsedUrl.HostType.LOCALHOST));
+    }
+
+    @Test
+    public void ip_hosts() throws Exception {
+        ParsedUrl httpUrl = new ParsedUrl("http://10.0.0.255/a");
+        assertThat(httpUrl.getHostType(), is(ParsedUrl.HostType.IPV4));
+        assertThat(httpUrl.getIpv4(), is(0x0a0000ff));
+
+        httpUrl = new ParsedUrl("http://[2001:DB8::ff]:8080/a");
+        assertThat(httpUrl.getHost(), is("[2001:DB8::ff]"));
+        assertThat(httpUrl.getPort(), is(8080));
+        assertThat(httpUrl.getDomain(), nullValue());
+        assertThat(httpUrl.getHostType(), is(ParsedUrl.HostType.IPV6));
+        assertThat(httpUrl.getIpv6High(), is(0x20010db800000000L));
+        assertThat(httpUrl.getIpv6Low(), is(0xffL));
+        assertThrows(IllegalStateException.class, httpUrl::getIpv4);
+
+        httpUrl = new ParsedUrl("google.com");
+        assertThat(httpUrl.getHostType(), is(ParsedUrl.HostType.DOMAIN));
+        assertThrows(IllegalStateException.class, httpUrl::getIpv6High);
+
+        // Octets > 255 aren't an IP (the former regex took them)
+        assertThat(ParsedUrl.tryParse("http://999.1.1.1/").getError(), is(ParsedUrl.ParseError.INVALID_DOMAIN));
+        assertThat(ParsedUrl.tryParse("http://[::g]/").getError(), is(ParsedUrl.ParseError.MALFORMED_URL));
+    }
+
+    @Test
+    public void compact_getters() throws Exception {
+        ParsedUrl httpUrl = new ParsedUrl("https://user:pw@WWW.Google.CO.UK.:8080/a/b?q=1?x#top");
+        assertThat(httpUrl.getUrl(), is("https://WWW.Google.CO.UK.:8080/a/b?q=1?x#top"));
+        assertThat(httpUrl.getProtocol(), is("https"));
+        assertThat(httpUrl.getHost(), is("WWW.Google.CO.UK."));
+        assertThat(httpUrl.getPort(), is(8080));
+        assertThat(httpUrl.getPath(), is("/a/b"));
+        assertThat(httpUrl.getQuery(), is("q=1?x"));
+        assertThat(httpUrl.getAnchor(), is("top"));
+        assertThat(httpUrl.getUserInfo(), is("user:pw"));
+        assertThat(httpUrl.getDomain(), is("google.co.uk"));
+        assertThat(httpUrl.getTld(), is("co.uk"));
+
+        httpUrl = new ParsedUrl("google.com?#");
+        assertThat(httpUrl.getUrl(), is("http://google.com?#"));
+        assertThat(httpUrl.getPort(), nullValue());
+        assertThat(httpUrl.getPath(), is(""));
+        assertThat(httpUrl.getQuery(), is(""));
+        assertThat(httpUrl.getAnchor(), is(""));
+        assertThat(httpUrl.getDomain(), is("google.com"));
+        assertThat(httpUrl.getTld(), is("com"));
+
+        // Equal by normalized url
+        assertThat(new ParsedUrl("google.com/a"), is(new ParsedUrl(" http://google.com/a ")));
+        assertThat(new ParsedUrl("google.com/a").hashCode(), is("http://google.com/a".hashCode()));
+        assertThat(new ParsedUrl("google.com/a").equals(new ParsedUrl("google.com/b")), is(false));
+        assertThat(new ParsedUrl("u@google.com/a").equals(new ParsedUrl("google.com/a")), is(false));
+    }
+
+    @Test
+    public void bytes_inputs() {
+        final String[] urls = {"google.com", " https://user@www.google.co.uk:8080/a%20b?q=%41#top ", "ftp://google.com",
+                "http://google.com:8a", "google.asdf", "http://google.com/a%zz", "http://[::1]", "http://google.com/\\/",
+                "http://b\u00fccher.de/\u00e4", "http://goo\ngle.com", ""};
+        for (final String url : urls) {
+            final String expected = this.describe(ParsedUrl.tryParse(url));
+            final byte[] utf8 = url.getBytes(StandardCharsets.UTF_8);
+
+            final byte[] padded = new byte[utf8.length + 6];
+            System.arraycopy(utf8, 0, padded, 3, utf8.length);
+            assertThat(url, this.describe(ParsedUrl.tryParseUtf8(padded, 3, utf8.length)), is(expected));
+
+            final ByteBuffer heap = ByteBuffer.wrap(padded, 3, utf8.length);
+            assertThat(url, this.describe(ParsedUrl.tryParseUtf8(heap)), is(expected));
+            assertThat(heap.position(), is(3));
+
+            final ByteBuffer direct = ByteBuffer.allocateDirect(padded.length);
+            direct.put(padded).position(3).limit(3 + utf8.length);
+            assertThat(url, this.describe(ParsedUrl.tryParseUtf8(direct)), is(expected));
+            assertThat(direct.position(), is(3));
+        }
+    }
+
+    @Test
+    public void parseAll_inputs() {
+        final List<String> urls = Arrays.asList("google.com", "ftp://google.com", null, "https://www.google.co.uk:8080/a");
+        final List<String> expected = urls.stream().map(url -> this.describe(ParsedUrl.tryParse(url))).collect(Collectors.toList());
+
+        assertThat(ParsedUrl.parseAll(urls).map(this::describe).collect(Collectors.toList()), is(expected));
+        assertThat(ParsedUrl.parseAll(urls.toArray(new String[0])).map(this::describe).collect(Collectors.toList()), is(expected));
+        assertThat(ParsedUrl.parseAll(urls.stream()).map(this::describe).collect(Collectors.toList()), is(expected));
+        assertThat(ParsedUrl.parseAll(urls.parallelStream()).isParallel(), is(true));
+        assertThat(ParsedUrl.parseAll(urls).parallel().map(this::describe).collect(Collectors.toList()), is(expected));
+    }
+
+    @Test
+    public void tryParse_inputs() throws Exception {
+        ParsedUrl.ParseResult result = ParsedUrl.tryParse("google.com/asdf?q=1");
+        assertThat(result.isValid(), is(true));
+        assertThat(result.getUrl().getUrl(), is("http://google.com/asdf?q=1"));
+        assertThat(result.getError(), nullValue());
+        assertThat(result.getErrorMessage(), nullValue());
+        assertThat(result.getOrThrow().getDomain(), is("google.com"));
+
+        assertThat(ParsedUrl.tryParse(null).getError(), is(ParsedUrl.ParseError.NULL_INPUT));
+        assertThat(ParsedUrl.tryParse("http://google.com:8a").getError(), is(ParsedUrl.ParseError.BAD_PORT));
+        assertThat(ParsedUrl.tryParse("http://google.com:0").getError(), is(ParsedUrl.ParseError.BAD_PORT));
+        assertThat(ParsedUrl.tryParse("http://[::x]").getError(), is(ParsedUrl.ParseError.MALFORMED_URL));
+        assertThat(ParsedUrl.tryParse("http://-google.com").getError(), is(ParsedUrl.ParseError.INVALID_DOMAIN));
+        assertThat(ParsedUrl.tryParse("google.asdf").getError(), is(ParsedUrl.ParseError.NO_REGISTRY_SUFFIX));
+        assertThat(ParsedUrl.tryParse("http://google.com/\\/").getError(), is(ParsedUrl.ParseError.ILLEGAL_CHARACTER));
+        assertThat(ParsedUrl.tryParse("ftp://google.com").getError(), is(ParsedUrl.ParseError.BAD_PROTOCOL));
+
+        // Same messages as the exceptions, also for mutable input that changed afterwards
+        final StringBuilder sb = new StringBuilder("ftp://google.com");
+        result = ParsedUrl.tryParse(sb);
+        sb.setLength(0);
+        assertThat(result.isValid(), is(false));
+        assertThat(result.getUrl(), nullValue());
+        assertThat(result.getErrorMessage(), is(this.tryToCreateHttpUrl("ftp://google.com")));
+        for (final String url : new String[]{null, "http://google.com:8a", "http://[::x]", "google.asdf", "http://google.com/\\/"}) {
+            assertThat(ParsedUrl.tryParse(url).getErrorMessage(), is(this.tryToCreateHttpUrl(url)));
+        }
+
+        try {
+            ParsedUrl.tryParse("http://google.com:99999").getOrThrow();
+            throw new IllegalStateException("Expected ParsedUrlException");
+        } catch (final ParsedUrl.ParsedUrlException e) {
+            assertThat(e.getError(), is(ParsedUrl.ParseError.BAD_PORT));
+            assertThat(e.getMessage(), is("Port must be between 0 - 65535, provided URL: http://google.com:99999"));
+        }
+    }
+
+    @Test
+    public void tryParse_concurrent_error_message() throws Exception {
+        // Results are shared across threads in parallel streams, the first message requests may race
+        final String expected = this.tryToCreateHttpUrl("ftp://google.com");
+        for (int round = 0; round < 200; round++) {
+            final ParsedUrl.ParseResult result = ParsedUrl.tryParse("ftp://google.com");
+            final List<String> messages = IntStream.range(0, 8).parallel()
+                    .mapToObj(i -> result.getErrorMessage())
+                    .collect(Collectors.toList());
+            assertThat(messages, is(Collections.nCopies(8, expected)));
+        }
     }
 
 
@@ -176,6 +361,15 @@ public class ParsedUrlTest {
     // HELPERS
     // ------------------------------------------------------------------------------------------ //
 
+    private String describe(final ParsedUrl.ParseResult result) {
+        if (!result.isValid()) {
+            return result.getError() + " " + result.getErrorMessage();
+        }
+        final ParsedUrl url = result.getUrl();
+        return url.getUrl() + "|" + url.getProtocol() + "|" + url.getHost() + "|" + url.getPort() + "|" + url.getPath() + "|"
+                + url.getQuery() + "|" + url.getAnchor() + "|" + url.getDomain() + "|" + url.getTld() + "|" + url.getUserInfo();
+    }
+
     private String tryToCreateHttpUrl(final String url) {
         try {
             new ParsedUrl(url);
@@ -0,0 +1,124 @@
+package http;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+public class ParsedUrlViewTest {
+
+    private static final String[] URLS = {
+            "google.com", "http://google.com", "https://asdf.qwer.google.co.uk:8080/a/b?x=1&y=2#top",
+            "HTTP://WWW.Google.COM./Path", "http://user:pw@google.com/", "http://127.0.0.1/a", "localhost:8080",
+            "http://b\u00fccher.de/\u00e4", "http://google\u3002com/", "google.com:-1", "http://google.com?#",
+            null, "", "http://com", "google.asdf", "http://-google.com", "google.com/\\", "ftp://google.com",
+            "http://google.com:65536", "http://google.com:x", "http://[google.com", "jar:google.com", "http://google.com/%zz"
+    };
+
+    @Test
+    public void same_as_ParsedUrl() {
+        final ParsedUrlView view = new ParsedUrlView();
+        for (final String url : URLS) {
+            view.parse(url);
+            assertThat(String.valueOf(url), this.describe(view), is(this.describe(ParsedUrl.tryParse(url))));
+        }
+    }
+
+    @Test
+    public void bytes_inputs() {
+        final ParsedUrlView view = new ParsedUrlView();
+        for (final String url : URLS) {
+            if (url == null) {
+                continue;
+            }
+            final byte[] utf8 = ("x" + url + "x").getBytes(StandardCharsets.UTF_8);
+            final String expected = this.describe(ParsedUrl.tryParse(url));
+            view.parseUtf8(utf8, 1, utf8.length - 2);
+            assertThat(url, this.describe(view), is(expected));
+            view.parseUtf8(ByteBuffer.allocateDirect(utf8.length).put(utf8).position(1).limit(utf8.length - 1));
+            assertThat(url, this.describe(view), is(expected));
+        }
+    }
+
+    @Test
+    public void reuse() throws Exception {
+        final ParsedUrlView view = ParsedUrlView.forCurrentThread();
+        assertThat(view.parse("https://sub.google.com/a?x=1"), is(true));
+        final ParsedUrl kept = view.toParsedUrl();
+        assertThat(view.parse("ftp://google.com"), is(false));
+        assertThat(view.getError(), is(ParsedUrl.ParseError.BAD_PROTOCOL));
+        assertThrows(IllegalStateException.class, view::getHost);
+
+        assertThat(kept, is(new ParsedUrl("https://sub.google.com/a?x=1")));
+        assertThat(kept.getDomain(), is("google.com"));
+        assertThat(new ParsedUrlView().getError(), is(ParsedUrl.ParseError.NULL_INPUT));
+    }
+
+    @Test
+    public void no_allocation() {
+        final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final ParsedUrlView view = new ParsedUrlView();
+        final StringBuilder sb = new StringBuilder(1024);
+        final byte[][] inputs = new byte[URLS.length][];
+        for (int i = 0; i < URLS.length; i++) {
+            inputs[i] = String.valueOf(URLS[i]).getBytes(StandardCharsets.US_ASCII);
+        }
+        // Valid and invalid ASCII input, all components asked for
+        final String[] urls = {"https://asdf.qwer.google.co.uk:8080/a/b?x=1&y=2#top", "HTTP://WWW.Google.COM./Path",
+                "http://127.0.0.1/a", "localhost:8080", "google.asdf", "ftp://google.com", "http://google.com:x"};
+        long allocated = 0;
+        for (int round = 0; round < 3; round++) {
+            final long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            for (int i = 0; i < 20_000; i++) {
+                final String url = urls[i % urls.length];
+                if (view.parse(url)) {
+                    sb.setLength(0);
+                    view.appendUrl(sb).append(view.getDomain()).append(view.getTld()).append(view.getUserInfo())
+                            .append(view.getQueryParameters().get("y"));
+                }
+                view.parseUtf8(inputs[i % inputs.length], 0, inputs[i % inputs.length].length);
+            }
+            allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+        }
+        // The allocation counter itself may allocate a little
+        assertThat(String.valueOf(allocated), allocated < 1024, is(true));
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // HELPERS
+    // ------------------------------------------------------------------------------------------ //
+
+    private String describe(final ParsedUrl.ParseResult result) {
+        if (!result.isValid()) {
+            return result.getError() + " " + result.getErrorMessage();
+        }
+        final ParsedUrl url = result.getUrl();
+        return url.getUrl() + "|" + url.getProtocol() + "|" + url.getHost() + "|" + url.getPort() + "|" + url.getPath() + "|"
+                + url.getQuery() + "|" + url.getAnchor() + "|" + url.getDomain() + "|" + url.getTld() + "|" + url.getUserInfo();
+    }
+
+    private String describe(final ParsedUrlView view) {
+        if (!view.isValid()) {
+            return view.getError() + " " + view.getErrorMessage();
+        }
+        final ParsedUrl url = view.toParsedUrl();
+        final String viewUrl = view.appendUrl(new StringBuilder()).toString();
+        assertThat(viewUrl, is(url.getUrl()));
+        assertThat(view.getPort(), is(url.getPort() == null ? -1 : url.getPort()));
+        return viewUrl + "|" + view.getProtocol() + "|" + view.getHost() + "|" + url.getPort() + "|" + view.getPath() + "|"
+                + text(view.getQuery()) + "|" + text(view.getAnchor()) + "|" + text(view.getDomain()) + "|" + text(view.getTld())
+                + "|" + text(view.getUserInfo());
+    }
+
+    private static String text(final CharSequence chars) {
+        return chars == null ? null : chars.toString();
+    }
+
+}
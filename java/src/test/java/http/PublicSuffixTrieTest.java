@@ -0,0 +1,103 @@
+package http;
+
+import com.google.common.net.InternetDomainName;
+import com.google.thirdparty.publicsuffix.PublicSuffixPatterns;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+
+public class PublicSuffixTrieTest {
+
+    private final PublicSuffixTrie trie = PublicSuffixTrie.fromGuava();
+
+    @Test
+    public void consistent_with_guava() {
+        final List<String> hosts = new ArrayList<>(Arrays.asList(
+                "", ".", "com", "google.com", "www.google.com", "google.co.uk", "www.google.co.uk", "blogspot.com",
+                "foo.blogspot.com", "Google.COM.", "google.com..", "google\u3002com", "www.ck", "foo.www.ck", "a.b.ck",
+                "-google.com", "google-.com", "_google.com", "google.1com", "google.c_m", "goo gle.com", "b\u00fccher.de",
+                "a.b.c.d.e.f.kawasaki.jp", "city.kawasaki.jp", "google.asdf", "123.com", "a..com"));
+        for (final String suffix : PublicSuffixPatterns.EXACT.keySet()) {
+            hosts.add(suffix);
+            hosts.add("a." + suffix);
+            hosts.add("b.a." + suffix.toUpperCase());
+        }
+        for (final String suffix : PublicSuffixPatterns.UNDER.keySet()) {
+            hosts.add(suffix);
+            hosts.add("a." + suffix);
+            hosts.add("b.a." + suffix);
+        }
+        for (final String suffix : PublicSuffixPatterns.EXCLUDED.keySet()) {
+            hosts.add(suffix);
+            hosts.add("a." + suffix);
+        }
+
+        for (final String host : hosts) {
+            assertThat(host, this.resolveWithTrie(host), is(resolveWithGuava(host)));
+        }
+    }
+
+    @Test
+    public void from_lines() {
+        final PublicSuffixTrie trie = PublicSuffixTrie.fromLines(Arrays.asList(
+                "// ===BEGIN ICANN DOMAINS===",
+                "com",
+                "uk",
+                "co.uk",
+                "*.ck",
+                "!www.ck",
+                "// ===END ICANN DOMAINS===",
+                "// ===BEGIN PRIVATE DOMAINS===",
+                "blogspot.com",
+                "// ===END PRIVATE DOMAINS==="));
+
+        assertThat(trie.registrySuffixStart("www.google.co.uk"), is(11));
+        assertThat(trie.registrySuffixStart("foo.blogspot.com"), is(13));
+        assertThat(trie.publicSuffixStart("foo.blogspot.com"), is(4));
+        assertThat(trie.registrySuffixStart("a.b.ck"), is(2));
+        assertThat(trie.registrySuffixStart("www.ck"), is(4));
+        assertThat(trie.registrySuffixStart("com"), is(0));
+        assertThat(trie.registrySuffixStart("google.de"), is(PublicSuffixTrie.NO_SUFFIX));
+        assertThat(trie.registrySuffixStart("-google.com"), is(PublicSuffixTrie.INVALID));
+    }
+
+    @Test
+    public void limits() {
+        assertThat(this.trie.registrySuffixStart("a".repeat(64) + ".com"), is(PublicSuffixTrie.INVALID));
+        assertThat(this.trie.registrySuffixStart("a".repeat(250) + ".com"), is(PublicSuffixTrie.TOO_LONG));
+        assertThat(PublicSuffixTrie.describe(PublicSuffixTrie.TOO_LONG, "a".repeat(250) + ".com"),
+                is("Domain name too long: '" + "a".repeat(250) + ".com':"));
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // HELPERS
+    // ------------------------------------------------------------------------------------------ //
+
+    private String resolveWithTrie(final String host) {
+        final int tldStart = this.trie.registrySuffixStart(host);
+        final int publicStart = this.trie.publicSuffixStart(host);
+        if (tldStart <= 0) {
+            return PublicSuffixTrie.describe(tldStart, host);
+        }
+        final String name = PublicSuffixTrie.normalize(host);
+        return name.substring(PublicSuffixTrie.topDomainStart(name, tldStart)) + " " + name.substring(tldStart)
+                + " " + (publicStart < 0 ? null : name.substring(publicStart));
+    }
+
+    private static String resolveWithGuava(final String host) {
+        try {
+            final InternetDomainName idn = InternetDomainName.from(host);
+            return idn.topDomainUnderRegistrySuffix() + " " + idn.registrySuffix() + " " + idn.publicSuffix();
+        } catch (final Exception e) {
+            return e.getMessage();
+        }
+    }
+
+}
@@ -0,0 +1,57 @@
+package http;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+public class QueryParameterFilterTest {
+
+    @Test
+    public void tracking() throws Exception {
+        final QueryParameterFilter filter = QueryParameterFilter.TRACKING;
+        assertThat(this.apply(filter, "https://google.com/a?utm_source=x&id=1&gclid=y#top"), is("https://google.com/a?id=1#top"));
+        assertThat(this.apply(filter, "https://google.com/a?UTM_Medium=x&Utm_campaign&fbclid=1"), is("https://google.com/a"));
+        assertThat(this.apply(filter, "https://google.com/a?utm_source=x#top"), is("https://google.com/a#top"));
+        assertThat(this.apply(filter, "https://google.com/a?id=1&JSESSIONID=abc"), is("https://google.com/a?id=1"));
+        assertThat(this.apply(filter, "https://google.com/a?ASPSESSIONIDQQ=1&b&c=2"), is("https://google.com/a?b&c=2"));
+        assertThat(this.apply(filter, "https://google.com/a?a=1&&utm_id=2&"), is("https://google.com/a?a=1&&"));
+        assertThat(this.apply(filter, "https://google.com/a?utm=1&gclidx=2&x=utm_source"), is("https://google.com/a?utm=1&gclidx=2&x=utm_source"));
+        assertThat(this.apply(filter, "https://google.com/a?"), is("https://google.com/a?"));
+        assertThat(this.apply(filter, "https://google.com/a#utm_source=x"), is("https://google.com/a#utm_source=x"));
+
+        // Nothing removed: no copy
+        final ParsedUrl url = new ParsedUrl("https://google.com/a?id=1");
+        assertThat(filter.apply(url) == url.getUrl(), is(true));
+    }
+
+    @Test
+    public void custom() throws Exception {
+        final QueryParameterFilter filter = new QueryParameterFilter(Arrays.asList("Ref", "track*"));
+        assertThat(this.apply(filter, "http://google.com/?ref=1&REF=2&tracking=3&trac=4"), is("http://google.com/?trac=4"));
+        assertThat(filter.removes("rEf"), is(true));
+        assertThat(filter.removes("refs"), is(false));
+        assertThat(filter.removes(""), is(false));
+        assertThat(filter.getNames(), is(Arrays.asList("Ref", "track*")));
+        assertThat(this.apply(new QueryParameterFilter(Collections.emptyList()), "http://google.com/?a"), is("http://google.com/?a"));
+
+        assertThrows(IllegalArgumentException.class, () -> new QueryParameterFilter(null));
+        assertThrows(IllegalArgumentException.class, () -> new QueryParameterFilter(Collections.singletonList("*")));
+        assertThrows(IllegalArgumentException.class, () -> new QueryParameterFilter(Collections.singletonList("")));
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // HELPERS
+    // ------------------------------------------------------------------------------------------ //
+
+    private String apply(final QueryParameterFilter filter, final String url) throws Exception {
+        return filter.apply(new ParsedUrl(url));
+    }
+
+}
@@ -0,0 +1,76 @@
+package http;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+public class QueryParametersTest {
+
+    @Test
+    public void cursor() throws Exception {
+        final QueryParameters params = new ParsedUrl("http://google.com/a?x=1&flag&empty=&=v&a=b=c&&x=2#top").getQueryParameters();
+        assertThrows(IllegalStateException.class, params::getKey);
+        assertThat(this.pairs(params), is("x=1|flag=null|empty=|=v|a=b=c|=null|x=2|"));
+        assertThat(params.next(), is(false));
+        assertThat(this.pairs(params.rewind()), is("x=1|flag=null|empty=|=v|a=b=c|=null|x=2|"));
+        assertThat(params.size(), is(7));
+
+        assertThat(this.pairs(new ParsedUrl("http://google.com/a?").getQueryParameters()), is(""));
+        assertThat(this.pairs(new ParsedUrl("http://google.com/a?&").getQueryParameters()), is("=null|=null|"));
+        assertThat(this.pairs(new ParsedUrl("http://google.com/a#x=1").getQueryParameters()), is(""));
+        assertThat(new ParsedUrl("http://google.com/a").getQueryParameters().size(), is(0));
+        assertThat(new ParsedUrl("http://google.com/a?").getQueryParameters().size(), is(0));
+    }
+
+    @Test
+    public void get() throws Exception {
+        final QueryParameters params = new ParsedUrl("http://google.com/a?x=1&flag&xx=3&empty=&x=2").getQueryParameters();
+        assertThat(params.get("x").toString(), is("1"));
+        assertThat(params.get("xx").toString(), is("3"));
+        assertThat(params.get("flag").toString(), is(""));
+        assertThat(params.get("empty").toString(), is(""));
+        assertThat(params.get("X"), nullValue());
+        assertThat(params.get("fla"), nullValue());
+        assertThat(params.contains("flag"), is(true));
+        assertThat(params.contains("y"), is(false));
+        assertThat(new ParsedUrl("http://google.com/").getQueryParameters().get("x"), nullValue());
+
+        // Doesn't move the cursor
+        params.next();
+        params.get("empty");
+        assertThat(params.getKey().toString(), is("x"));
+        assertThat(params.getValue().toString(), is("1"));
+    }
+
+    @Test
+    public void decode() throws Exception {
+        final QueryParameters params = new ParsedUrl("http://google.com/?q=a+b%20c%C3%BC%e2%82%ac&plain=abc").getQueryParameters();
+        assertThat(QueryParameters.decode(params.get("q")), is((CharSequence) "a b c\u00fc\u20ac"));
+        final CharSequence plain = params.get("plain");
+        assertThat(QueryParameters.decode(plain) == plain, is(true));
+        assertThat(QueryParameters.decode("100%"), is((CharSequence) "100%"));
+        assertThat(QueryParameters.decode("%4"), is((CharSequence) "%4"));
+        assertThat(QueryParameters.decode(null), nullValue());
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // HELPERS
+    // ------------------------------------------------------------------------------------------ //
+
+    private String pairs(final QueryParameters params) {
+        final StringBuilder sb = new StringBuilder();
+        while (params.next()) {
+            sb.append(params.getKey()).append('=').append(params.getValue()).append('|');
+        }
+        return sb.toString();
+    }
+
+}
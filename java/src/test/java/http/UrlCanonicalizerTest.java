@@ -0,0 +1,87 @@
+package http;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumSet;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+
+public class UrlCanonicalizerTest {
+
+    @Test
+    public void canonicalize() throws Exception {
+        assertThat(this.canonicalize("http://WWW.Google.com.:80/a/./b/../c/%7euser?y=%4a&x=1#top"),
+                is("http://www.google.com/a/c/~user?x=1&y=J"));
+        assertThat(this.canonicalize("google.com"), is("http://google.com/"));
+        assertThat(this.canonicalize("https://google.com:443?"), is("https://google.com/"));
+        assertThat(this.canonicalize("https://google.com:80"), is("https://google.com:80/"));
+        assertThat(this.canonicalize("http://google.com:8080/"), is("http://google.com:8080/"));
+        assertThat(this.canonicalize("http://google.com:7/"), is("http://google.com:7/"));
+        assertThat(this.canonicalize("http://user@google.com/"), is("http://google.com/"));
+
+        // Dot segments
+        assertThat(this.canonicalize("http://google.com/a/b/c/./../../g"), is("http://google.com/a/g"));
+        assertThat(this.canonicalize("http://google.com/a/.."), is("http://google.com/"));
+        assertThat(this.canonicalize("http://google.com/a/."), is("http://google.com/a/"));
+        assertThat(this.canonicalize("http://google.com/../../a"), is("http://google.com/a"));
+        assertThat(this.canonicalize("http://google.com/a/%2e%2E/b"), is("http://google.com/b"));
+        assertThat(this.canonicalize("http://google.com/a//b/.../c"), is("http://google.com/a//b/.../c"));
+
+        // Escapes
+        assertThat(this.canonicalize("http://google.com/%2f%41%7E%20"), is("http://google.com/%2FA~%20"));
+
+        // Query, parameters sorted by their canonical form
+        assertThat(this.canonicalize("http://google.com/?b=2&a=1&b=1&%61=0"), is("http://google.com/?a=0&a=1&b=1&b=2"));
+        assertThat(this.canonicalize("http://google.com/?a=%2F&a=/&a"), is("http://google.com/?a&a=/&a=%2F"));
+        assertThat(this.canonicalize("http://google.com/?&"), is("http://google.com/?&"));
+    }
+
+    @Test
+    public void rules() throws Exception {
+        final ParsedUrl url = new ParsedUrl("http://Google.com.:80/a/../%7e?b&a#top");
+        assertThat(new UrlCanonicalizer(EnumSet.noneOf(UrlCanonicalizer.Rule.class)).canonicalize(url), is(url.getUrl()));
+        assertThat(new UrlCanonicalizer(EnumSet.of(UrlCanonicalizer.Rule.LOWERCASE_HOST)).canonicalize(url),
+                is("http://google.com.:80/a/../%7e?b&a#top"));
+        assertThat(new UrlCanonicalizer(EnumSet.of(UrlCanonicalizer.Rule.REMOVE_DOT_SEGMENTS, UrlCanonicalizer.Rule.SORT_QUERY)).canonicalize(url),
+                is("http://Google.com.:80/%7e?a&b#top"));
+        assertThat(UrlCanonicalizer.DEFAULT.canonicalize(url), is("http://google.com/~?a&b"));
+        assertThat(url.getCanonicalUrl(), is("http://google.com/~?a&b"));
+    }
+
+    @Test
+    public void fingerprints() throws Exception {
+        final String[] urls = {"google.com", "http://WWW.Google.com.:80/a/./b/../c/%7euser?y=%4a&x=1#top",
+                "http://b\u00fccher.de/\u00e4\u20ac", "http://google.com/\ud83d\ude00", "http://google.com/?" + "x".repeat(100)};
+        for (final String candidate : urls) {
+            final ParsedUrl url = new ParsedUrl(candidate);
+            final HashCode expected = Hashing.murmur3_128().hashString(url.getCanonicalUrl(), StandardCharsets.UTF_8);
+
+            assertThat(candidate, url.getFingerprint(), is(expected.asLong()));
+            final long[] fingerprint = UrlCanonicalizer.DEFAULT.fingerprint128(url);
+            assertThat(candidate, fingerprint[0], is(expected.asLong()));
+            assertThat(candidate, fingerprint[1], is(HashCode.fromBytes(Arrays.copyOfRange(expected.asBytes(), 8, 16)).asLong()));
+        }
+
+        // Same page, same fingerprint
+        assertThat(new ParsedUrl("http://google.com:80/a/../b?y=1&x=2").getFingerprint(),
+                is(new ParsedUrl("google.com/b?x=2&y=1#top").getFingerprint()));
+        assertThat(new ParsedUrl("google.com/a").getFingerprint(), not(new ParsedUrl("google.com/b").getFingerprint()));
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // HELPERS
+    // ------------------------------------------------------------------------------------------ //
+
+    private String canonicalize(final String url) throws Exception {
+        return new ParsedUrl(url).getCanonicalUrl();
+    }
+
+}
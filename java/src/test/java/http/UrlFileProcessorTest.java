@@ -0,0 +1,73 @@
+package http;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+
+public class UrlFileProcessorTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void process() throws Exception {
+        final Path input = this.dir.resolve("urls.txt");
+        final Path output = this.dir.resolve("results.tsv");
+        Files.write(input, ("google.com\r\n"
+                + "https://www.google.co.uk/a?q=1\n"
+                + "\n"
+                + "ftp://google.com\n"
+                + "google.asdf\n"
+                + "http://127.0.0.1:8080\n"
+                + "google.com/a\tb\\c\u0001\rd\n"
+                + "http://b\u00fccher.de/\u00e4").getBytes(StandardCharsets.UTF_8));
+
+        final UrlFileProcessor.Summary summary = new UrlFileProcessor(2, 1024).process(input, output);
+
+        assertThat(Files.readAllLines(output, StandardCharsets.UTF_8), is(List.of(
+                "OK\thttp://google.com\tgoogle.com\tcom",
+                "OK\thttps://www.google.co.uk/a?q=1\tgoogle.co.uk\tco.uk",
+                "INVALID_DOMAIN\t",
+                "BAD_PROTOCOL\tftp://google.com",
+                "NO_REGISTRY_SUFFIX\tgoogle.asdf",
+                "OK\thttp://127.0.0.1:8080\t\t",
+                "ILLEGAL_CHARACTER\tgoogle.com/a\\tb\\\\c\\u0001\\rd",
+                "OK\thttp://b\u00fccher.de/\u00e4\tb\u00fccher.de\tde")));
+        assertThat(summary.getLines(), is(8L));
+        assertThat(summary.getValid(), is(4L));
+        assertThat(summary.getErrors(ParsedUrl.ParseError.BAD_PROTOCOL), is(1L));
+        assertThat(summary.getErrors(ParsedUrl.ParseError.ILLEGAL_CHARACTER), is(1L));
+        assertThat(summary.getBytes(), is(Files.size(input)));
+    }
+
+    @Test
+    public void small_chunks_keep_order() throws Exception {
+        final Path input = this.dir.resolve("urls.txt");
+        final Path output = this.dir.resolve("results.tsv");
+        final List<String> urls = new ArrayList<>();
+        final List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            final String url = i % 7 == 0 ? "ftp://host" + i + ".com" : "http://host" + i + ".com/" + "x".repeat(i % 50);
+            urls.add(url);
+            expected.add(i % 7 == 0 ? "BAD_PROTOCOL\t" + url : "OK\t" + url + "\thost" + i + ".com\tcom");
+        }
+        Files.write(input, urls, StandardCharsets.UTF_8);
+
+        // Chunks smaller than lines, every chunk still has to end on a line end
+        final UrlFileProcessor.Summary summary = new UrlFileProcessor(4, 7).process(input, output);
+
+        assertThat(Files.readAllLines(output, StandardCharsets.UTF_8), is(expected));
+        assertThat(summary.getLines(), is(5000L));
+        assertThat(summary.getErrors(ParsedUrl.ParseError.BAD_PROTOCOL), is(715L));
+    }
+
+}
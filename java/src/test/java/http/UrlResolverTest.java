@@ -0,0 +1,109 @@
+package http;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+public class UrlResolverTest {
+
+    // RFC 3986 5.4, with `a.com` as host because `a` isn't a valid domain
+    private static final String BASE = "http://a.com/b/c/d;p?q";
+    private static final String[][] EXAMPLES = {
+            // Normal
+            {"g:h", null}, {"g", "http://a.com/b/c/g"}, {"./g", "http://a.com/b/c/g"}, {"g/", "http://a.com/b/c/g/"},
+            {"/g", "http://a.com/g"}, {"//g.com", "http://g.com"}, {"?y", "http://a.com/b/c/d;p?y"},
+            {"g?y", "http://a.com/b/c/g?y"}, {"#s", "http://a.com/b/c/d;p?q#s"}, {"g#s", "http://a.com/b/c/g#s"},
+            {"g?y#s", "http://a.com/b/c/g?y#s"}, {";x", "http://a.com/b/c/;x"}, {"g;x", "http://a.com/b/c/g;x"},
+            {"g;x?y#s", "http://a.com/b/c/g;x?y#s"}, {"", "http://a.com/b/c/d;p?q"}, {".", "http://a.com/b/c/"},
+            {"./", "http://a.com/b/c/"}, {"..", "http://a.com/b/"}, {"../", "http://a.com/b/"},
+            {"../g", "http://a.com/b/g"}, {"../..", "http://a.com/"}, {"../../", "http://a.com/"},
+            {"../../g", "http://a.com/g"},
+            // Abnormal
+            {"../../../g", "http://a.com/g"}, {"../../../../g", "http://a.com/g"}, {"/./g", "http://a.com/g"},
+            {"/../g", "http://a.com/g"}, {"g.", "http://a.com/b/c/g."}, {".g", "http://a.com/b/c/.g"},
+            {"g..", "http://a.com/b/c/g.."}, {"..g", "http://a.com/b/c/..g"}, {"./../g", "http://a.com/b/g"},
+            {"./g/.", "http://a.com/b/c/g/"}, {"g/./h", "http://a.com/b/c/g/h"}, {"g/../h", "http://a.com/b/c/h"},
+            {"g;x=1/./y", "http://a.com/b/c/g;x=1/y"}, {"g;x=1/../y", "http://a.com/b/c/y"},
+            {"g?y/./x", "http://a.com/b/c/g?y/./x"}, {"g?y/../x", "http://a.com/b/c/g?y/../x"},
+            {"g#s/./x", "http://a.com/b/c/g#s/./x"}, {"g#s/../x", "http://a.com/b/c/g#s/../x"},
+            {"http:g", "http://a.com/b/c/g"} // Non-strict, like browsers
+    };
+
+    @Test
+    public void rfc3986_examples() throws Exception {
+        final ParsedUrl base = new ParsedUrl(BASE);
+        for (final String[] example : EXAMPLES) {
+            final ParsedUrl.ParseResult result = base.tryResolve(example[0]);
+            assertThat(example[0], result.isValid() ? result.getUrl().getUrl() : null, is(example[1]));
+        }
+    }
+
+    @Test
+    public void same_as_URI_resolve() throws Exception {
+        final String[] bases = {"https://www.google.co.uk/a/b/c.html?x=1#top", "http://user:pw@Google.COM:8080/a/", "http://google.com/x/y"};
+        final String[] references = {"d.html", "../d", "/d?y=2", "//bing.com/x", "https://Bing.com/./a/../b", "g/./h#f",
+                "  /padded\n"};
+        for (final String base : bases) {
+            final ParsedUrl parsedBase = new ParsedUrl(base);
+            for (final String reference : references) {
+                // URI keeps dot segments of absolute references, RFC 3986 removes them
+                final URI expected = URI.create(base).resolve(URI.create(reference.trim())).normalize();
+                final ParsedUrl resolved = parsedBase.resolve(reference);
+                assertThat(base + " + " + reference, resolved, is(new ParsedUrl(expected.toString())));
+                assertThat(resolved.getDomain(), is(new ParsedUrl(expected.toString()).getDomain()));
+                assertThat(resolved.getTld(), is(new ParsedUrl(expected.toString()).getTld()));
+            }
+        }
+    }
+
+    @Test
+    public void invalid() throws Exception {
+        final ParsedUrl base = new ParsedUrl("https://google.com/a/b");
+        assertThat(base.tryResolve("mailto:a@google.com").getError(), is(ParsedUrl.ParseError.BAD_PROTOCOL));
+        assertThat(base.tryResolve("javascript:void(0)").getErrorMessage(), is("Protocol is not http or https, provided URL: javascript:void(0)"));
+        assertThat(base.tryResolve("ftp://google.com/a").getError(), is(ParsedUrl.ParseError.BAD_PROTOCOL));
+        assertThat(base.tryResolve("//google.asdf/").getError(), is(ParsedUrl.ParseError.NO_REGISTRY_SUFFIX));
+        assertThat(base.tryResolve("x y").getError(), is(ParsedUrl.ParseError.ILLEGAL_CHARACTER));
+        assertThat(base.tryResolve("x y").getErrorMessage().endsWith("https://google.com/a/x y"), is(true));
+        assertThat(base.tryResolve(null).getError(), is(ParsedUrl.ParseError.NULL_INPUT));
+        assertThrows(ParsedUrl.ParsedUrlException.class, () -> base.resolve("//:80"));
+    }
+
+    @Test
+    public void known_host() throws Exception {
+        final ParsedUrl base = new ParsedUrl("https://user@www.google.co.uk:8443/a");
+        final ParsedUrl resolved = base.resolve("b?x#y");
+        assertThat(resolved.getUrl(), is("https://www.google.co.uk:8443/b?x#y"));
+        assertThat(resolved.getUserInfo(), is("user"));
+        assertThat(resolved.getDomain(), is("google.co.uk"));
+        assertThat(resolved.getTld(), is("co.uk"));
+        assertThat(base.resolve("HTTP://www.google.co.uk/").getUrl(), is("http://www.google.co.uk/"));
+
+        final ParsedUrl ip = new ParsedUrl("http://127.0.0.1/a/b");
+        assertThat(ip.resolve("c").getUrl(), is("http://127.0.0.1/a/c"));
+        assertThat(ip.resolve("c").getDomain(), is((String) null));
+        assertThat(new ParsedUrl("localhost/a").resolve("/b").getDomain(), is("localhost"));
+        assertThat(new ParsedUrl("google.com").resolve("../d").getUrl(), is("http://google.com/d"));
+    }
+
+    @Test
+    public void resolveAll() throws Exception {
+        final ParsedUrl base = new ParsedUrl("https://google.com/a/b");
+        final List<ParsedUrl.ParseResult> results = base.resolveAll(Arrays.asList("c", "mailto:x", "//bing.com", "x y", "../d"));
+        assertThat(results.size(), is(5));
+        assertThat(results.get(0).getUrl().getUrl(), is("https://google.com/a/c"));
+        assertThat(results.get(1).getError(), is(ParsedUrl.ParseError.BAD_PROTOCOL));
+        assertThat(results.get(2).getUrl().getDomain(), is("bing.com"));
+        assertThat(results.get(3).getError(), is(ParsedUrl.ParseError.ILLEGAL_CHARACTER));
+        assertThat(results.get(3).getErrorMessage().endsWith("https://google.com/a/x y"), is(true));
+        assertThat(results.get(4).getUrl().getUrl(), is("https://google.com/d"));
+    }
+
+}
@@ -0,0 +1,153 @@
+package http;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+public class UrlStatisticsTest {
+
+    private static final String[] TLDS = {"com", "de", "co.uk", "org", "net", "io"};
+
+    @Test
+    public void small() throws Exception {
+        final UrlStatistics stats = new UrlStatistics();
+        for (final String url : new String[]{"google.com/a", "google.com/b", "www.google.com", "maps.google.com", "a.b.co.uk",
+                "github.com", "http://127.0.0.1/"}) {
+            stats.add(new ParsedUrl(url));
+        }
+        assertThat(stats.getCount(), is(7L));
+        assertThat(stats.getTopDomains(2), is(List.of(Map.entry("google.com", 4L), Map.entry("b.co.uk", 1L))));
+        assertThat(stats.getTopTlds(5), is(List.of(Map.entry("com", 5L), Map.entry("co.uk", 1L))));
+        assertThat(stats.estimateDomainCount("github.com"), is(1L));
+        assertThat(stats.estimateDomainCount("bing.com"), is(0L));
+        assertThat(stats.getDistinctHosts(), is(6L));
+        assertThat(stats.getDistinctHosts("com"), is(4L));
+        assertThat(stats.getDistinctHosts("de"), is(0L));
+        assertThat(stats.getDistinctHostsPerTld(), is(Map.of("co.uk", 1L, "com", 4L)));
+
+        assertThrows(IllegalArgumentException.class, () -> stats.getTopDomains(257));
+        assertThrows(IllegalArgumentException.class, () -> new UrlStatistics(0, 8, 4, 12));
+        assertThrows(IllegalArgumentException.class, () -> new UrlStatistics(8, 8, 4, 19));
+    }
+
+    @Test
+    public void heavy_hitters_and_distinct_hosts() throws Exception {
+        final Random random = new Random(5);
+        final UrlStatistics stats = new UrlStatistics(32, 1 << 12, 4, 12);
+        final Map<String, Long> exact = new HashMap<>();
+        final Set<String> hosts = new HashSet<>();
+        for (final ParsedUrl url : zipf(random, 200_000)) {
+            stats.add(url);
+            exact.merge(url.getDomain(), 1L, Long::sum);
+            hosts.add(url.getHost());
+        }
+
+        // The 10 biggest domains are found, with estimates close above their real counts
+        final List<Map.Entry<String, Long>> expected = new ArrayList<>(exact.entrySet());
+        expected.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        final List<Map.Entry<String, Long>> top = stats.getTopDomains(10);
+        for (int i = 0; i < 10; i++) {
+            assertThat(top.get(i).getKey(), is(expected.get(i).getKey()));
+            assertThat(top.get(i).getValue(), greaterThanOrEqualTo(expected.get(i).getValue()));
+            assertThat(top.get(i).getValue() - expected.get(i).getValue(), lessThan(200_000L * 3 / 4096));
+        }
+        for (final Map.Entry<String, Long> entry : exact.entrySet()) {
+            assertThat(stats.estimateDomainCount(entry.getKey()), greaterThanOrEqualTo(entry.getValue()));
+        }
+        assertThat(Math.abs(stats.getDistinctHosts() - hosts.size()) / (double) hosts.size(), lessThan(0.05));
+    }
+
+    @Test
+    public void merge_and_serialize() throws Exception {
+        final Random random = new Random(9);
+        final List<ParsedUrl> urls = zipf(random, 50_000);
+        final UrlStatistics all = new UrlStatistics();
+        urls.forEach(all::add);
+
+        final UrlStatistics merged = urls.parallelStream().collect(UrlStatistics.collector());
+        final UrlStatistics left = new UrlStatistics();
+        final UrlStatistics right = new UrlStatistics();
+        for (int i = 0; i < urls.size(); i++) {
+            (i % 2 == 0 ? left : right).add(urls.get(i));
+        }
+        final UrlStatistics shipped = UrlStatistics.fromBytes(left.toBytes()).merge(UrlStatistics.fromBytes(right.toBytes()));
+
+        for (final UrlStatistics other : new UrlStatistics[]{merged, shipped, UrlStatistics.fromBytes(all.toBytes())}) {
+            assertThat(other.getCount(), is(all.getCount()));
+            assertThat(other.getTopDomains(20), is(all.getTopDomains(20)));
+            assertThat(other.getTopTlds(5), is(all.getTopTlds(5)));
+            assertThat(other.getDistinctHosts(), is(all.getDistinctHosts()));
+            assertThat(other.getDistinctHostsPerTld(), is(all.getDistinctHostsPerTld()));
+            assertThat(other.estimateDomainCount("d7.com"), is(all.estimateDomainCount("d7.com")));
+        }
+        // Sparse: far below the 2 * 8192 * 4 counters
+        assertThat(new UrlStatistics().toBytes().length, lessThan(100));
+
+        assertThrows(IllegalArgumentException.class, () -> all.merge(new UrlStatistics(8, 8, 4, 12)));
+        assertThrows(IllegalArgumentException.class, () -> UrlStatistics.fromBytes(new byte[]{1, 2, 3}));
+        final byte[] bytes = all.toBytes();
+        assertThrows(IllegalArgumentException.class, () -> UrlStatistics.fromBytes(Arrays.copyOf(bytes, bytes.length / 2)));
+    }
+
+    @Test
+    public void sparse_and_dense_hosts() throws Exception {
+        // Per TLD: "de" stays sparse, "com" crosses a quarter of the 2^10 registers and turns dense
+        final UrlStatistics many = new UrlStatistics(8, 64, 2, 10);
+        final UrlStatistics few = new UrlStatistics(8, 64, 2, 10);
+        final UrlStatistics all = new UrlStatistics(8, 64, 2, 10);
+        for (int i = 0; i < 5000; i++) {
+            final ParsedUrl url = new ParsedUrl("https://h" + i + ".example.com/");
+            many.add(url);
+            all.add(url);
+        }
+        for (int i = 0; i < 50; i++) {
+            for (final String tld : new String[]{"com", "de"}) {
+                final ParsedUrl url = new ParsedUrl("https://x" + i + ".example." + tld + "/");
+                few.add(url);
+                all.add(url);
+            }
+        }
+        assertThat(Math.abs(few.getDistinctHosts("de") - 50) / 50.0, lessThan(0.1));
+        assertThat(Math.abs(all.getDistinctHosts("com") - 5050) / 5050.0, lessThan(0.1));
+
+        final UrlStatistics denseIntoSparse = UrlStatistics.fromBytes(few.toBytes()).merge(many);
+        final UrlStatistics sparseIntoDense = UrlStatistics.fromBytes(many.toBytes()).merge(few);
+        for (final UrlStatistics merged : new UrlStatistics[]{denseIntoSparse, sparseIntoDense, UrlStatistics.fromBytes(all.toBytes())}) {
+            assertThat(merged.getDistinctHostsPerTld(), is(all.getDistinctHostsPerTld()));
+            assertThat(merged.getDistinctHosts(), is(all.getDistinctHosts()));
+        }
+    }
+
+
+    // ------------------------------------------------------------------------------------------ //
+    // HELPERS
+    // ------------------------------------------------------------------------------------------ //
+
+    /**
+     * Domain ranks roughly Zipf distributed, random subdomains
+     */
+    private static List<ParsedUrl> zipf(final Random random, final int count) throws Exception {
+        final List<ParsedUrl> urls = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final int rank = (int) Math.floor(Math.pow(10_000, random.nextDouble()));
+            final String tld = TLDS[rank % TLDS.length];
+            urls.add(new ParsedUrl("https://h" + random.nextInt(20) + ".d" + rank + "." + tld + "/" + i));
+        }
+        return urls;
+    }
+
+}
@@ -0,0 +1,71 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ButilReportTest {
+
+   private static final ButilSchema<String> HOST = Butil.<String>schema()
+      .isNotNull("Host must not be NULL")
+      .isFalse(String::isBlank, "Host must not be blank")
+      .isTrue(h -> h.length() < 20, "Host must be shorter than 20 chars")
+      .build();
+
+   @Test
+   void validateAll() {
+      List<String> rows = List.of("a.com", " ", "b.com", "aaaaaaaaaaaaaaaaaaaa.com");
+      ButilReport report = Butil.validateAll(rows, HOST);
+      assertFalse(report.isValid());
+      assertEquals(4, report.getCount());
+      assertEquals(2, report.getInvalidCount());
+      assertArrayEquals(new int[]{1, 3}, report.getInvalidIndexes());
+      assertEquals(List.of("Host must not be blank"), report.getViolations(1));
+      assertEquals(List.of("Host must be shorter than 20 chars"), report.getViolations(3));
+      assertEquals(List.of(), report.getViolations(0));
+      assertThrows(UnsupportedOperationException.class, () -> report.getViolations(1).clear());
+      assertEquals("ButilReport{count=4, invalid=2, 1=[Host must not be blank], 3=[Host must be shorter than 20 chars]}",
+         report.toString());
+
+      ButilReport fromStream = Butil.validateAll(Stream.of("a.com", null), HOST);
+      assertArrayEquals(new int[]{1}, fromStream.getInvalidIndexes());
+      assertEquals(List.of("Host must not be NULL"), fromStream.getViolations(1));
+
+      assertTrue(Butil.validateAll(List.of(), HOST).isValid());
+   }
+
+   @Test
+   void throwingCheckDoesNotAbort() {
+      ButilSchema<String> schema = Butil.<String>schema()
+         .isTrue(s -> Integer.parseInt(s) > 0, "Must be > 0")
+         .build();
+      ButilReport report = Butil.validateAll(List.of("1", "x", "-1", "2"), schema);
+      assertArrayEquals(new int[]{1, 2}, report.getInvalidIndexes());
+      assertEquals(List.of("java.lang.NumberFormatException: For input string: \"x\""), report.getViolations(1));
+      assertEquals(List.of("Must be > 0"), report.getViolations(2));
+   }
+
+   @Test
+   void parallelSameAsSequential() {
+      List<String> rows = new ArrayList<>();
+      for (int i = 0; i < 100_000; i++) {
+         rows.add(i % 997 == 0 ? " " : i % 1009 == 0 ? null : "host" + i + ".com");
+      }
+      ButilReport sequential = Butil.validateAll(rows, HOST);
+      ButilReport parallel = Butil.validateAllParallel(rows, HOST);
+      assertEquals(sequential.getCount(), parallel.getCount());
+      assertArrayEquals(sequential.getInvalidIndexes(), parallel.getInvalidIndexes());
+      for (int index : parallel.getInvalidIndexes()) {
+         assertEquals(sequential.getViolations(index), parallel.getViolations(index));
+      }
+      assertEquals(List.of("Host must not be NULL"), parallel.getViolations(1009));
+      assertEquals(101 + 99, parallel.getInvalidCount());
+
+      // Small inputs stay sequential
+      assertArrayEquals(new int[]{1}, Butil.validateAllParallel(List.of("a.com", " "), HOST).getInvalidIndexes());
+   }
+}
@@ -0,0 +1,90 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ButilSchemaTest {
+
+   private static final ButilSchema<String> HOST = Butil.<String>schema()
+      .isNotNull("Host must not be NULL")
+      .isFalse(String::isBlank, "Host must not be blank")
+      .build();
+
+   private static final ButilSchema<Integer> PORT = Butil.<Integer>schema()
+      .defaultValue(80)
+      .isTrue(p -> p > 0 && p < 65536, "Port must be within 1 - 65535")
+      .build();
+
+   private static final ButilSchema<Request> REQUEST = Butil.<Request>schema()
+      .isNotNull("Request must not be NULL")
+      .isFalse(r -> r.timeout != null && r.timeout < 0, "Timeout must be >= 0")
+      .field(r -> r.host, HOST)
+      .field(r -> r.port, PORT)
+      .build();
+
+   @Test
+   void applyValid() {
+      assertEquals("google.com", HOST.apply("google.com"));
+      assertEquals(8080, PORT.apply(8080));
+      assertEquals(80, PORT.apply(null));
+
+      Request request = new Request("google.com", null, 10);
+      assertSame(request, REQUEST.apply(request));
+      assertSame(request, REQUEST.applyAll(request));
+      assertTrue(REQUEST.violations(request).isEmpty());
+   }
+
+   @Test
+   void applyInvalid() {
+      IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> HOST.apply(null));
+      assertEquals("Host must not be NULL", e.getMessage());
+      e = assertThrows(IllegalArgumentException.class, () -> HOST.apply(" "));
+      assertEquals("Host must not be blank", e.getMessage());
+      e = assertThrows(IllegalArgumentException.class, () -> PORT.apply(0));
+      assertEquals("Port must be within 1 - 65535", e.getMessage());
+
+      // First violation only, in check order
+      e = assertThrows(IllegalArgumentException.class, () -> REQUEST.apply(new Request(" ", 0, -1)));
+      assertEquals("Timeout must be >= 0", e.getMessage());
+      e = assertThrows(IllegalArgumentException.class, () -> REQUEST.apply(null));
+      assertEquals("Request must not be NULL", e.getMessage());
+   }
+
+   @Test
+   void collectAll() {
+      Request request = new Request(" ", 0, -1);
+      assertEquals(List.of("Timeout must be >= 0", "Host must not be blank", "Port must be within 1 - 65535"), REQUEST.violations(request));
+      IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> REQUEST.applyAll(request));
+      assertEquals("Timeout must be >= 0; Host must not be blank; Port must be within 1 - 65535", e.getMessage());
+
+      // Nothing after a failed isNotNull() is checked, it would only fail on NULL
+      assertEquals(List.of("Request must not be NULL"), REQUEST.violations(null));
+      assertEquals(List.of("Host must not be NULL"), REQUEST.violations(new Request(null, null, null)));
+   }
+
+   @Test
+   void defaultMustPass() {
+      ButilSchema<Integer> schema = Butil.<Integer>schema()
+         .defaultValue(0)
+         .isTrue(i -> i > 0, "Must be > 0")
+         .build();
+      assertThrows(IllegalArgumentException.class, () -> schema.apply(null));
+      assertEquals(List.of("Must be > 0"), schema.violations(null));
+   }
+
+   private static final class Request {
+
+      private final String host;
+      private final Integer port;
+      private final Integer timeout;
+
+      private Request(String host, Integer port, Integer timeout) {
+         this.host = host;
+         this.port = port;
+         this.timeout = timeout;
+      }
+   }
+}
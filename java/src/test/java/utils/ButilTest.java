@@ -73,6 +73,49 @@ class ButilTest {
 
    }
 
+   @Test
+   void lazyMessage() {
+      int[] built = new int[1];
+      Integer ok = mandatoryValue(10)
+         .isNotNull(() -> "'value' must not be NULL" + built[0]++)
+         .isTrue(true, () -> "'value' must be valid" + built[0]++)
+         .isTrue(i -> i > 0, () -> "'value' must be > " + built[0]++)
+         .isFalse(false, () -> "'value' must be valid" + built[0]++)
+         .isFalse(i -> i < 0, () -> "'value' must be >= " + built[0]++)
+         .get();
+      assertEquals(10, ok);
+      assertEquals(0, built[0]);
+
+      IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () ->
+         mandatoryValue(0).isTrue(i -> i > 0, () -> "'value' must be > " + 0));
+      assertEquals("'value' must be > 0", e.getMessage());
+   }
+
+   @Test
+   void stackless() {
+      ButilException e = assertThrows(ButilException.class, () -> mandatoryValue(null).isNotNull("Must not be NULL"));
+      assertTrue(e.getStackTrace().length > 0);
+
+      e = assertThrows(ButilException.class, () -> mandatoryValue(null).stackless().isNotNull("Must not be NULL"));
+      assertEquals("Must not be NULL", e.getMessage());
+      assertEquals(0, e.getStackTrace().length);
+      e = assertThrows(ButilException.class, () -> IntButil.mandatoryValue(0).stackless().positive(() -> "Must be > 0"));
+      assertEquals(0, e.getStackTrace().length);
+      e = assertThrows(ButilException.class, () -> LongButil.mandatoryValue(0).stackless().positive("Must be > 0"));
+      assertEquals(0, e.getStackTrace().length);
+      e = assertThrows(ButilException.class, () -> DoubleButil.mandatoryValue(0).stackless().positive("Must be > 0"));
+      assertEquals(0, e.getStackTrace().length);
+      ButilSchema<String> schema = Butil.<String>schema().stackless().isNotNull("Must not be NULL").build();
+      e = assertThrows(ButilException.class, () -> schema.apply(null));
+      assertEquals(0, e.getStackTrace().length);
+      e = assertThrows(ButilException.class, () -> schema.applyAll(null));
+      assertEquals(0, e.getStackTrace().length);
+
+      // Only the chains that opted in
+      e = assertThrows(ButilException.class, () -> IntButil.mandatoryValue(0).positive("Must be > 0"));
+      assertTrue(e.getStackTrace().length > 0);
+   }
+
    @Test
    void map() {
       String pathAsString = "/etc";
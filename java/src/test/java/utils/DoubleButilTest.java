@@ -0,0 +1,42 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static utils.DoubleButil.mandatoryValue;
+import static utils.DoubleButil.optionalValue;
+
+class DoubleButilTest {
+
+   @Test
+   void mandatoryValueValid() {
+      double rate = mandatoryValue(0.25)
+         .isTrue(true, "Rate must be valid")
+         .isTrue(Double::isFinite, "Rate must be finite")
+         .isFalse(r -> r == 0.5, "Rate must not be 0.5")
+         .inRange(0, 1, "Rate must be within 0 - 1")
+         .positive("Rate must be > 0")
+         .get();
+      assertEquals(0.25, rate);
+      assertEquals(1.0, mandatoryValue(1.0).inRange(0, 1, "Rate must be within 0 - 1").get());
+      assertEquals("0.25", mandatoryValue(0.25).map(Double::toString));
+   }
+
+   @Test
+   void mandatoryValueInvalid() {
+      assertThrows(IllegalArgumentException.class, () -> mandatoryValue(1.01).inRange(0, 1, "Rate must be within 0 - 1"));
+      assertThrows(IllegalArgumentException.class, () -> mandatoryValue(-0.01).inRange(0, 1, "Rate must be within 0 - 1"));
+      assertThrows(IllegalArgumentException.class, () -> mandatoryValue(0.0).positive("Must be > 0"));
+      assertThrows(IllegalArgumentException.class, () -> mandatoryValue(1.0).isFalse(r -> r > 0, "Must be <= 0"));
+      // NaN is neither in a range nor positive
+      assertThrows(IllegalArgumentException.class, () -> mandatoryValue(Double.NaN).inRange(0, 1, "Rate must be within 0 - 1"));
+      assertThrows(IllegalArgumentException.class, () -> mandatoryValue(Double.NaN).positive("Must be > 0"));
+   }
+
+   @Test
+   void optionalValueValid() {
+      assertEquals(0.01, optionalValue(null, 0.01).inRange(0, 1, "Rate must be within 0 - 1").get());
+      assertEquals(0.5, optionalValue(0.5, 0.01).inRange(0, 1, "Rate must be within 0 - 1").get());
+      assertThrows(IllegalArgumentException.class, () -> optionalValue(null, 2.0).inRange(0, 1, "Default must pass as well"));
+   }
+}
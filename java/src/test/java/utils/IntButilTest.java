@@ -0,0 +1,55 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static utils.IntButil.mandatoryValue;
+import static utils.IntButil.optionalValue;
+
+class IntButilTest {
+
+   @Test
+   void mandatoryValueValid() {
+      int port = mandatoryValue(8080)
+         .isTrue(true, "Port must be valid")
+         .isTrue(p -> p % 2 == 0, "Port must be even")
+         .isFalse(false, "Port must be valid")
+         .isFalse(p -> p == 80, "Port must not be 80")
+         .inRange(1, 65535, "Port must be within 1 - 65535")
+         .positive("Port must be > 0")
+         .get();
+      assertEquals(8080, port);
+      assertEquals(1, mandatoryValue(1).inRange(1, 1, "Must be 1").get());
+      assertEquals("8080", mandatoryValue(8080).map(Integer::toString));
+   }
+
+   @Test
+   void mandatoryValueInvalid() {
+      assertThrows(IllegalArgumentException.class, () -> mandatoryValue(0).isTrue(false, "Passed boolean must be true"));
+      assertThrows(IllegalArgumentException.class, () -> mandatoryValue(0).isFalse(true, "Passed boolean must be false"));
+      assertThrows(IllegalArgumentException.class, () -> mandatoryValue(0).isTrue(i -> i > 0, "Must be > 0"));
+      assertThrows(IllegalArgumentException.class, () -> mandatoryValue(1).isFalse(i -> i > 0, "Must be <= 0"));
+      assertThrows(IllegalArgumentException.class, () -> mandatoryValue(0).inRange(1, 65535, "Port must be within 1 - 65535"));
+      assertThrows(IllegalArgumentException.class, () -> mandatoryValue(65536).inRange(1, 65535, "Port must be within 1 - 65535"));
+      assertThrows(IllegalArgumentException.class, () -> mandatoryValue(0).positive("Must be > 0"));
+
+      IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> mandatoryValue(-1).positive("Must be > 0"));
+      assertEquals("Must be > 0", e.getMessage());
+   }
+
+   @Test
+   void lazyMessage() {
+      int min = 1;
+      assertEquals(5, mandatoryValue(5).inRange(min, 10, () -> "Must be within " + min + " - 10").get());
+      IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () ->
+         mandatoryValue(0).inRange(min, 10, () -> "Must be within " + min + " - 10"));
+      assertEquals("Must be within 1 - 10", e.getMessage());
+   }
+
+   @Test
+   void optionalValueValid() {
+      assertEquals(80, optionalValue(null, 80).inRange(1, 65535, "Port must be within 1 - 65535").get());
+      assertEquals(443, optionalValue(443, 80).inRange(1, 65535, "Port must be within 1 - 65535").get());
+      assertThrows(IllegalArgumentException.class, () -> optionalValue(null, 0).positive("Default must pass as well"));
+   }
+}
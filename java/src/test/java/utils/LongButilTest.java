@@ -0,0 +1,39 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static utils.LongButil.mandatoryValue;
+import static utils.LongButil.optionalValue;
+
+class LongButilTest {
+
+   @Test
+   void mandatoryValueValid() {
+      long size = mandatoryValue(5_000_000_000L)
+         .isTrue(true, "Size must be valid")
+         .isTrue(s -> s > Integer.MAX_VALUE, "Size must be > 2^31")
+         .isFalse(s -> s % 2 == 1, "Size must be even")
+         .inRange(1, Long.MAX_VALUE, "Size must be > 0")
+         .positive("Size must be > 0")
+         .get();
+      assertEquals(5_000_000_000L, size);
+      assertEquals("5", mandatoryValue(5L).map(Long::toString));
+   }
+
+   @Test
+   void mandatoryValueInvalid() {
+      assertThrows(IllegalArgumentException.class, () -> mandatoryValue(0L).isTrue(s -> s > 0, "Must be > 0"));
+      assertThrows(IllegalArgumentException.class, () -> mandatoryValue(1L).isFalse(s -> s > 0, "Must be <= 0"));
+      assertThrows(IllegalArgumentException.class, () -> mandatoryValue(Long.MIN_VALUE).inRange(0, 10, "Must be within 0 - 10"));
+      assertThrows(IllegalArgumentException.class, () -> mandatoryValue(11L).inRange(0, 10, "Must be within 0 - 10"));
+      assertThrows(IllegalArgumentException.class, () -> mandatoryValue(0L).positive("Must be > 0"));
+   }
+
+   @Test
+   void optionalValueValid() {
+      assertEquals(1024L, optionalValue(null, 1024L).positive("Must be > 0").get());
+      assertEquals(7L, optionalValue(7L, 1024L).positive("Must be > 0").get());
+      assertThrows(IllegalArgumentException.class, () -> optionalValue(null, -1L).positive("Default must pass as well"));
+   }
+}